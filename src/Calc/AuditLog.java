@@ -0,0 +1,370 @@
+package Calc;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Records every evaluation (input, mode, precision, result, duration) to a compact binary log
+ * that AuditReplay can check later.
+ *
+ * Callers never block: record() claims a slot in a bounded lock-free ring buffer (multiple
+ * producers, one consumer) with a single CAS and returns; when the ring is full the entry is
+ * dropped and counted instead. A daemon writer thread drains the ring in claim order and
+ * writes records; a gap left by drops is written as a DROPPED record carrying the count, so
+ * the log says exactly what it is missing.
+ *
+ * Singleton, enabled by the system property calc.audit.file (the log path); without it every
+ * call is a no-op. calc.audit.capacity sets the ring size (rounded up to a power of two).
+ */
+public final class AuditLog implements Closeable {
+
+    public enum Kind {
+        BINARY, UNARY, EXPRESSION, DROPPED
+    }
+
+    static final byte[] MAGIC = "CALCAUD1".getBytes(StandardCharsets.US_ASCII);
+
+    private static final int DEFAULT_CAPACITY = 1 << 16;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static AuditLog instance;
+
+    /**
+     * One evaluation. Operands and result are the exact text the caller saw, so replay
+     * compares like with like; failures are logged as "!" plus the exception name.
+     * The mode names the arithmetic (float, decimal128, a trig mode, expression) and precision
+     * is its MathContext precision in digits, 0 for native float/double arithmetic.
+     */
+    static final class Entry {
+        final Kind kind;
+        final long timestamp;
+        final long durationNanos;
+        final String operation;
+        final String[] operands;
+        final String mode;
+        final int precision;
+        final String result;
+
+        Entry(Kind kind, long timestamp, long durationNanos, String operation, String[] operands,
+                String mode, int precision, String result) {
+            this.kind = kind;
+            this.timestamp = timestamp;
+            this.durationNanos = durationNanos;
+            this.operation = operation;
+            this.operands = operands;
+            this.mode = mode;
+            this.precision = precision;
+            this.result = result;
+        }
+    }
+
+    // --- Ring buffer (bounded MPSC; each slot's sequence says whose turn it is) ---
+
+    private final Entry[] slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private long head; // writer thread only
+
+    // --- Counters ---
+
+    private final AtomicLong recorded = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong highWater = new AtomicLong();
+    private long droppedReported; // writer thread only
+
+    private final DataOutputStream out;
+    private final Thread writer;
+    private volatile boolean closing;
+    // Producers between their closing check and publishing; the writer waits for zero before
+    // its last drain, so no entry can be claimed after it and go neither written nor dropped
+    private final AtomicInteger producers = new AtomicInteger();
+    private volatile IOException failure;
+
+    // --- Singleton ---
+
+    public static synchronized AuditLog getInstance() {
+        if (instance == null) {
+            String file = System.getProperty("calc.audit.file");
+            try {
+                instance = file == null ? new AuditLog() : open(Path.of(file),
+                        Integer.getInteger("calc.audit.capacity", DEFAULT_CAPACITY));
+            } catch (IOException e) {
+                System.err.println("Audit log disabled: " + e.getMessage());
+                instance = new AuditLog();
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Opens a log outside the singleton, e.g. for the soak harness or a second file.
+     */
+    public static AuditLog open(Path file, int capacity) throws IOException {
+        AuditLog log = new AuditLog(Files.newOutputStream(file), capacity);
+        Runtime.getRuntime().addShutdownHook(new Thread(log::close, "audit-log-flush"));
+        return log;
+    }
+
+    // Disabled log: no ring, no thread
+    private AuditLog() {
+        this.slots = null;
+        this.sequences = null;
+        this.mask = 0;
+        this.out = null;
+        this.writer = null;
+    }
+
+    AuditLog(OutputStream stream, int capacity) throws IOException {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.slots = new Entry[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        this.mask = size - 1;
+        this.out = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16));
+        out.write(MAGIC);
+        this.writer = new Thread(this::drainLoop, "audit-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    public boolean isEnabled() {
+        return writer != null;
+    }
+
+    // --- Producers ---
+
+    public void recordBinary(String operation, String left, String right, String mode, int precision,
+            String result, long durationNanos) {
+        record(Kind.BINARY, operation, new String[] {left, right}, mode, precision, result, durationNanos);
+    }
+
+    public void recordUnary(String operation, String operand, String mode, int precision,
+            String result, long durationNanos) {
+        record(Kind.UNARY, operation, new String[] {operand}, mode, precision, result, durationNanos);
+    }
+
+    public void recordExpression(String expression, String mode, int precision, String result, long durationNanos) {
+        record(Kind.EXPRESSION, "", new String[] {expression}, mode, precision, result, durationNanos);
+    }
+
+    /**
+     * Never blocks: returns false (and counts a drop) when the ring is full or the log is closed.
+     */
+    boolean record(Kind kind, String operation, String[] operands, String mode, int precision,
+            String result, long durationNanos) {
+        if (writer == null) {
+            return false;
+        }
+        recorded.incrementAndGet();
+        producers.incrementAndGet();
+        try {
+            if (closing) {
+                dropped.incrementAndGet();
+                return false;
+            }
+            return offer(new Entry(kind, System.currentTimeMillis(), durationNanos, operation, operands,
+                    mode, precision, result));
+        } finally {
+            producers.decrementAndGet();
+        }
+    }
+
+    private boolean offer(Entry entry) {
+        long t = tail.get();
+        while (true) {
+            int index = (int) (t & mask);
+            long diff = sequences.get(index) - t;
+            if (diff == 0) {
+                if (tail.compareAndSet(t, t + 1)) {
+                    slots[index] = entry;
+                    sequences.set(index, t + 1); // publishes the entry to the writer
+                    // written trails the slot being freed, so clamp to the ring size
+                    long pending = Math.min(t + 1 - written.get(), slots.length);
+                    if (pending > highWater.get()) {
+                        highWater.accumulateAndGet(pending, Math::max);
+                    }
+                    return true;
+                }
+                t = tail.get();
+            } else if (diff < 0) {
+                // The slot still holds an entry from one lap ago: full
+                dropped.incrementAndGet();
+                return false;
+            } else {
+                t = tail.get();
+            }
+        }
+    }
+
+    // --- Consumer ---
+
+    private Entry poll() {
+        int index = (int) (head & mask);
+        if (sequences.get(index) != head + 1) {
+            return null;
+        }
+        Entry entry = slots[index];
+        slots[index] = null;
+        sequences.set(index, head + slots.length); // free for the producer one lap ahead
+        head++;
+        return entry;
+    }
+
+    private void drainLoop() {
+        try {
+            while (true) {
+                boolean stop = closing;
+                int count = 0;
+                for (Entry entry = poll(); entry != null; entry = poll()) {
+                    writeDropMarker();
+                    write(entry);
+                    written.incrementAndGet();
+                    count++;
+                }
+                writeDropMarker();
+                if (stop) {
+                    // Producers arriving after the count reaches zero see closing and drop,
+                    // so once it is zero tail is final
+                    if (producers.get() == 0 && head == tail.get()) {
+                        break;
+                    }
+                    // A producer got past the closing check or claimed a slot but has not published yet
+                    Thread.onSpinWait();
+                    continue;
+                }
+                if (count == 0) {
+                    out.flush();
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+            }
+            out.flush();
+        } catch (IOException e) {
+            failure = e;
+            closing = true;
+        } finally {
+            try {
+                out.close();
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+    }
+
+    private void writeDropMarker() throws IOException {
+        long drops = dropped.get();
+        if (drops != droppedReported) {
+            out.writeByte(Kind.DROPPED.ordinal());
+            out.writeLong(System.currentTimeMillis());
+            writeVarLong(out, drops - droppedReported);
+            droppedReported = drops;
+        }
+    }
+
+    private void write(Entry entry) throws IOException {
+        out.writeByte(entry.kind.ordinal());
+        out.writeLong(entry.timestamp);
+        writeVarLong(out, entry.durationNanos);
+        writeString(out, entry.operation);
+        out.writeByte(entry.operands.length);
+        for (String operand : entry.operands) {
+            writeString(out, operand);
+        }
+        writeString(out, entry.mode);
+        writeVarLong(out, entry.precision);
+        writeString(out, entry.result);
+    }
+
+    static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    static void writeString(DataOutputStream out, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Stops accepting entries, writes everything already claimed and closes the file.
+     * Entries recorded after close() are counted as dropped.
+     */
+    @Override
+    public void close() {
+        if (writer == null || closing && !writer.isAlive()) {
+            return;
+        }
+        closing = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // --- Counters ---
+
+    /**
+     * Entries offered, whether or not they made it into the ring.
+     */
+    public long getRecordedCount() {
+        return recorded.get();
+    }
+
+    /**
+     * Entries lost because the ring was full (backpressure) or the log was closing.
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    /**
+     * Entries claimed but not yet written.
+     */
+    public long getPendingCount() {
+        return tail.get() - written.get();
+    }
+
+    /**
+     * Largest backlog seen, in entries; close to the capacity means drops are near.
+     */
+    public long getHighWaterMark() {
+        return highWater.get();
+    }
+
+    public int getCapacity() {
+        return slots == null ? 0 : slots.length;
+    }
+
+    /**
+     * The I/O error that stopped the writer, or null.
+     */
+    public IOException getFailure() {
+        return failure;
+    }
+}
@@ -0,0 +1,198 @@
+package Calc;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Reads an AuditLog file, recomputes every record and reports any result that differs.
+ * Binary and unary records go through Calculator.evaluateBinary/evaluateUnary with the logged
+ * trig and arithmetic modes, expressions through UnitExpression and RationalEvaluator
+ * (with its ExpressionEvaluator fallback), so a replay runs
+ * the same code the calculator ran. Pasted and imported expressions are logged by source
+ * name only, so they are counted as unchecked. Run from the command line with:
+ * java Calc.AuditReplay audit.log
+ * The exit status is 1 when any record differs, 0 otherwise.
+ */
+public final class AuditReplay {
+
+    /**
+     * Counts from one replay.
+     */
+    public static final class Summary {
+        public long records, mismatches, dropped, unchecked;
+        final long[] perKind = new long[AuditLog.Kind.values().length];
+
+        @Override
+        public String toString() {
+            return records + " records (" + perKind[0] + " binary, " + perKind[1] + " unary, "
+                    + perKind[2] + " expression), " + mismatches + " mismatches, " + dropped + " dropped, "
+                    + unchecked + " unchecked";
+        }
+    }
+
+    // STANDARD trig runs through the CalculatorApp adaptee, a frame that cannot be created here;
+    // its sqrt/sin/cos/tan/toRadians are the same double round trips as FunctionNode.apply
+    private static final class ReplayCalculator extends Calculator {
+        ReplayCalculator() {
+            super(null);
+        }
+
+        @Override
+        public Operation getOperation(String op) {
+            if (getTrigMode() == TrigMode.FAST || !(op.equals("√") || op.equals("sin")
+                    || op.equals("cos") || op.equals("tan"))) {
+                return super.getOperation(op);
+            }
+            return new Operation() {
+                @Override
+                public BigDecimal compute(BigDecimal a) {
+                    return op.equals("√")
+                            ? FunctionNode.apply("√", a)
+                            : FunctionNode.apply(op, FunctionNode.apply("toRadians", a));
+                }
+            };
+        }
+    }
+
+    private AuditReplay() {
+    }
+
+    /**
+     * How an evaluation failure is logged: "!" and the exception's simple class name.
+     */
+    static String failure(Throwable e) {
+        return "!" + e.getClass().getSimpleName();
+    }
+
+    public static Summary replay(InputStream input, PrintStream report) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(input));
+        byte[] magic = new byte[AuditLog.MAGIC.length];
+        in.readFully(magic);
+        if (!Arrays.equals(magic, AuditLog.MAGIC)) {
+            throw new IOException("Not an audit log");
+        }
+
+        ReplayCalculator calculator = new ReplayCalculator();
+        Summary summary = new Summary();
+        AuditLog.Kind[] kinds = AuditLog.Kind.values();
+        while (true) {
+            int kindByte = in.read();
+            if (kindByte < 0) {
+                break;
+            }
+            if (kindByte >= kinds.length) {
+                throw new IOException("Corrupt record after " + summary.records + " records");
+            }
+            AuditLog.Kind kind = kinds[kindByte];
+            long timestamp = in.readLong();
+            if (kind == AuditLog.Kind.DROPPED) {
+                long count = readVarLong(in);
+                summary.dropped += count;
+                report.println("record " + summary.records + ": " + count + " entries dropped before it");
+                continue;
+            }
+            long nanos = readVarLong(in);
+            String operation = readString(in);
+            String[] operands = new String[in.readUnsignedByte()];
+            for (int i = 0; i < operands.length; i++) {
+                operands[i] = readString(in);
+            }
+            String mode = readString(in);
+            readVarLong(in); // precision: implied by the mode for the current record kinds
+            String expected = readString(in);
+
+            if (mode.equals(CalculatorApp.STREAMED_MODE)) {
+                // Pasted or imported: the log names the source, not the expression
+                summary.perKind[kind.ordinal()]++;
+                summary.unchecked++;
+                summary.records++;
+                continue;
+            }
+
+            calculator.setArithmeticMode(mode.startsWith(Calculator.EXACT_MODE)
+                    ? Calculator.ArithmeticMode.EXACT : Calculator.ArithmeticMode.FLOAT);
+            String actual = switch (kind) {
+                case BINARY -> calculator.evaluateBinary(operands[0], operation, operands[1]);
+                case UNARY -> {
+                    calculator.setTrigMode(mode.endsWith(Calculator.TrigMode.FAST.name())
+                            ? Calculator.TrigMode.FAST : Calculator.TrigMode.STANDARD);
+                    yield calculator.evaluateUnary(operation, operands[0]);
+                }
+                default -> evaluateExpression(operands[0]);
+            };
+            summary.perKind[kind.ordinal()]++;
+            if (!expected.equals(actual)) {
+                summary.mismatches++;
+                report.println("record " + summary.records + " (" + kind + ", " + mode + ", " + nanos + " ns at "
+                        + timestamp + "): " + describe(kind, operation, operands) + " logged " + expected
+                        + " but replays as " + actual);
+            }
+            summary.records++;
+        }
+        return summary;
+    }
+
+    private static String evaluateExpression(String expression) {
+        try {
+            return UnitExpression.compile(expression).evaluateExact();
+        } catch (IllegalArgumentException | ArithmeticException e) {
+            return failure(e);
+        }
+    }
+
+    private static String describe(AuditLog.Kind kind, String operation, String[] operands) {
+        return switch (kind) {
+            case BINARY -> operands[0] + " " + operation + " " + operands[1];
+            case UNARY -> operation + "(" + operands[0] + ")";
+            default -> operands[0];
+        };
+    }
+
+    static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed length");
+    }
+
+    static String readString(DataInputStream in) throws IOException {
+        long length = readVarLong(in);
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Malformed string length");
+        }
+        byte[] bytes = new byte[(int) length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: java Calc.AuditReplay audit.log");
+            System.exit(2);
+        }
+        Summary summary;
+        try (InputStream input = Files.newInputStream(Path.of(args[0]))) {
+            summary = replay(input, System.out);
+        } catch (EOFException e) {
+            System.err.println("Log ends mid-record (writer stopped before flushing)");
+            System.exit(2);
+            return;
+        }
+        System.out.println(summary);
+        System.exit(summary.mismatches == 0 ? 0 : 1);
+    }
+}
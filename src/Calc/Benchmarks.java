@@ -0,0 +1,466 @@
+package Calc;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Command-line micro benchmarks, run with: java Calc.Benchmarks [suite]
+ * Each suite prints nanoseconds per operation after a warm-up pass.
+ */
+public class Benchmarks {
+
+    // Representative templated formulas (variables x and y)
+    static final String[] FORMULAS = {
+        "2*π/360*x",
+        "(sin(30))*x+(cos(60))*y",
+        "(x+0)*1+y/1",
+        "(x*y+1)*(x*y+1)+(sin(x))*(sin(x))"
+    };
+
+    public static void main(String[] args) {
+        String suite = args.length > 0 ? args[0] : "optimizer";
+        switch (suite) {
+            case "optimizer" -> optimizer();
+            case "jit" -> jit();
+            case "interval" -> interval();
+            case "precision" -> precision();
+            case "columnar" -> columnar();
+            case "bignum" -> bignum();
+            case "format" -> format();
+            case "gradient" -> gradient();
+            case "plot" -> plot();
+            case "trig" -> trig();
+            case "operand" -> operand();
+            case "rational" -> rational();
+            case "units" -> units();
+            default -> System.out.println("Unknown suite: " + suite);
+        }
+    }
+
+    // --- Suites ---
+
+    static void optimizer() {
+        ExpressionParser parser = new ExpressionParser();
+        ExpressionOptimizer optimizer = new ExpressionOptimizer();
+
+        for (String formula : FORMULAS) {
+            Expression parsed = parser.parse(formula);
+            List<String> variables = List.of("x", "y");
+            // Unshared baseline, then sharing alone, then the optimizer pass plus sharing
+            CompiledExpression plain = CompiledExpression.compileUnshared(parsed, variables);
+            CompiledExpression shared = CompiledExpression.compile(parsed, variables);
+            CompiledExpression optimized = CompiledExpression.compile(optimizer.optimize(parsed), variables);
+
+            System.out.println("== " + formula);
+            System.out.println(optimized);
+
+            double[] x = {12.5};
+            BigDecimal bx = BigDecimal.valueOf(12.5), by = BigDecimal.valueOf(3);
+            ExpressionEvaluator evaluator = new ExpressionEvaluator(Map.of("x", bx, "y", by));
+            report("  re-parse per call", 200_000,
+                    () -> evaluator.evaluate(parser.parse(formula)).doubleValue());
+            report("  double, unoptimized", 2_000_000, () -> plain.evaluate(x[0] += 1e-9, 3));
+            report("  double, shared only", 2_000_000, () -> shared.evaluate(x[0] += 1e-9, 3));
+            report("  double, optimized", 2_000_000, () -> optimized.evaluate(x[0] += 1e-9, 3));
+            report("  BigDecimal, unoptimized", 200_000, () -> plain.evaluate(bx, by).doubleValue());
+            report("  BigDecimal, shared only", 200_000, () -> shared.evaluate(bx, by).doubleValue());
+            report("  BigDecimal, optimized", 200_000, () -> optimized.evaluate(bx, by).doubleValue());
+        }
+    }
+
+    static void jit() {
+        for (String formula : FORMULAS) {
+            CompiledExpression program = CompiledExpression.compile(
+                    new ExpressionOptimizer().optimize(new ExpressionParser().parse(formula)), List.of("x", "y"));
+            TieredExpression tiered = new TieredExpression(program, 1);
+            double[] vars = {12.5, 3};
+            tiered.eval(vars);
+
+            System.out.println("== " + formula + (tiered.isCompiled() ? "" : " (not compiled)"));
+            report("  interpreter", 5_000_000, () -> program.evaluate(vars[0] += 1e-9, vars[1]));
+            report("  generated class", 5_000_000, () -> tiered.eval(bump(vars)));
+        }
+    }
+
+    private static double[] bump(double[] vars) {
+        vars[0] += 1e-9;
+        return vars;
+    }
+
+    static void interval() {
+        ExpressionParser parser = new ExpressionParser();
+        Map<String, BigDecimal> bindings = Map.of("x", new BigDecimal("12.5"), "y", new BigDecimal("3"));
+        for (String formula : FORMULAS) {
+            Expression parsed = parser.parse(formula);
+            ExpressionEvaluator exact = new ExpressionEvaluator(bindings);
+            IntervalEvaluator bounds = new IntervalEvaluator(bindings);
+
+            System.out.println("== " + formula + "  " + bounds.evaluate(parsed));
+            report("  BigDecimal always", 200_000, () -> exact.evaluate(parsed).doubleValue());
+            report("  interval only", 200_000, () -> bounds.evaluate(parsed).midpoint());
+            report("  adaptive (1e-12)", 200_000, () -> bounds.evaluateAdaptive(parsed, 1e-12).doubleValue());
+            System.out.println("  fast " + bounds.getFastResultCount() + ", escalated " + bounds.getEscalationCount());
+        }
+    }
+
+    static void precision() {
+        ExpressionParser parser = new ExpressionParser();
+        Map<String, BigDecimal> bindings = Map.of("x", new BigDecimal("12.5"), "y", new BigDecimal("3"));
+        String[] formulas = {"x/y+√(x)", "1/3*3", "(x*y+1)^5/(y-x)", "√(x^2+y^2)/7"};
+        for (String formula : formulas) {
+            Expression parsed = parser.parse(formula);
+            ExpressionEvaluator fixed = new ExpressionEvaluator(bindings);
+            System.out.println("== " + formula);
+            report("  fixed DECIMAL128", 20_000, () -> fixed.evaluate(parsed).doubleValue());
+            for (int digits : new int[] {10, 30, 60}) {
+                PrecisionEvaluator adaptive = new PrecisionEvaluator(bindings);
+                report("  adaptive, " + digits + " digits", 20_000,
+                        () -> adaptive.evaluate(parsed, digits).doubleValue());
+                StringBuilder levels = new StringBuilder();
+                for (int level = 1; level <= adaptive.getMaxLevel(); level++) {
+                    levels.append(' ').append(adaptive.getEscalationCount(level));
+                }
+                System.out.println("    escalated " + adaptive.getEscalatedEvaluationCount() + " of "
+                        + adaptive.getEvaluationCount() + ", raises per level:" + levels);
+            }
+        }
+    }
+
+    static void columnar() {
+        int rows = 10_000_000;
+        double[][] columns = new double[2][rows];
+        Random random = new Random(42);
+        for (int i = 0; i < rows; i++) {
+            columns[0][i] = random.nextDouble() * 100;
+            columns[1][i] = random.nextDouble() * 100;
+        }
+        for (String formula : FORMULAS) {
+            CompiledExpression program = CompiledExpression.compile(
+                    new ExpressionOptimizer().optimize(new ExpressionParser().parse(formula)), List.of("x", "y"));
+            ColumnarEvaluator columnar = new ColumnarEvaluator(program);
+            double[] result = new double[rows];
+            int[] row = {0};
+
+            System.out.println("== " + formula);
+            double rowAtATime = report("  row at a time (per row)", 2_000_000,
+                    () -> program.evaluate(columns[0][row[0] = (row[0] + 1) % rows], columns[1][row[0]]));
+            double table = report("  columnar, " + rows + " rows", 5, () -> {
+                columnar.evaluate(columns, rows, result);
+                return result[rows - 1];
+            });
+            System.out.printf("  %.1f M rows/s columnar vs %.1f M rows/s row at a time%n",
+                    rows / table * 1e3, 1e3 / rowAtATime);
+        }
+    }
+
+    static void bignum() {
+        Random random = new Random(42);
+        for (int digits = 10; digits <= 1_000_000; digits *= 10) {
+            int bits = (int) (digits * 3.3219);
+            BigDecimal a = new BigDecimal(new BigInteger(bits, random).setBit(bits - 1), digits / 2);
+            BigDecimal b = new BigDecimal(new BigInteger(bits, random).setBit(bits - 1), digits / 3);
+            int iterations = Math.max(3, 20_000_000 / digits / (int) Math.sqrt(digits));
+
+            System.out.println("== " + digits + " digits");
+            report("  BigDecimal.multiply", iterations, () -> a.multiply(b).signum());
+            report("  backend multiply", iterations, () -> BigArithmetic.multiply(a, b).signum());
+        }
+    }
+
+    static void format() {
+        Random random = new Random(42);
+        double[] doubles = new double[1024];
+        float[] floats = new float[doubles.length];
+        String[] texts = new String[doubles.length];
+        for (int i = 0; i < doubles.length; i++) {
+            doubles[i] = random.nextInt(100_000) / 64.0 * (i % 2 == 0 ? 1 : 1e-3);
+            floats[i] = (float) doubles[i];
+            texts[i] = Double.toString(doubles[i]);
+        }
+        NumberFormatter formatter = new NumberFormatter();
+        int[] i = {0};
+
+        System.out.println("== formatting");
+        report("  Double.toString", 2_000_000, () -> Double.toString(doubles[i[0]++ & 1023]).length());
+        report("  NumberFormatter, double", 2_000_000, () -> formatter.format(doubles[i[0]++ & 1023]).length());
+        report("  Float.toString", 2_000_000, () -> Float.toString(floats[i[0]++ & 1023]).length());
+        report("  NumberFormatter, float", 2_000_000, () -> formatter.format(floats[i[0]++ & 1023]).length());
+        System.out.println("== parsing");
+        report("  Double.parseDouble", 2_000_000, () -> Double.parseDouble(texts[i[0]++ & 1023]));
+        report("  NumberFormatter.parseDouble", 2_000_000, () -> NumberFormatter.parseDouble(texts[i[0]++ & 1023]));
+        report("  Float.parseFloat", 2_000_000, () -> Float.parseFloat(texts[i[0]++ & 1023]));
+        report("  NumberFormatter.parseFloat", 2_000_000, () -> NumberFormatter.parseFloat(texts[i[0]++ & 1023]));
+    }
+
+    static void gradient() {
+        // A pricing-style formula in eight inputs (no e: the parser reads it as Euler's number)
+        String formula = "a*b^2/(c+d) + sin(k*f)*√(g*g+h*h) - (a+c)*(k-h)/(b*b+1) + cos(a*h)^3";
+        GradientEvaluator program = GradientEvaluator.compile(formula);
+        CompiledExpression compiled = program.getProgram();
+        int n = compiled.getVariables().size();
+        double[] x = new double[n], g = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = 1.5 + i * 0.25;
+        }
+
+        System.out.println("== " + formula + " (" + n + " variables)");
+        report("  value only", 1_000_000, () -> compiled.evaluate(x));
+        report("  finite differences (2n)", 100_000, () -> {
+            double sum = 0;
+            for (int i = 0; i < n; i++) {
+                double h = 1e-6 * Math.max(1, Math.abs(x[i])), saved = x[i];
+                x[i] = saved + h;
+                double up = compiled.evaluate(x);
+                x[i] = saved - h;
+                sum += (up - compiled.evaluate(x)) / (2 * h);
+                x[i] = saved;
+            }
+            return sum;
+        });
+        report("  forward mode (n passes)", 100_000, () -> {
+            double sum = 0;
+            for (int i = 0; i < n; i++) {
+                sum += program.derivative(i, x);
+            }
+            return sum;
+        });
+        report("  reverse mode (1 pass)", 1_000_000, () -> program.evaluate(x, g) + g[0]);
+
+        // Symbolic: ExpressionDifferentiator's partial derivatives, each compiled once
+        List<String> variables = compiled.getVariables();
+        Expression parsed = new ExpressionParser().parse(formula);
+        CompiledExpression[] partials = new CompiledExpression[n];
+        for (int i = 0; i < n; i++) {
+            partials[i] = CompiledExpression.compile(
+                    new ExpressionDifferentiator(variables.get(i)).differentiate(parsed), variables);
+        }
+        report("  symbolic (n programs)", 1_000_000, () -> {
+            double sum = 0;
+            for (CompiledExpression partial : partials) {
+                sum += partial.evaluate(x);
+            }
+            return sum;
+        });
+        program.evaluate(x, g);
+        double error = 0;
+        for (int i = 0; i < n; i++) {
+            error = Math.max(error, Math.abs(partials[i].evaluate(x) - g[i]));
+        }
+        System.out.println("  symbolic vs reverse mode: max difference " + error);
+    }
+
+    static void plot() {
+        // Formula, then a bracket around one of its roots
+        double[][] brackets = {{2, 3}, {13, 14}, {0, 180}};
+        String[] formulas = {"x^3-2*x-5", "sin(x*x)*x", "cos(x)-x/100"};
+        for (int f = 0; f < formulas.length; f++) {
+            PlotSampler sampler = PlotSampler.of(formulas[f]);
+            Solver solver = Solver.of(formulas[f]);
+            double lo = brackets[f][0], hi = brackets[f][1];
+            int[] size = {0};
+            System.out.println("== " + formulas[f]);
+            report("  sample 1M points", 5, () -> size[0] = sampler.sample(-10, 10, 1_000_000).size());
+            PlotSampler.Samples samples = sampler.sample(-10, 10, 1_000_000);
+            report("  render 800x500", 10, () -> PlotSampler.render(samples, 800, 500).getWidth());
+            System.out.println("  " + size[0] + " samples after refinement");
+            report("  brent", 100_000, () -> solver.brent(lo, hi));
+            report("  newton", 100_000, () -> solver.newton(lo, hi));
+        }
+    }
+
+    static void trig() {
+        // Accuracy against a 40-digit reference: whole degrees, random angles and angles
+        // within 1e-6 degrees of a quadrant boundary
+        MathContext mc = new MathContext(40);
+        BigDecimal pi = new BigDecimal("3.141592653589793238462643383279502884197169399375");
+        Random random = new Random(1);
+        double[] fast = new double[3], math = new double[3];
+        for (int i = 0; i < 200_000; i++) {
+            double d = switch (i % 3) {
+                case 0 -> random.nextInt(1441) - 720;
+                case 1 -> random.nextInt(8) * 90 + (random.nextDouble() - 0.5) * 2e-6;
+                default -> random.nextDouble() * 1440 - 720;
+            };
+            BigDecimal radians = new BigDecimal(d).remainder(BigDecimal.valueOf(360))
+                    .multiply(pi, mc).divide(BigDecimal.valueOf(180), mc);
+            BigDecimal[] exact = FastTrig.sinCos(radians, mc);
+            fast[0] = Math.max(fast[0], ulps(FastTrig.sin(d), exact[0]));
+            fast[1] = Math.max(fast[1], ulps(FastTrig.cos(d), exact[1]));
+            math[0] = Math.max(math[0], ulps(Math.sin(Math.toRadians(d)), exact[0]));
+            math[1] = Math.max(math[1], ulps(Math.cos(Math.toRadians(d)), exact[1]));
+            // tan is infinite at odd multiples of 90 degrees, where the reference cos is 0
+            // (up to its precision, as in ulps)
+            if (exact[1].abs().compareTo(BigDecimal.ONE.movePointLeft(30)) >= 0) {
+                BigDecimal tan = exact[0].divide(exact[1], mc);
+                fast[2] = Math.max(fast[2], ulps(FastTrig.tan(d), tan));
+                math[2] = Math.max(math[2], ulps(Math.tan(Math.toRadians(d)), tan));
+            }
+        }
+        System.out.printf("== max error (ulp)%n  FastTrig            sin %.2f  cos %.2f  tan %.2f%n",
+                fast[0], fast[1], fast[2]);
+        System.out.printf("  Math + toRadians    sin %.3g  cos %.3g  tan %.3g%n", math[0], math[1], math[2]);
+
+        double[] angles = new double[1024], out = new double[1024];
+        for (int i = 0; i < angles.length; i++) {
+            angles[i] = random.nextDouble() * 720 - 360;
+        }
+        int[] i = {0};
+        System.out.println("== throughput");
+        report("  Math.sin(toRadians)", 5_000_000, () -> Math.sin(Math.toRadians(angles[i[0]++ & 1023])));
+        report("  FastTrig.sin", 5_000_000, () -> FastTrig.sin(angles[i[0]++ & 1023]));
+        report("  FastTrig.sin, bulk x1024", 5_000, () -> {
+            FastTrig.sin(angles, out, angles.length);
+            return out[0];
+        });
+
+        // The Calculator's BigDecimal path; STANDARD mode's adapter chain is spelled out here,
+        // since CalculatorApp (its adaptee) is a frame
+        BigDecimal[] operands = new BigDecimal[1024];
+        for (int k = 0; k < operands.length; k++) {
+            operands[k] = BigDecimal.valueOf(angles[k]);
+        }
+        Operation fastSin = new FastTrigOperation("sin");
+        report("  BigDecimal sin, adapter chain", 1_000_000, () -> {
+            BigDecimal radians = BigDecimal.valueOf(Math.toRadians(operands[i[0]++ & 1023].doubleValue()));
+            return BigDecimal.valueOf(Math.sin(radians.doubleValue())).signum();
+        });
+        report("  BigDecimal sin, fast mode", 1_000_000, () -> fastSin.compute(operands[i[0]++ & 1023]).signum());
+    }
+
+    static void operand() {
+        Random random = new Random(1);
+        for (int n : new int[] {64, 256, 512}) {
+            double[] a = new double[n * n], b = new double[n * n], c = new double[n * n];
+            for (int k = 0; k < a.length; k++) {
+                a[k] = random.nextDouble();
+                b[k] = random.nextDouble();
+            }
+            int runs = Math.max(1, 50_000_000 / (n * n * n));
+            System.out.println("== " + n + "x" + n + " multiply");
+            report("  naive i-j-k", runs, () -> {
+                Matrix.multiplyNaive(a, b, c, n, n, n);
+                return c[0];
+            });
+            report("  blocked i-k-j", runs, () -> {
+                Arrays.fill(c, 0);
+                Matrix.multiply(a, b, c, n, n, n);
+                return c[0];
+            });
+        }
+
+        // Through the Operation interface: parse-free dispatch on prebuilt operands
+        Operation multiply = new MultiplyOperation();
+        Operand z = Operand.complex(0.6, 0.8), w = Operand.complex(1.5, -0.5);
+        Operand v = Operand.vector(1, 2, 3, 4), m = Operand.matrix(4, 4, new double[16]);
+        System.out.println("== Operation.compute(Operand, Operand)");
+        report("  complex * complex", 5_000_000, () -> multiply.compute(z, w).hashCode());
+        report("  vector * vector (dot)", 5_000_000, () -> multiply.compute(v, v).hashCode());
+        report("  4x4 matrix * vector", 5_000_000, () -> multiply.compute(m, v).hashCode());
+        OperandEvaluator evaluator = new OperandEvaluator();
+        report("  parse and evaluate \"(1+2*i)*(3-i)\"", 500_000, () -> evaluator.evaluate("(1+2*i)*(3-i)").hashCode());
+    }
+
+    static void rational() {
+        // Small fractions: a/b op c/d with one- to three-digit parts
+        Random random = new Random(1);
+        Rational[] fractions = new Rational[1024];
+        BigDecimal[] decimals = new BigDecimal[1024];
+        for (int k = 0; k < fractions.length; k++) {
+            long n = random.nextInt(1999) - 999, d = random.nextInt(999) + 1;
+            fractions[k] = Rational.of(n, d);
+            decimals[k] = BigDecimal.valueOf(n).divide(BigDecimal.valueOf(d), MathContext.DECIMAL128);
+        }
+        int[] i = {0};
+        System.out.println("== small fractions");
+        report("  BigDecimal a*b/c (DECIMAL128)", 2_000_000, () -> {
+            int k = i[0]++;
+            return decimals[k & 1023].multiply(decimals[(k + 1) & 1023])
+                    .divide(decimals[(k + 2) & 1023].abs().add(BigDecimal.ONE), MathContext.DECIMAL128).signum();
+        });
+        report("  Rational a*b/c", 2_000_000, () -> {
+            int k = i[0]++;
+            return fractions[k & 1023].multiply(fractions[(k + 1) & 1023])
+                    .divide(fractions[(k + 2) & 1023].add(Rational.ONE)).signum();
+        });
+
+        // Long chains: lazy reduction against reducing after every step
+        System.out.println("== harmonic sum H(n)");
+        for (int n : new int[] {20, 40, 300}) {
+            report("  Rational H(" + n + ")", 2_000, () -> {
+                Rational sum = Rational.ZERO;
+                for (int k = 1; k <= n; k++) {
+                    sum = sum.add(Rational.of(1, k));
+                }
+                return sum.signum();
+            });
+            report("  reduced every step H(" + n + ")", 2_000, () -> {
+                Rational sum = Rational.ZERO;
+                for (int k = 1; k <= n; k++) {
+                    sum = sum.add(Rational.of(1, k)).reduced();
+                }
+                return sum.signum();
+            });
+        }
+
+        ExpressionParser parser = new ExpressionParser();
+        Expression thirds = parser.parse("1/3*3 + 2/7*(7/2) - 5/6");
+        System.out.println("== " + thirds);
+        report("  ExpressionEvaluator", 500_000, () -> new ExpressionEvaluator().evaluate(thirds).signum());
+        report("  RationalEvaluator", 500_000, () -> new RationalEvaluator().evaluate(thirds).signum());
+    }
+
+    static void units() {
+        // The same formula with units (speed in km/h from m and s, plus a 5 km/h offset)
+        // and written out in base-unit numbers
+        String withUnits = "d / t + 5 km/h in km/h";
+        String plain = "(d / t + 5 * 1000 / 3600) / (1000 / 3600)";
+        Map<String, Unit> units = Map.of("d", Unit.named("m"), "t", Unit.named("s"));
+        List<String> variables = List.of("d", "t");
+        System.out.println("== " + withUnits);
+        report("  compile with units", 100_000, () -> UnitExpression.compile(withUnits, units).getUnit().length());
+        report("  parse without units", 100_000, () -> new ExpressionParser().parse(plain).height());
+
+        CompiledExpression unitProgram = UnitExpression.compile(withUnits, units).toProgram(variables);
+        CompiledExpression plainProgram = CompiledExpression.compile(
+                new ExpressionOptimizer().optimize(new ExpressionParser().parse(plain)), variables);
+        System.out.println(unitProgram);
+        double[] x = {100, 9.58};
+        // Identical programs; the first round only warms up both call sites
+        for (int round = 0; round < 2; round++) {
+            report("  evaluate, units", 5_000_000, () -> unitProgram.evaluate(x));
+            report("  evaluate, plain numbers", 5_000_000, () -> plainProgram.evaluate(x));
+        }
+    }
+
+    private static double ulps(double value, BigDecimal exact) {
+        if (exact.abs().compareTo(BigDecimal.ONE.movePointLeft(30)) < 0) {
+            // Exact zero (up to the reference's precision): any nonzero result is unbounded error
+            return value == 0 ? 0 : Double.POSITIVE_INFINITY;
+        }
+        return new BigDecimal(value).subtract(exact).abs()
+                .divide(new BigDecimal(Math.ulp(exact.doubleValue())), MathContext.DECIMAL64).doubleValue();
+    }
+
+    // --- Timing ---
+
+    static double sink;
+
+    static double report(String label, int iterations, DoubleSupplier body) {
+        for (int i = 0; i < iterations; i++) {
+            sink += body.getAsDouble();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += body.getAsDouble();
+        }
+        double nanos = (System.nanoTime() - start) / (double) iterations;
+        System.out.printf("%-32s %10.1f ns/op%n", label, nanos);
+        return nanos;
+    }
+}
@@ -0,0 +1,260 @@
+package Calc;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Big-number backend for * and ^ on operands with thousands of digits or more.
+ * The algorithm is selected by operand size:
+ *
+ * - multiply: BigInteger.multiply (schoolbook, Karatsuba and Toom-3 internally) up to
+ *   NTT_THRESHOLD_BITS, then a number-theoretic transform over two primes, with the
+ *   transforms spread across cores.
+ * - pow: square-and-multiply on top of multiply.
+ *
+ * Division stays with BigDecimal.divide: the Calculator divides at DECIMAL128, where it is
+ * already fast however long the operands are.
+ */
+final class BigArithmetic {
+    // Crossover measured on one core with: java Calc.Benchmarks bignum. More cores lower it,
+    // since the transforms run in parallel; override with -Dcalc.ntt.bits=N
+    static final int NTT_THRESHOLD_BITS = Integer.getInteger("calc.ntt.bits", 1_500_000);
+
+    private BigArithmetic() {
+    }
+
+    // --- Multiplication ---
+
+    static BigDecimal multiply(BigDecimal a, BigDecimal b) {
+        if (Math.min(a.unscaledValue().bitLength(), b.unscaledValue().bitLength()) < NTT_THRESHOLD_BITS) {
+            return a.multiply(b);
+        }
+        return new BigDecimal(multiply(a.unscaledValue(), b.unscaledValue()), scale((long) a.scale() + b.scale()));
+    }
+
+    static BigInteger multiply(BigInteger a, BigInteger b) {
+        if (Math.min(a.bitLength(), b.bitLength()) < NTT_THRESHOLD_BITS || !Ntt.fits(a, b)) {
+            return a.multiply(b);
+        }
+        return Ntt.multiply(a, b);
+    }
+
+    /**
+     * a^n for n >= 0, exact, like BigDecimal.pow(int).
+     */
+    static BigDecimal pow(BigDecimal a, int n) {
+        if (n < 0) {
+            throw new ArithmeticException("Invalid operation");
+        }
+        if ((long) a.unscaledValue().bitLength() * n < NTT_THRESHOLD_BITS * 2L) {
+            return a.pow(n);
+        }
+        return new BigDecimal(pow(a.unscaledValue(), n), scale((long) a.scale() * n));
+    }
+
+    private static BigInteger pow(BigInteger base, int n) {
+        // Factors of two become a single shift, as in BigInteger.pow
+        int shift = base.getLowestSetBit();
+        base = base.shiftRight(shift);
+        BigInteger result = BigInteger.ONE;
+        for (int bit = 31 - Integer.numberOfLeadingZeros(n); bit >= 0; bit--) {
+            result = multiply(result, result);
+            if ((n >>> bit & 1) != 0) {
+                result = multiply(result, base);
+            }
+        }
+        return result.shiftLeft(Math.multiplyExact(shift, n));
+    }
+
+    private static int scale(long scale) {
+        if (scale != (int) scale) {
+            throw new ArithmeticException(scale > 0 ? "Underflow" : "Overflow");
+        }
+        return (int) scale;
+    }
+
+    // --- Number-theoretic transform ---
+
+    /**
+     * Exact convolution of 16-bit limbs modulo two NTT-friendly primes, recombined by CRT.
+     * Coefficients are below min(length) * 2^32 < p1 * p2, so the recombination is exact.
+     * Modular products use Montgomery reduction, which needs no division.
+     */
+    private static final class Ntt {
+        private static final Modulus P1 = new Modulus(998_244_353L, 3);   // 119 * 2^23 + 1
+        private static final Modulus P2 = new Modulus(469_762_049L, 3);   // 7 * 2^26 + 1
+        private static final long P1_INVERSE_MOD_P2 = BigInteger.valueOf(P1.p)
+                .modInverse(BigInteger.valueOf(P2.p)).longValueExact();
+
+        private static final int MAX_LENGTH = 1 << 23;
+        // Below this transform length, running the two primes on separate cores does not pay
+        private static final int PARALLEL_LENGTH = 1 << 15;
+
+        static boolean fits(BigInteger a, BigInteger b) {
+            return (a.bitLength() + 15) / 16 + (b.bitLength() + 15) / 16 + 1 <= MAX_LENGTH;
+        }
+
+        static BigInteger multiply(BigInteger a, BigInteger b) {
+            int[] x = limbs(a.abs());
+            int[] y = a.equals(b) ? x : limbs(b.abs());
+            int n = Integer.highestOneBit(x.length + y.length - 1);
+            if (n < x.length + y.length - 1) {
+                n <<= 1;
+            }
+            int length = n;
+
+            long[] r1, r2;
+            if (n >= PARALLEL_LENGTH) {
+                CompletableFuture<long[]> second = CompletableFuture.supplyAsync(() -> P2.convolve(x, y, length));
+                r1 = P1.convolve(x, y, length);
+                r2 = second.join();
+            } else {
+                r1 = P1.convolve(x, y, length);
+                r2 = P2.convolve(x, y, length);
+            }
+
+            int count = x.length + y.length;
+            int[] product = new int[count];
+            long carry = 0;
+            for (int i = 0; i < count; i++) {
+                long value = carry;
+                if (i < count - 1) {
+                    long c1 = r1[i];
+                    long k = ((r2[i] - c1 % P2.p + P2.p) % P2.p) * P1_INVERSE_MOD_P2 % P2.p;
+                    value += c1 + P1.p * k;
+                }
+                product[i] = (int) (value & 0xFFFF);
+                carry = value >>> 16;
+            }
+            return fromLimbs(product, a.signum() * b.signum());
+        }
+
+        private static int[] limbs(BigInteger value) {
+            byte[] bytes = value.toByteArray(); // big-endian, possibly with a leading zero byte
+            int[] limbs = new int[Math.max(1, (bytes.length + 1) / 2)];
+            for (int i = 0, j = bytes.length - 1; j >= 0; i++, j -= 2) {
+                limbs[i] = (bytes[j] & 0xFF) | (j > 0 ? (bytes[j - 1] & 0xFF) << 8 : 0);
+            }
+            return limbs;
+        }
+
+        private static BigInteger fromLimbs(int[] limbs, int signum) {
+            byte[] magnitude = new byte[limbs.length * 2];
+            for (int i = 0, j = magnitude.length - 1; i < limbs.length; i++, j -= 2) {
+                magnitude[j] = (byte) limbs[i];
+                magnitude[j - 1] = (byte) (limbs[i] >>> 8);
+            }
+            return new BigInteger(signum, magnitude);
+        }
+    }
+
+    private static final class Modulus {
+        private static final long MASK = 0xFFFF_FFFFL;
+
+        final long p;
+        private final long g;
+        private final long negativeInverse; // -p^-1 mod 2^32
+        private final long r2;              // 2^64 mod p, converts into Montgomery form
+
+        Modulus(long p, long g) {
+            this.p = p;
+            this.g = g;
+            long inverse = p; // Newton's iteration for p^-1 mod 2^64
+            for (int i = 0; i < 5; i++) {
+                inverse *= 2 - p * inverse;
+            }
+            this.negativeInverse = -inverse & MASK;
+            this.r2 = BigInteger.ONE.shiftLeft(64).mod(BigInteger.valueOf(p)).longValueExact();
+        }
+
+        /**
+         * t * 2^-32 mod p for t < p * 2^32.
+         */
+        long reduce(long t) {
+            long m = (t & MASK) * negativeInverse & MASK;
+            long u = (t + m * p) >>> 32;
+            return u >= p ? u - p : u;
+        }
+
+        long multiply(long a, long b) {
+            return reduce(a * b);
+        }
+
+        long toMontgomery(long a) {
+            return reduce(a % p * r2);
+        }
+
+        long power(long base, long exponent) {
+            long result = toMontgomery(1), b = toMontgomery(base);
+            for (; exponent > 0; exponent >>= 1) {
+                if ((exponent & 1) != 0) {
+                    result = multiply(result, b);
+                }
+                b = multiply(b, b);
+            }
+            return result;
+        }
+
+        long[] convolve(int[] x, int[] y, int n) {
+            long[] a = load(x, n);
+            long[] b = x == y ? a : load(y, n);
+            transform(a, false);
+            if (b != a) {
+                transform(b, false);
+            }
+            for (int i = 0; i < n; i++) {
+                a[i] = multiply(a[i], b[i]);
+            }
+            transform(a, true);
+            long scale = power(n, p - 2); // 1/n
+            for (int i = 0; i < n; i++) {
+                a[i] = reduce(multiply(a[i], scale));
+            }
+            return a;
+        }
+
+        private long[] load(int[] limbs, int n) {
+            long[] a = new long[n];
+            for (int i = 0; i < limbs.length; i++) {
+                a[i] = toMontgomery(limbs[i]);
+            }
+            return a;
+        }
+
+        private void transform(long[] a, boolean inverse) {
+            int n = a.length;
+            for (int i = 1, j = 0; i < n; i++) {
+                int bit = n >> 1;
+                for (; (j & bit) != 0; bit >>= 1) {
+                    j ^= bit;
+                }
+                j ^= bit;
+                if (i < j) {
+                    long t = a[i];
+                    a[i] = a[j];
+                    a[j] = t;
+                }
+            }
+
+            long[] roots = new long[n / 2];
+            for (int length = 2; length <= n; length <<= 1) {
+                int half = length / 2;
+                long root = power(g, inverse ? p - 1 - (p - 1) / length : (p - 1) / length);
+                roots[0] = toMontgomery(1);
+                for (int j = 1; j < half; j++) {
+                    roots[j] = multiply(roots[j - 1], root);
+                }
+                for (int i = 0; i < n; i += length) {
+                    for (int j = 0; j < half; j++) {
+                        long u = a[i + j];
+                        long v = multiply(a[i + j + half], roots[j]);
+                        long sum = u + v, difference = u - v;
+                        a[i + j] = sum >= p ? sum - p : sum;
+                        a[i + j + half] = difference < 0 ? difference + p : difference;
+                    }
+                }
+            }
+        }
+    }
+}
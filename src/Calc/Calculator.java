@@ -1,6 +1,7 @@
 package Calc;
 
 import java.math.BigDecimal;
+import java.math.MathContext;
 
 // --- Client Context (Calculator Core Logic) ---
 
@@ -12,6 +13,37 @@ public class Calculator {
     // Dependency on the Adaptee (CalculatorApp instance)
     private final CalculatorApp adaptee;
 
+    private final NumberFormatter formatter = new NumberFormatter();
+
+    // Every computation is recorded; a no-op unless calc.audit.file is set
+    private final AuditLog audit = AuditLog.getInstance();
+
+    static final String ERROR = "Error";
+
+    /**
+     * STANDARD routes sin/cos/tan through the CalculatorApp adapter (radians via toRadians);
+     * FAST uses the degree-based FastTrig tables with exact reduction at multiples of 90°.
+     */
+    public enum TrigMode {
+        STANDARD, FAST
+    }
+
+    private TrigMode trigMode = TrigMode.STANDARD;
+
+    /**
+     * FLOAT runs binary operations in float; EXACT runs every operation on Rational operands,
+     * showing fractions such as 1/3 when the decimal expansion does not end. Irrational unary
+     * results (√2, sin(45)) fall back to the decimal path.
+     */
+    public enum ArithmeticMode {
+        FLOAT, EXACT
+    }
+
+    // Audit mode prefix for operations computed in EXACT mode, e.g. "exact+FAST"
+    static final String EXACT_MODE = "exact";
+
+    private ArithmeticMode arithmeticMode = ArithmeticMode.FLOAT;
+
     /**
      * Constructor now takes the CalculatorApp instance to manage dependencies for adapters.
      */
@@ -30,14 +62,34 @@ public class Calculator {
             case "-" -> new SubtractOperation();
             case "×" -> new MultiplyOperation();
             case "÷" -> new DivideOperation();
-            // Adapter cases: Use the single UniversalUnaryAdapter
-            case "√", "sin", "cos" -> new UniversalUnaryAdapter(this.adaptee, op); 
+            case "^" -> new PowerOperation();
+            // Adapter cases: Use the single UniversalUnaryAdapter (trig bypasses it in FAST mode)
+            case "√" -> new UniversalUnaryAdapter(this.adaptee, op);
+            case "sin", "cos", "tan" -> trigMode == TrigMode.FAST
+                    ? new FastTrigOperation(op)
+                    : new UniversalUnaryAdapter(this.adaptee, op);
             default -> null; // Return null or throw an exception for unknown operations
         };
     }
 
     // --- State Accessors ---
 
+    public TrigMode getTrigMode() {
+        return trigMode;
+    }
+
+    public void setTrigMode(TrigMode trigMode) {
+        this.trigMode = trigMode;
+    }
+
+    public ArithmeticMode getArithmeticMode() {
+        return arithmeticMode;
+    }
+
+    public void setArithmeticMode(ArithmeticMode arithmeticMode) {
+        this.arithmeticMode = arithmeticMode;
+    }
+
     public String getCurrentOperand() {
         return currentOperand;
     }
@@ -48,6 +100,13 @@ public class Calculator {
 
     // --- Core Logic Methods ---
 
+    /**
+     * Replaces the current operand with a value computed elsewhere, such as a root from Solver.
+     */
+    public void enterValue(String value) {
+        this.currentOperand = value;
+    }
+
     public void clear() {
         this.currentOperand = "";
         this.previousOperand = "";
@@ -63,9 +122,13 @@ public class Calculator {
     public void toggleSign() {
         if (!this.currentOperand.isBlank()) {
             try {
-                float tmp = -Float.parseFloat(this.currentOperand);
+                if (arithmeticMode == ArithmeticMode.EXACT) {
+                    this.currentOperand = Rational.valueOf(this.currentOperand).negate().toDisplayString();
+                    return;
+                }
+                float tmp = -NumberFormatter.parseFloat(this.currentOperand);
                 this.currentOperand = formatResult(tmp);
-            } catch (NumberFormatException e) {
+            } catch (NumberFormatException | ArithmeticException e) {
                 // Ignore
             }
         }
@@ -119,74 +182,160 @@ public class Calculator {
             return;
         }
 
+        long start = System.nanoTime();
+        String result = evaluateBinary(this.previousOperand, this.operation, this.currentOperand);
+        if (result == null) {
+            return;
+        }
+        audit.recordBinary(this.operation, this.previousOperand, this.currentOperand,
+                arithmeticMode == ArithmeticMode.EXACT ? EXACT_MODE : "float", 0, result, System.nanoTime() - start);
+
+        if (result.equals(ERROR)) {
+            clear();
+            this.currentOperand = ERROR;
+        } else {
+            // Update State: Set the result and clear the history
+            this.currentOperand = result;
+            this.previousOperand = "";
+            this.operation = "";
+        }
+    }
+
+    /**
+     * The arithmetic behind computeBinary: the text to display, "Error" on failure, or null
+     * when the operation is unknown. Touches no state but the modes, so AuditReplay runs
+     * exactly this code.
+     */
+    String evaluateBinary(String previous, String operation, String current) {
+        if (arithmeticMode == ArithmeticMode.EXACT) {
+            return evaluateExactBinary(previous, operation, current);
+        }
         float curr;
         float prev;
 
         // Parsing: Convert string operands to float
         try {
-            curr = Float.parseFloat(this.currentOperand);
-            prev = Float.parseFloat(this.previousOperand);
+            curr = NumberFormatter.parseFloat(current);
+            prev = NumberFormatter.parseFloat(previous);
         } catch (NumberFormatException e) {
-            clear();
-            this.currentOperand = "Error";
-            return;
+            return ERROR;
         }
         // Factory Method Pattern: Get the appropriate Operation object
-        Operation op = this.getOperation(this.operation);
+        Operation op = this.getOperation(operation);
 
         if (op == null) {
-            return;
+            return null;
         }
 
         try {
-            float result = op.compute(prev, curr);
+            return formatResult(op.compute(prev, curr));
+        } catch (ArithmeticException e) {
+            return ERROR;
+        }
+    }
 
-            // Update State: Set the result and clear the history
-            this.currentOperand = formatResult(result);
-            this.previousOperand = "";
-            this.operation = "";
+    private String evaluateExactBinary(String previous, String operation, String current) {
+        Rational curr;
+        Rational prev;
 
+        try {
+            curr = Rational.valueOf(current);
+            prev = Rational.valueOf(previous);
+        } catch (NumberFormatException | ArithmeticException e) {
+            return ERROR;
+        }
+        Operation op = this.getOperation(operation);
+
+        if (op == null) {
+            return null;
+        }
+
+        try {
+            return op.compute(prev, curr).toDisplayString();
         } catch (ArithmeticException e) {
-            clear();
-            this.currentOperand = "Error";
+            return ERROR;
         }
     }
 
-public void computeUnary(String unaryOperation) {
+    public void computeUnary(String unaryOperation) {
         if (this.currentOperand.isBlank()) {
             return;
         }
 
-        BigDecimal curr;
-        
-        try {
-            curr = new BigDecimal(this.currentOperand);
-        } catch (NumberFormatException e) {
-            clear();
-            this.currentOperand = "Error";
+        long start = System.nanoTime();
+        String result = evaluateUnary(unaryOperation, this.currentOperand);
+        if (result == null) {
             return;
         }
+        boolean trig = !unaryOperation.equals("√");
+        String mode = trig ? trigMode.name() : "decimal128";
+        audit.recordUnary(unaryOperation, this.currentOperand,
+                arithmeticMode == ArithmeticMode.EXACT ? EXACT_MODE + "+" + mode : mode,
+                trig ? 0 : 34, result, System.nanoTime() - start);
+
+        if (result.equals(ERROR)) {
+            clear();
+            this.currentOperand = ERROR;
+        } else {
+            this.currentOperand = result;
+            this.previousOperand = "";
+            this.operation = "";
+        }
+    }
 
+    /**
+     * The arithmetic behind computeUnary, under the current trig mode; null means no change
+     * (unknown or unsupported operation).
+     */
+    String evaluateUnary(String unaryOperation, String operand) {
         Operation op = this.getOperation(unaryOperation);
 
         if (op == null) {
-            return;
+            return null;
+        }
+
+        if (arithmeticMode == ArithmeticMode.EXACT) {
+            Rational exact;
+            try {
+                exact = Rational.valueOf(operand);
+            } catch (NumberFormatException | ArithmeticException e) {
+                return ERROR;
+            }
+            try {
+                return op.compute(exact).toDisplayString();
+            } catch (UnsupportedOperationException e) {
+                return null;
+            } catch (IrrationalException e) {
+                // Irrational: the decimal path below approximates it
+                operand = exact.toBigDecimal(MathContext.DECIMAL128).toPlainString();
+            } catch (ArithmeticException e) {
+                // Undefined, e.g. tan(90) or √ of a negative number
+                return ERROR;
+            }
+        }
+
+        BigDecimal curr;
+
+        try {
+            curr = new BigDecimal(operand);
+        } catch (NumberFormatException e) {
+            return ERROR;
         }
 
         try {
             // The UniversalUnaryAdapter handles the operation based on its stored opType
-            BigDecimal result = op.compute(curr); 
-            
-            this.currentOperand = result.toPlainString(); 
-            this.previousOperand = "";
-            this.operation = "";
+            return formatter.format(op.compute(curr));
         } catch (UnsupportedOperationException e) {
             // This case handles if a binary operation was mistakenly called as unary.
+            return null;
+        } catch (ArithmeticException e) {
+            // e.g. tan(90) in fast trig mode
+            return ERROR;
         }
     }
 
     private String formatResult(float value) {
-        // Simplification for float display
-        return (value - (int) value) != 0 ? Float.toString(value) : Integer.toString((int) value);
+        // Shortest digits that read back as the same float; whole values have no fraction
+        return formatter.format(value);
     }
 }
\ No newline at end of file
@@ -4,9 +4,20 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
+import java.awt.datatransfer.DataFlavor;
+import java.awt.datatransfer.Transferable;
+import java.awt.datatransfer.UnsupportedFlavorException;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.PushbackReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.math.MathContext;
-import java.util.Stack;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.ExecutionException;
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import javax.swing.plaf.nimbus.NimbusLookAndFeel;
@@ -39,7 +50,9 @@ public class CalculatorApp extends JFrame {
             "π", "e"
     };
 
-    private double memory;
+    private Rational memory = Rational.ZERO;
+    // Every evaluation is recorded; a no-op unless calc.audit.file is set
+    private final AuditLog audit = AuditLog.getInstance();
     private JTextArea historyArea;
 
     public CalculatorApp() {
@@ -78,6 +91,48 @@ public class CalculatorApp extends JFrame {
             }
         });
 
+        // Paste (Ctrl+V) and import (Ctrl+O) stream large expressions straight into the evaluator
+        InputMap inputMap = entryField.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW);
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_V, KeyEvent.CTRL_DOWN_MASK), "pasteAndEvaluate");
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_O, KeyEvent.CTRL_DOWN_MASK), "importAndEvaluate");
+        entryField.getActionMap().put("pasteAndEvaluate", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                pasteAndEvaluate();
+            }
+        });
+        entryField.getActionMap().put("importAndEvaluate", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                importAndEvaluate();
+            }
+        });
+
+        // Plot (Ctrl+P) and solve (Ctrl+R) a function of x
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_P, KeyEvent.CTRL_DOWN_MASK), "plot");
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_R, KeyEvent.CTRL_DOWN_MASK), "solve");
+        entryField.getActionMap().put("plot", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                plotFunction(CalculatorApp.this);
+            }
+        });
+        entryField.getActionMap().put("solve", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                solveFunction(CalculatorApp.this);
+            }
+        });
+
+        // Evaluate the entry over complex numbers, vectors and matrices (Ctrl+M)
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_M, KeyEvent.CTRL_DOWN_MASK), "evaluateOperands");
+        entryField.getActionMap().put("evaluateOperands", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                evaluateOperands();
+            }
+        });
+
         JPanel buttonPanel = new JPanel(new GridLayout(6, 4, 10, 10));
         buttonPanel.setBorder(new EmptyBorder(10, 10, 10, 10));
         buttons = new JButton[buttonLabels.length];
@@ -114,129 +169,230 @@ public class CalculatorApp extends JFrame {
 
     private void calculateResult() {
         String expression = entryField.getText();
+        long start = System.nanoTime();
 
         try {
-            BigDecimal result = evaluateExpression(expression);
-            entryField.setText(result.toPlainString());
-            addToHistory(expression + " = " + result.toPlainString());
+            String result = evaluateExpression(expression);
+            audit(expression, result, start);
+            entryField.setText(result);
+            addToHistory(expression + " = " + result);
         } catch (IllegalArgumentException e) {
+            audit(expression, AuditReplay.failure(e), start);
             showError("Invalid expression: " + e.getMessage());
         } catch (ArithmeticException e) {
+            audit(expression, AuditReplay.failure(e), start);
             showError("Mathematical error: " + e.getMessage());
         }
     }
 
-    private BigDecimal evaluateExpression(String expression) {
-        Stack<BigDecimal> operands = new Stack<>();
-        Stack<Character> operators = new Stack<>();
+    private void audit(String expression, String result, long start) {
+        // Exact when rational, else ExpressionEvaluator: DECIMAL128 (34 digits) for √ and division
+        audit.recordExpression(expression, "expression", 34, result, System.nanoTime() - start);
+    }
 
-        for (int i = 0; i < expression.length(); i++) {
-            char c = expression.charAt(i);
+    /**
+     * Exact where possible: 1/3*3 gives 1 and 1/3 stays 1/3 (the entry parses it back);
+     * irrational results such as √2 are decimal. Units are checked and converted:
+     * "12 km / 30 min in m/s" gives "20/3 m/s", "1 m + 1 s" is a dimension error.
+     * ExpressionOptimizer is deliberately not run here: the tree is evaluated once, so folding
+     * saves nothing, and its DECIMAL128 folding would turn 1/3*3 into 0.999...; the repeated
+     * evaluations (plot, solve, UnitExpression.toProgram) do optimize.
+     * Pasted and imported text that fits in memory is evaluated here too; longer input is
+     * streamed through StreamingEvaluator.evaluateExact, with the same results but no units.
+     */
+    private String evaluateExpression(String expression) {
+        return UnitExpression.compile(expression).evaluateExact();
+    }
 
-            if (Character.isDigit(c) || c == '.') {
-                StringBuilder number = new StringBuilder();
-                while (i < expression.length()
-                        && (Character.isDigit(expression.charAt(i)) || expression.charAt(i) == '.')) {
-                    number.append(expression.charAt(i));
-                    i++;
-                }
-                i--;
+    // --- Streaming paste/import (large expressions never enter the text field) ---
 
-                operands.push(new BigDecimal(number.toString()));
-            } else if (c == '+' || c == '-' || c == '*' || c == '/' || c == '^') {
-                while (!operators.isEmpty() && hasPrecedence(operators.peek(), c)) {
-                    calculate(operands, operators);
-                }
-                operators.push(c);
-            } else if (c == '√') {
-                operators.push(c);
-            } else if (c == '(') {
-                operators.push(c);
-            } else if (c == ')') {
-                while (!operators.isEmpty() && operators.peek() != '(') {
-                    calculate(operands, operators);
-                }
-                operators.pop();
-            } else if (c == 'π') {
-                operands.push(BigDecimal.valueOf(Math.PI));
-            } else if (c == 'e') {
-                operands.push(BigDecimal.valueOf(Math.E));
-            } else if (c == 's' || c == 'c' || c == 't') {
-                String function = expression.substring(i, i + 3);
-                if (function.equals("sin")) {
-                    operators.push('s');
-                    i += 2;
-                } else if (function.equals("cos")) {
-                    operators.push('c');
-                    i += 2;
-                } else if (function.equals("tan")) {
-                    operators.push('t');
-                    i += 2;
-                } else {
-                    throw new IllegalArgumentException("Unknown function: " + function);
-                }
-            }
-        }
+    // Longer input is streamed instead of parsed into a tree
+    private static final int IN_MEMORY_CHARS = 1 << 16;
+    // Audit mode of paste/import records: the input is only named, so AuditReplay skips them
+    static final String STREAMED_MODE = "streamed";
 
-        while (!operators.isEmpty()) {
-            calculate(operands, operators);
+    private void pasteAndEvaluate() {
+        Transferable contents = Toolkit.getDefaultToolkit().getSystemClipboard().getContents(null);
+        if (contents == null || !contents.isDataFlavorSupported(DataFlavor.stringFlavor)) {
+            showError("Clipboard does not contain text");
+            return;
         }
+        evaluateInBackground("Pasted expression", () -> DataFlavor.stringFlavor.getReaderForText(contents));
+    }
 
-        if (operands.isEmpty()) {
-            throw new IllegalArgumentException("Invalid expression");
+    private void importAndEvaluate() {
+        JFileChooser chooser = new JFileChooser();
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
         }
+        File file = chooser.getSelectedFile();
+        evaluateInBackground(file.getName(), () -> Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8));
+    }
 
-        return operands.pop();
+    private interface ReaderSource {
+        Reader open() throws IOException, UnsupportedFlavorException;
     }
 
-    private void calculate(Stack<BigDecimal> operands, Stack<Character> operators) {
-        char operator = operators.pop();
-        if (operator == '√') {
-            BigDecimal operand = operands.pop();
-            operands.push(sqrt(operand));
-        } else if (operator == 's' || operator == 'c' || operator == 't') {
-            BigDecimal operand = operands.pop();
-            BigDecimal radians = toRadians(operand);
-
-            if (operator == 's') {
-                operands.push(sin(radians));
-            } else if (operator == 'c') {
-                operands.push(cos(radians));
-            } else if (operator == 't') {
-                operands.push(tan(radians));
+    /**
+     * Evaluates the expression on a worker thread, like typed input (evaluateExpression) when
+     * it fits in IN_MEMORY_CHARS and through StreamingEvaluator.evaluateExact otherwise; only
+     * the source name and the result reach the entry field, history and audit log.
+     */
+    private void evaluateInBackground(String name, ReaderSource source) {
+        entryField.setText("Evaluating " + name + "...");
+        long start = System.nanoTime();
+        new SwingWorker<String, Void>() {
+            @Override
+            protected String doInBackground() throws Exception {
+                try (PushbackReader reader = new PushbackReader(source.open(), IN_MEMORY_CHARS)) {
+                    char[] head = new char[IN_MEMORY_CHARS];
+                    int length = 0;
+                    for (int n; length < head.length && (n = reader.read(head, length, head.length - length)) >= 0; ) {
+                        length += n;
+                    }
+                    if (length < head.length) {
+                        return evaluateExpression(new String(head, 0, length));
+                    }
+                    reader.unread(head, 0, length);
+                    return new StreamingEvaluator().evaluateExact(reader);
+                }
             }
-        } else {
-            BigDecimal rightOperand = operands.pop();
-            BigDecimal leftOperand = operands.pop();
-
-            switch (operator) {
-                case '+':
-                    operands.push(leftOperand.add(rightOperand));
-                    break;
-                case '-':
-                    operands.push(leftOperand.subtract(rightOperand));
-                    break;
-                case '*':
-                    operands.push(leftOperand.multiply(rightOperand));
-                    break;
-                case '/':
-                    if (rightOperand.compareTo(BigDecimal.ZERO) == 0) {
-                        throw new ArithmeticException("Division by zero");
+
+            @Override
+            protected void done() {
+                try {
+                    String result = get();
+                    audit.recordExpression(name, STREAMED_MODE, 34, result, System.nanoTime() - start);
+                    entryField.setText(result);
+                    addToHistory(name + " = " + result);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    clearEntryField();
+                    Throwable cause = e.getCause();
+                    audit.recordExpression(name, STREAMED_MODE, 34, AuditReplay.failure(cause),
+                            System.nanoTime() - start);
+                    if (cause instanceof ArithmeticException) {
+                        showError("Mathematical error: " + cause.getMessage());
+                    } else if (cause instanceof IllegalArgumentException) {
+                        showError("Invalid expression: " + cause.getMessage());
+                    } else if (cause instanceof IOException || cause instanceof UncheckedIOException
+                            || cause instanceof UnsupportedFlavorException) {
+                        showError("Could not read " + name + ": " + cause.getMessage());
+                    } else {
+                        showError("Evaluation failed: " + cause);
                     }
-                    operands.push(leftOperand.divide(rightOperand, MathContext.DECIMAL128));
-                    break;
-                case '^':
-                    operands.push(leftOperand.pow(rightOperand.intValue()));
-                    break;
+                }
+            }
+        }.execute();
+    }
+
+    // --- Plot and solve (functions of x) ---
+
+    private static final int PLOT_POINTS = 1_000_000;
+    private static final int PLOT_WIDTH = 640, PLOT_HEIGHT = 400;
+
+    /**
+     * Asks for f(x) and a range "from, to"; returns {f, from, to} or null if cancelled.
+     */
+    private String[] askFunction(Component parent, String title) {
+        String function = JOptionPane.showInputDialog(parent, "f(x) =", title, JOptionPane.QUESTION_MESSAGE);
+        if (function == null || function.isBlank()) {
+            return null;
+        }
+        String range = JOptionPane.showInputDialog(parent, "Range (from, to):", "-10, 10");
+        if (range == null) {
+            return null;
+        }
+        String[] bounds = range.split(",");
+        if (bounds.length != 2) {
+            showError(parent, "Invalid range: " + range);
+            return null;
+        }
+        return new String[] {function, bounds[0].trim(), bounds[1].trim()};
+    }
+
+    /**
+     * Asks for f(x) and a range and shows its plot; dialogs are parented to the visible frame
+     * (this one, or the CalculatorGUI that delegates its Ctrl+P here).
+     */
+    void plotFunction(Component parent) {
+        String[] input = askFunction(parent, "Plot");
+        if (input == null) {
+            return;
+        }
+        // Sampling and rendering run on a worker thread; only the finished image reaches the EDT
+        new SwingWorker<BufferedImage, Void>() {
+            @Override
+            protected BufferedImage doInBackground() {
+                PlotSampler sampler = PlotSampler.of(input[0]);
+                PlotSampler.Samples samples = sampler.sample(NumberFormatter.parseDouble(input[1]),
+                        NumberFormatter.parseDouble(input[2]), PLOT_POINTS);
+                return PlotSampler.render(samples, PLOT_WIDTH, PLOT_HEIGHT);
             }
+
+            @Override
+            protected void done() {
+                try {
+                    JDialog dialog = new JDialog(SwingUtilities.getWindowAncestor(parent), "f(x) = " + input[0]);
+                    dialog.add(new JLabel(new ImageIcon(get())));
+                    dialog.pack();
+                    dialog.setLocationRelativeTo(parent);
+                    dialog.setVisible(true);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    showError(parent, "Cannot plot: " + e.getCause().getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Asks for f(x) and a bracketing range and solves f(x) = 0; returns the formatted root,
+     * or null if cancelled or failed (the error has been shown).
+     */
+    String solveFunction(Component parent) {
+        String[] input = askFunction(parent, "Solve f(x) = 0");
+        if (input == null) {
+            return null;
+        }
+        try {
+            double root = Solver.of(input[0]).newton(NumberFormatter.parseDouble(input[1]),
+                    NumberFormatter.parseDouble(input[2]));
+            String text = new NumberFormatter().format(root);
+            entryField.setText(text);
+            addToHistory(input[0] + " = 0 at x = " + text);
+            return text;
+        } catch (IllegalArgumentException e) {
+            showError(parent, "Cannot solve: " + e.getMessage());
+        } catch (ArithmeticException e) {
+            showError(parent, "Mathematical error: " + e.getMessage());
         }
+        return null;
     }
 
-    private boolean hasPrecedence(char operator1, char operator2) {
-        if (operator1 == '(' || operator1 == ')') {
-            return false;
+    // --- Complex numbers, vectors and matrices ---
+
+    /**
+     * Asks for an expression (starting from the entry) and evaluates it with OperandEvaluator,
+     * e.g. "(1+2*i)*(3-i)" or "[[1,2],[3,4]]*[5,6]".
+     */
+    private void evaluateOperands() {
+        String expression = (String) JOptionPane.showInputDialog(this, "Complex, vector or matrix expression:",
+                "Evaluate", JOptionPane.QUESTION_MESSAGE, null, null, entryField.getText());
+        if (expression == null || expression.isBlank()) {
+            return;
+        }
+        try {
+            String text = new OperandEvaluator().evaluate(expression).toString();
+            entryField.setText(text);
+            addToHistory(expression + " = " + text);
+        } catch (IllegalArgumentException | UnsupportedOperationException e) {
+            showError("Invalid expression: " + e.getMessage());
+        } catch (ArithmeticException e) {
+            showError("Mathematical error: " + e.getMessage());
         }
-        return operator2 != '^' && (operator1 == '*' || operator1 == '/');
     }
 
     public BigDecimal sqrt(BigDecimal operand) {
@@ -259,8 +415,7 @@ public class CalculatorApp extends JFrame {
     }
 
     public BigDecimal toRadians(BigDecimal degrees) {
-        double result = Math.toRadians(degrees.doubleValue());
-        return BigDecimal.valueOf(result);
+        return Unit.DEGREE.toBase(degrees);
     }
 
     private void clearEntryField() {
@@ -271,28 +426,55 @@ public class CalculatorApp extends JFrame {
         entryField.setText(entryField.getText() + value);
     }
 
+    /**
+     * Adds the entry exactly, so a result such as 1/3 can be stored and recalled as it is;
+     * quantities with units ("3200 m") and expressions are refused.
+     */
     private void addToMemory() {
         String valueStr = entryField.getText();
         if (!valueStr.isEmpty()) {
-            double value = Double.parseDouble(valueStr);
-            memory += value;
+            try {
+                memory = memory.add(Rational.valueOf(valueStr));
+            } catch (NumberFormatException | ArithmeticException e) {
+                showError("Memory takes a plain number, not: " + valueStr);
+            }
         }
     }
 
     private void recallMemory() {
-        entryField.setText(Double.toString(memory));
+        entryField.setText(memory.toDisplayString());
     }
 
     private void clearMemory() {
-        memory = 0;
+        memory = Rational.ZERO;
     }
 
     private void addToHistory(String history) {
         historyArea.append(history + "\n");
     }
 
+    /**
+     * The button with this label, or null.
+     */
+    JButton getButton(String label) {
+        for (JButton button : buttons) {
+            if (button.getText().equals(label)) {
+                return button;
+            }
+        }
+        return null;
+    }
+
+    JTextArea getHistoryArea() {
+        return historyArea;
+    }
+
     private void showError(String message) {
-        JOptionPane.showMessageDialog(this, message, "Error", JOptionPane.ERROR_MESSAGE);
+        showError(this, message);
+    }
+
+    private static void showError(Component parent, String message) {
+        JOptionPane.showMessageDialog(parent, message, "Error", JOptionPane.ERROR_MESSAGE);
     }
 
     private class ButtonHandler implements ActionListener {
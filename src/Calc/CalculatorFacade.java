@@ -33,6 +33,10 @@ public class CalculatorFacade {
         logic.toggleSign();
     }
 
+    public void handleValue(String value) {
+        logic.enterValue(value);
+    }
+
     // Unary functions handlers
     public void handleSqrt() {
         logic.computeUnary("√");
@@ -46,6 +50,14 @@ public class CalculatorFacade {
         logic.computeUnary("cos");
     }
 
+    public void handleTrigMode(Calculator.TrigMode mode) {
+        logic.setTrigMode(mode);
+    }
+
+    public void handleArithmeticMode(Calculator.ArithmeticMode mode) {
+        logic.setArithmeticMode(mode);
+    }
+
     // Display Getters 
 
     public String getCurrentDisplay() {
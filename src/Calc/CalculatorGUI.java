@@ -17,6 +17,25 @@ public final class CalculatorGUI extends javax.swing.JFrame {
     // --- ADAPTEE INSTANCE ---
     private final CalculatorApp calculatorAppAdaptee; 
 
+    // --- SHARED COLORS, FONTS & CURSOR (allocated once, not per event) ---
+    private static final Color BACKGROUND = new Color(13, 12, 20);
+    private static final Color PANEL = new Color(21, 20, 22);
+    private static final Color FUNCTION = new Color(41, 39, 44);
+    private static final Color HOVER = new Color(73, 69, 78);
+    private static final Color CLOSE_HOVER = new Color(255, 75, 75);
+    private static final Color CLOSE_HOVER_TEXT = new Color(31, 30, 33);
+    private static final Color SECONDARY_TEXT = new Color(203, 198, 213);
+    private static final Font TITLE_FONT = new Font("Century Gothic", Font.BOLD, 17);
+    private static final Font BUTTON_FONT = new Font("Century Gothic", Font.BOLD, 18);
+    private static final Font LARGE_FONT = new Font("Century Gothic", Font.BOLD, 24);
+    private static final java.awt.Cursor HAND = new java.awt.Cursor(java.awt.Cursor.HAND_CURSOR);
+
+    // --- INPUT BATCHING (facade calls applied once per frame, one refresh per batch) ---
+    private final InputBatcher batcher = new InputBatcher(this::updateDisplay);
+
+    // --- DISPLAY STATE (last text written to each field) ---
+    private String shownCurrent, shownPrevious;
+
     // --- GUI DRAGGING FIELDS ---
     private int x, y;
 
@@ -84,106 +103,173 @@ public final class CalculatorGUI extends javax.swing.JFrame {
             btn5, btn6, btn7, btn8, btn9
         };
 
-        // Number button event handler (Delegates to Facade)
+        // Number button event handler (Delegates to Facade through the input batcher)
         for (JButton number : numbers) {
-            number.addActionListener((ActionEvent e) -> {
-                calculatorFacade.handleNumberOrDot(((JButton) e.getSource()).getText()); // <--- FACADE
-                updateDisplay();
-            });
+            String digit = number.getText();
+            number.addActionListener((ActionEvent e) ->
+                batcher.submit(() -> calculatorFacade.handleNumberOrDot(digit))); // <--- FACADE
         }
 
-        // Mouse hover event handlers (UI only - no change)
+        // Mouse hover event handlers (UI only - each button returns to its own base color)
         for (JButton btn : btns) {
+            Color base = btn.getBackground();
             btn.addMouseListener(new MouseAdapter() {
                 @Override
                 public void mouseEntered(MouseEvent e) {
-                    ((JButton) e.getSource()).setBackground(new Color(73, 69, 78));
+                    btn.setBackground(HOVER);
                 }
 
                 @Override
                 public void mouseExited(MouseEvent e) {
-                    Object b = e.getSource();
-                    // Keep background logic for function buttons
-                    if (b == btnDiv || b == btnEqual || b == btnDel || b == btnMult || b == btnSub || b == btnPlus || b == btnClear || b == btnSqrt || b == btnSin || b == btnCos) {
-                        ((JButton) b).setBackground(new Color(41, 39, 44));
-                    } else {
-                        ((JButton) b).setBackground(new Color(21, 20, 22));
-                    }
+                    btn.setBackground(base);
                 }
             });
         }
         
         // --- Functional Button Event Handlers (Delegates to Facade) ---
         
-        btnDot.addActionListener((ActionEvent evt) -> {
-            calculatorFacade.handleNumberOrDot(".");
-            updateDisplay();
-        });
+        btnDot.addActionListener((ActionEvent evt) -> batcher.submit(() -> calculatorFacade.handleNumberOrDot(".")));
+        btnClear.addActionListener((ActionEvent evt) -> batcher.submit(calculatorFacade::handleClear));
+        btnDel.addActionListener((ActionEvent evt) -> batcher.submit(calculatorFacade::handleDelete));
+        btnPlus.addActionListener((ActionEvent evt) -> batcher.submit(() -> calculatorFacade.handleOperation("+")));
+        btnMult.addActionListener((ActionEvent evt) -> batcher.submit(() -> calculatorFacade.handleOperation("×")));
+        btnSub.addActionListener((ActionEvent evt) -> batcher.submit(() -> calculatorFacade.handleOperation("-")));
+        btnDiv.addActionListener((ActionEvent evt) -> batcher.submit(() -> calculatorFacade.handleOperation("÷")));
+        btnEqual.addActionListener((ActionEvent evt) -> batcher.submit(calculatorFacade::handleEquals));
+        btnPlusSub.addActionListener((ActionEvent evt) -> batcher.submit(calculatorFacade::handleToggleSign));
+        
+        // --- Unary Operation Handlers (Delegates to Facade) ---
+        btnSqrt.addActionListener((ActionEvent evt) -> batcher.submit(calculatorFacade::handleSqrt));
+        btnSin.addActionListener((ActionEvent evt) -> batcher.submit(calculatorFacade::handleSin));
+        btnCos.addActionListener((ActionEvent evt) -> batcher.submit(calculatorFacade::handleCos));
 
-        btnClear.addActionListener((ActionEvent evt) -> {
-            calculatorFacade.handleClear();
-            updateDisplay();
-        });
+        addKeyBindings();
+    }
 
-        btnDel.addActionListener((ActionEvent evt) -> {
-            calculatorFacade.handleDelete();
-            updateDisplay();
+    /**
+     * Keyboard and paste input feed the same batcher as the buttons, so auto-repeat and
+     * pasted text are applied in order with one display refresh per frame.
+     */
+    private void addKeyBindings() {
+        InputMap keys = getRootPane().getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW);
+        ActionMap actions = getRootPane().getActionMap();
+
+        for (char c : "0123456789.+-*/=".toCharArray()) {
+            String name = "key " + c;
+            keys.put(KeyStroke.getKeyStroke(c), name);
+            actions.put(name, keyAction(c));
+        }
+        keys.put(KeyStroke.getKeyStroke(KeyEvent.VK_ENTER, 0), "key =");
+        keys.put(KeyStroke.getKeyStroke(KeyEvent.VK_BACK_SPACE, 0), "key delete");
+        actions.put("key delete", keyAction('\b'));
+        keys.put(KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0), "key clear");
+        actions.put("key clear", keyAction('\u001b'));
+
+        keys.put(KeyStroke.getKeyStroke(KeyEvent.VK_V, InputEvent.CTRL_DOWN_MASK), "paste");
+        actions.put("paste", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                try {
+                    Object text = java.awt.Toolkit.getDefaultToolkit().getSystemClipboard()
+                            .getData(java.awt.datatransfer.DataFlavor.stringFlavor);
+                    String pasted = (String) text;
+                    for (int i = 0; i < pasted.length(); i++) {
+                        submitKey(pasted.charAt(i));
+                    }
+                } catch (java.awt.datatransfer.UnsupportedFlavorException | java.io.IOException
+                        | IllegalStateException ex) {
+                    // Nothing usable on the clipboard
+                }
+            }
         });
 
-        btnPlus.addActionListener((ActionEvent evt) -> {
-            calculatorFacade.handleOperation("+");
-            updateDisplay();
+        // Plot (Ctrl+P) and solve (Ctrl+R) a function of x: the adaptee does the work, with
+        // its dialogs over this frame; a root becomes the current operand
+        keys.put(KeyStroke.getKeyStroke(KeyEvent.VK_P, InputEvent.CTRL_DOWN_MASK), "plot");
+        actions.put("plot", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                calculatorAppAdaptee.plotFunction(CalculatorGUI.this);
+            }
         });
-
-        btnMult.addActionListener((ActionEvent evt) -> {
-            calculatorFacade.handleOperation("×"); 
-            updateDisplay();
+        keys.put(KeyStroke.getKeyStroke(KeyEvent.VK_R, InputEvent.CTRL_DOWN_MASK), "solve");
+        actions.put("solve", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                String root = calculatorAppAdaptee.solveFunction(CalculatorGUI.this);
+                if (root != null) {
+                    batcher.submit(() -> calculatorFacade.handleValue(root));
+                }
+            }
         });
+    }
 
-        btnSub.addActionListener((ActionEvent evt) -> {
-            calculatorFacade.handleOperation("-"); 
-            updateDisplay();
-        });
+    private Action keyAction(char c) {
+        return new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                submitKey(c);
+            }
+        };
+    }
 
-        btnDiv.addActionListener((ActionEvent evt) -> {
-            calculatorFacade.handleOperation("÷");
-            updateDisplay();
-        });
+    /**
+     * Queues the facade call for one typed character; characters with no meaning are ignored.
+     */
+    void submitKey(char c) {
+        switch (c) {
+            case '0': case '1': case '2': case '3': case '4':
+            case '5': case '6': case '7': case '8': case '9': case '.':
+                String input = String.valueOf(c);
+                batcher.submit(() -> calculatorFacade.handleNumberOrDot(input));
+                break;
+            case '+': batcher.submit(() -> calculatorFacade.handleOperation("+")); break;
+            case '-': batcher.submit(() -> calculatorFacade.handleOperation("-")); break;
+            case '*': case '×': batcher.submit(() -> calculatorFacade.handleOperation("×")); break;
+            case '/': case '÷': batcher.submit(() -> calculatorFacade.handleOperation("÷")); break;
+            case '=': case '\n': batcher.submit(calculatorFacade::handleEquals); break;
+            case '\b': batcher.submit(calculatorFacade::handleDelete); break;
+            case '\u001b': batcher.submit(calculatorFacade::handleClear); break;
+            default: break;
+        }
+    }
 
-        btnEqual.addActionListener((ActionEvent evt) -> {
-            calculatorFacade.handleEquals(); 
-            updateDisplay();
-        });
+    InputBatcher getInputBatcher() {
+        return batcher;
+    }
 
-        btnPlusSub.addActionListener((ActionEvent evt) -> {
-            calculatorFacade.handleToggleSign();
-            updateDisplay();
-        });
-        
-        // --- Unary Operation Handlers (Delegates to Facade) ---
-        btnSqrt.addActionListener((ActionEvent evt) -> {
-            calculatorFacade.handleSqrt();
-            updateDisplay();
-        });
-        
-        btnSin.addActionListener((ActionEvent evt) -> {
-            calculatorFacade.handleSin();
-            updateDisplay();
-        });
-        
-        btnCos.addActionListener((ActionEvent evt) -> {
-            calculatorFacade.handleCos();
-            updateDisplay();
-        });
+    /**
+     * The keypad button with this label, or null; title bar buttons are not included.
+     */
+    JButton getButton(String label) {
+        for (java.awt.Component component : buttonsPanel.getComponents()) {
+            if (component instanceof JButton && ((JButton) component).getText().equals(label)) {
+                return (JButton) component;
+            }
+        }
+        return null;
+    }
+
+    CalculatorApp getCalculatorApp() {
+        return calculatorAppAdaptee;
     }
 
     /**
      * Updates the text fields using data retrieved from the CalculatorFacade.
      * This is the only link between the logic (Model) and the display (View).
+     * setText revalidates and repaints, so it is only called when the text changed.
      */
     public void updateDisplay() {
-        current.setText(calculatorFacade.getCurrentDisplay());
-        previous.setText(calculatorFacade.getPreviousDisplay());
+        String currentText = calculatorFacade.getCurrentDisplay();
+        if (!currentText.equals(shownCurrent)) {
+            current.setText(currentText);
+            shownCurrent = currentText;
+        }
+        String previousText = calculatorFacade.getPreviousDisplay();
+        if (!previousText.equals(shownPrevious)) {
+            previous.setText(previousText);
+            shownPrevious = previousText;
+        }
     }
 
     // --- GUI SETUP METHODS (View) ---
@@ -198,39 +284,39 @@ public final class CalculatorGUI extends javax.swing.JFrame {
         setResizable(false);
         
         app = new JPanel();
-        app.setBackground(new Color(13, 12, 20));
+        app.setBackground(BACKGROUND);
         app.setLayout(new BorderLayout());
         
         // --- 2. Title Bar Setup ---
         
         titleBar = new JPanel();
-        titleBar.setBackground(new Color(21, 20, 22));
+        titleBar.setBackground(PANEL);
         titleBar.setLayout(null);
         titleBar.setPreferredSize(new java.awt.Dimension(320, 30));
         
         title = new JLabel("Calculator");
-        title.setFont(new Font("Century Gothic", Font.BOLD, 17));
+        title.setFont(TITLE_FONT);
         title.setForeground(Color.WHITE);
         title.setBounds(6, 2, 100, 25);
         titleBar.add(title);
 
         btnMini = new JButton("-");
-        btnMini.setFont(new Font("Century Gothic", Font.BOLD, 24));
+        btnMini.setFont(LARGE_FONT);
         btnMini.setForeground(Color.WHITE);
-        btnMini.setBackground(new Color(21, 20, 22));
+        btnMini.setBackground(PANEL);
         btnMini.setBorder(null);
         btnMini.setFocusPainted(false);
-        btnMini.setCursor(new java.awt.Cursor(java.awt.Cursor.HAND_CURSOR));
+        btnMini.setCursor(HAND);
         btnMini.setBounds(260, 0, 30, 30);
         titleBar.add(btnMini);
 
         btnClose = new JButton("×");
-        btnClose.setFont(new Font("Century Gothic", Font.BOLD, 24));
+        btnClose.setFont(LARGE_FONT);
         btnClose.setForeground(Color.WHITE);
-        btnClose.setBackground(new Color(21, 20, 22));
+        btnClose.setBackground(PANEL);
         btnClose.setBorder(null);
         btnClose.setFocusPainted(false);
-        btnClose.setCursor(new java.awt.Cursor(java.awt.Cursor.HAND_CURSOR));
+        btnClose.setCursor(HAND);
         btnClose.setBounds(290, 0, 30, 30);
         titleBar.add(btnClose);
         
@@ -268,16 +354,16 @@ public final class CalculatorGUI extends javax.swing.JFrame {
         
         previous = new JTextField();
         previous.setEditable(false);
-        previous.setBackground(new Color(21, 20, 22));
-        previous.setFont(new Font("Century Gothic", Font.BOLD, 18));
-        previous.setForeground(new Color(203, 198, 213));
+        previous.setBackground(PANEL);
+        previous.setFont(BUTTON_FONT);
+        previous.setForeground(SECONDARY_TEXT);
         previous.setHorizontalAlignment(JTextField.RIGHT);
         previous.setBorder(null);
 
         current = new JTextField();
         current.setEditable(false);
-        current.setBackground(new Color(41, 39, 44));
-        current.setFont(new Font("Century Gothic", Font.BOLD, 24));
+        current.setBackground(FUNCTION);
+        current.setFont(LARGE_FONT);
         current.setForeground(Color.WHITE);
         current.setHorizontalAlignment(JTextField.RIGHT);
         current.setBorder(null);
@@ -290,38 +376,38 @@ public final class CalculatorGUI extends javax.swing.JFrame {
         
         buttonsPanel = new JPanel();
         buttonsPanel.setLayout(new GridLayout(6, 4, 10, 10)); 
-        buttonsPanel.setBackground(new Color(21, 20, 22));
+        buttonsPanel.setBackground(PANEL);
         buttonsPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
 
         // Initialize all buttons
-        btnDel = createButton("←", new Color(41, 39, 44));
-        btnClear = createButton("C", new Color(41, 39, 44));
-        btnDiv = createButton("÷", new Color(41, 39, 44));
-        btnMult = createButton("×", new Color(41, 39, 44));
+        btnDel = createButton("←", FUNCTION);
+        btnClear = createButton("C", FUNCTION);
+        btnDiv = createButton("÷", FUNCTION);
+        btnMult = createButton("×", FUNCTION);
         
-        btn7 = createButton("7", new Color(21, 20, 22));
-        btn8 = createButton("8", new Color(21, 20, 22));
-        btn9 = createButton("9", new Color(21, 20, 22));
-        btnSub = createButton("-", new Color(41, 39, 44));
+        btn7 = createButton("7", PANEL);
+        btn8 = createButton("8", PANEL);
+        btn9 = createButton("9", PANEL);
+        btnSub = createButton("-", FUNCTION);
         
-        btn4 = createButton("4", new Color(21, 20, 22));
-        btn5 = createButton("5", new Color(21, 20, 22));
-        btn6 = createButton("6", new Color(21, 20, 22));
-        btnPlus = createButton("+", new Color(41, 39, 44));
+        btn4 = createButton("4", PANEL);
+        btn5 = createButton("5", PANEL);
+        btn6 = createButton("6", PANEL);
+        btnPlus = createButton("+", FUNCTION);
         
-        btn1 = createButton("1", new Color(21, 20, 22));
-        btn2 = createButton("2", new Color(21, 20, 22));
-        btn3 = createButton("3", new Color(21, 20, 22));
-        btnPlusSub = createButton("+/-", new Color(21, 20, 22)); 
+        btn1 = createButton("1", PANEL);
+        btn2 = createButton("2", PANEL);
+        btn3 = createButton("3", PANEL);
+        btnPlusSub = createButton("+/-", PANEL); 
         
-        btn0 = createButton("0", new Color(21, 20, 22));
-        btnDot = createButton(".", new Color(21, 20, 22));
-        btnEqual = createButton("=", new Color(41, 39, 44));
+        btn0 = createButton("0", PANEL);
+        btnDot = createButton(".", PANEL);
+        btnEqual = createButton("=", FUNCTION);
         
         // Initialize Unary Function buttons
-        btnSqrt = createButton("√", new Color(41, 39, 44));
-        btnSin = createButton("sin", new Color(41, 39, 44));
-        btnCos = createButton("cos", new Color(41, 39, 44));
+        btnSqrt = createButton("√", FUNCTION);
+        btnSin = createButton("sin", FUNCTION);
+        btnCos = createButton("cos", FUNCTION);
 
         // Add buttons in the 6x4 grid order
         
@@ -372,36 +458,36 @@ public final class CalculatorGUI extends javax.swing.JFrame {
         pack();
     }
     
-    // HELPER METHOD for creating buttons with common properties (unchanged)
+    // HELPER METHOD for creating buttons with common properties
     private JButton createButton(String text, Color bgColor) {
         JButton btn = new JButton(text);
         btn.setBackground(bgColor);
-        btn.setFont(new Font("Century Gothic", Font.BOLD, 18));
+        btn.setFont(BUTTON_FONT);
         btn.setForeground(Color.WHITE);
-        btn.setBorder(BorderFactory.createLineBorder(new Color(41, 39, 44)));
-        btn.setCursor(new java.awt.Cursor(java.awt.Cursor.HAND_CURSOR));
+        btn.setBorder(BorderFactory.createLineBorder(FUNCTION));
+        btn.setCursor(HAND);
         btn.setFocusPainted(false);
         return btn;
     }
 
-    // --- MOUSE LISTENERS (UI Actions - unchanged) ---
+    // --- MOUSE LISTENERS (UI Actions) ---
 
     private void btnCloseMouseEntered(java.awt.event.MouseEvent evt) {
-        btnClose.setBackground(new Color(255, 75, 75));
-        btnClose.setForeground(new Color(31, 30, 33));
+        btnClose.setBackground(CLOSE_HOVER);
+        btnClose.setForeground(CLOSE_HOVER_TEXT);
     }
 
     private void btnCloseMouseExited(java.awt.event.MouseEvent evt) {
-        btnClose.setBackground(new Color(21, 20, 22));
+        btnClose.setBackground(PANEL);
         btnClose.setForeground(Color.WHITE);
     }
 
     private void btnMiniMouseEntered(java.awt.event.MouseEvent evt) {
-        btnMini.setBackground(new Color(73, 69, 78));
+        btnMini.setBackground(HOVER);
     }
 
     private void btnMiniMouseExited(java.awt.event.MouseEvent evt) {
-        btnMini.setBackground(new Color(21, 20, 22));
+        btnMini.setBackground(PANEL);
     }
 
     private void btnCloseActionPerformed(java.awt.event.ActionEvent evt) {
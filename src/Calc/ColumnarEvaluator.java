@@ -0,0 +1,360 @@
+package Calc;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.IntStream;
+
+/**
+ * Spreadsheet-style evaluation: one CompiledExpression applied to every row of a table.
+ * Variables are bound to primitive double[] columns and the register program is run one
+ * instruction at a time over a block of rows, so each instruction is a tight loop over
+ * arrays instead of a switch per row. Blocks are spread across cores with a parallel stream.
+ *
+ * Results match CompiledExpression.evaluate(double...) row by row.
+ *
+ * CSV input is streamed in chunks of CHUNK_ROWS lines; a chunk is parsed, evaluated and
+ * formatted in parallel while the next one is being read. Run from the command line with:
+ * java Calc.ColumnarEvaluator "formula" input.csv [output.csv]
+ */
+public final class ColumnarEvaluator {
+    public static final int CHUNK_ROWS = 1 << 16;
+
+    // Rows per block: the block's temporaries stay in cache between instructions
+    private static final int BLOCK_ROWS = 1024;
+
+    private final CompiledExpression program;
+    private final ThreadLocal<double[][]> scratch;
+
+    public ColumnarEvaluator(CompiledExpression program) {
+        this.program = program;
+        this.scratch = ThreadLocal.withInitial(this::newScratch);
+    }
+
+    public CompiledExpression getProgram() {
+        return program;
+    }
+
+    // --- Column evaluation ---
+
+    /**
+     * Evaluates the first rows of the given columns, which are in program.getVariables() order.
+     */
+    public double[] evaluate(double[][] columns, int rows) {
+        double[] result = new double[rows];
+        evaluate(columns, rows, result);
+        return result;
+    }
+
+    public void evaluate(double[][] columns, int rows, double[] result) {
+        program.checkArity(columns.length);
+        for (double[] column : columns) {
+            if (column.length < rows) {
+                throw new IllegalArgumentException("Column has " + column.length + " rows, expected " + rows);
+            }
+        }
+        if (result.length < rows) {
+            throw new IllegalArgumentException("Result has " + result.length + " rows, expected " + rows);
+        }
+        int blocks = (rows + BLOCK_ROWS - 1) / BLOCK_ROWS;
+        IntStream.range(0, blocks).parallel().forEach(block -> {
+            int start = block * BLOCK_ROWS;
+            evaluateBlock(columns, start, Math.min(BLOCK_ROWS, rows - start), result);
+        });
+    }
+
+    /**
+     * Per-thread registers: constants pre-filled once, then one block-sized column per temporary.
+     */
+    private double[][] newScratch() {
+        int base = program.variables.length;
+        double[][] registers = new double[program.registerCount()][];
+        for (int i = 0; i < program.doubleConstants.length; i++) {
+            registers[base + i] = new double[BLOCK_ROWS];
+            Arrays.fill(registers[base + i], program.doubleConstants[i]);
+        }
+        for (int t = program.temporaryBase(); t < registers.length; t++) {
+            registers[t] = new double[BLOCK_ROWS];
+        }
+        return registers;
+    }
+
+    private void evaluateBlock(double[][] columns, int start, int n, double[] result) {
+        double[][] registers = scratch.get();
+        int variables = program.variables.length;
+        int base = program.temporaryBase();
+        int[] codes = program.codes, lhs = program.lhs, rhs = program.rhs;
+
+        for (int i = 0; i < codes.length; i++) {
+            // Variables are read in place at the block's offset; constants and temporaries from 0
+            double[] a = lhs[i] < variables ? columns[lhs[i]] : registers[lhs[i]];
+            int ao = lhs[i] < variables ? start : 0;
+            // The last instruction computes the result and writes straight into it
+            boolean last = base + i == program.result;
+            double[] r = last ? result : registers[base + i];
+            int ro = last ? start : 0;
+
+            if (CompiledExpression.isBinary(codes[i])) {
+                double[] b = rhs[i] < variables ? columns[rhs[i]] : registers[rhs[i]];
+                int bo = rhs[i] < variables ? start : 0;
+                binary(codes[i], a, ao, b, bo, r, ro, n);
+            } else {
+                unary(codes[i], a, ao, r, ro, n);
+            }
+        }
+
+        if (program.result < base) {
+            // A bare variable or constant: nothing was computed
+            double[] source = program.result < variables ? columns[program.result] : registers[program.result];
+            System.arraycopy(source, program.result < variables ? start : 0, result, start, n);
+        }
+    }
+
+    private static void binary(int code, double[] a, int ao, double[] b, int bo, double[] r, int ro, int n) {
+        switch (code) {
+            case CompiledExpression.ADD -> {
+                for (int j = 0; j < n; j++) r[ro + j] = a[ao + j] + b[bo + j];
+            }
+            case CompiledExpression.SUB -> {
+                for (int j = 0; j < n; j++) r[ro + j] = a[ao + j] - b[bo + j];
+            }
+            case CompiledExpression.MUL -> {
+                for (int j = 0; j < n; j++) r[ro + j] = a[ao + j] * b[bo + j];
+            }
+            case CompiledExpression.DIV -> {
+                for (int j = 0; j < n; j++) r[ro + j] = a[ao + j] / b[bo + j];
+            }
+            default -> {
+                for (int j = 0; j < n; j++) r[ro + j] = Math.pow(a[ao + j], (int) b[bo + j]);
+            }
+        }
+    }
+
+    private static void unary(int code, double[] a, int ao, double[] r, int ro, int n) {
+        switch (code) {
+            case CompiledExpression.SQRT -> {
+                for (int j = 0; j < n; j++) r[ro + j] = Math.sqrt(a[ao + j]);
+            }
+            case CompiledExpression.RAD -> {
+                for (int j = 0; j < n; j++) r[ro + j] = Math.toRadians(a[ao + j]);
+            }
+            case CompiledExpression.SIN -> {
+                for (int j = 0; j < n; j++) r[ro + j] = Math.sin(a[ao + j]);
+            }
+            case CompiledExpression.COS -> {
+                for (int j = 0; j < n; j++) r[ro + j] = Math.cos(a[ao + j]);
+            }
+            case CompiledExpression.TAN -> {
+                for (int j = 0; j < n; j++) r[ro + j] = Math.tan(a[ao + j]);
+            }
+            case CompiledExpression.SIND -> {
+                for (int j = 0; j < n; j++) r[ro + j] = Math.sin(Math.toRadians(a[ao + j]));
+            }
+            case CompiledExpression.COSD -> {
+                for (int j = 0; j < n; j++) r[ro + j] = Math.cos(Math.toRadians(a[ao + j]));
+            }
+            case CompiledExpression.TAND -> {
+                for (int j = 0; j < n; j++) r[ro + j] = Math.tan(Math.toRadians(a[ao + j]));
+            }
+            default -> {
+                for (int j = 0; j < n; j++) r[ro + j] = -a[ao + j];
+            }
+        }
+    }
+
+    // --- CSV streaming ---
+
+    /**
+     * Reads a CSV with a header row, binds the program's variables to the columns of the same
+     * name and writes every input row back out with the result appended as a new column.
+     * Fields are plain numbers separated by commas; an empty field reads as NaN.
+     *
+     * @return the number of data rows processed
+     */
+    public long evaluateCsv(Reader input, Writer output, String resultName) throws IOException {
+        BufferedReader in = input instanceof BufferedReader ? (BufferedReader) input : new BufferedReader(input);
+        String header = in.readLine();
+        if (header == null) {
+            throw new IllegalArgumentException("Missing header row");
+        }
+        int[] slots = columnSlots(header.split(",", -1));
+        output.write(header);
+        output.write(',');
+        output.write(resultName);
+        output.write('\n');
+
+        long rows = 0;
+        CompletableFuture<String> pending = null;
+        String[] lines = new String[CHUNK_ROWS];
+        long[] numbers = new long[CHUNK_ROWS];
+        long[] lastLine = {1}; // physical 1-based line number; the header is line 1
+        int count;
+        while ((count = readChunk(in, lines, numbers, lastLine)) > 0) {
+            String[] chunk = lines;
+            long[] chunkNumbers = numbers;
+            int size = count;
+            CompletableFuture<String> next = CompletableFuture.supplyAsync(
+                    () -> processChunk(chunk, chunkNumbers, size, slots));
+            // Overlap: the previous chunk is written while this one is being processed
+            if (pending != null) {
+                output.write(join(pending));
+            }
+            pending = next;
+            lines = new String[CHUNK_ROWS];
+            numbers = new long[CHUNK_ROWS];
+            rows += count;
+        }
+        if (pending != null) {
+            output.write(join(pending));
+        }
+        output.flush();
+        return rows;
+    }
+
+    private static String join(CompletableFuture<String> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Maps each header field to the variable slot it binds, or -1 when the formula does not use it.
+     */
+    private int[] columnSlots(String[] header) {
+        List<String> variables = program.getVariables();
+        int[] slots = new int[header.length];
+        boolean[] bound = new boolean[variables.size()];
+        for (int field = 0; field < header.length; field++) {
+            slots[field] = variables.indexOf(header[field].trim());
+            if (slots[field] >= 0) {
+                bound[slots[field]] = true;
+            }
+        }
+        for (int i = 0; i < bound.length; i++) {
+            if (!bound[i]) {
+                throw new IllegalArgumentException("Unknown column: " + variables.get(i));
+            }
+        }
+        return slots;
+    }
+
+    /**
+     * Reads up to lines.length non-blank lines, recording each one's physical line number so
+     * that errors point at the right line even after blank lines were skipped.
+     */
+    private static int readChunk(BufferedReader in, String[] lines, long[] numbers, long[] lastLine)
+            throws IOException {
+        int count = 0;
+        String line;
+        while (count < lines.length && (line = in.readLine()) != null) {
+            lastLine[0]++;
+            if (!line.isEmpty()) {
+                numbers[count] = lastLine[0];
+                lines[count++] = line;
+            }
+        }
+        return count;
+    }
+
+    private String processChunk(String[] lines, long[] lineNumbers, int rows, int[] slots) {
+        double[][] columns = new double[program.variables.length][rows];
+        int blocks = (rows + BLOCK_ROWS - 1) / BLOCK_ROWS;
+        IntStream.range(0, blocks).parallel().forEach(block -> {
+            int end = Math.min(rows, (block + 1) * BLOCK_ROWS);
+            for (int row = block * BLOCK_ROWS; row < end; row++) {
+                parseRow(lines[row], slots, columns, row, lineNumbers[row]);
+            }
+        });
+
+        double[] result = evaluate(columns, rows);
+
+        StringBuilder[] parts = new StringBuilder[blocks];
+        IntStream.range(0, blocks).parallel().forEach(block -> {
+            int end = Math.min(rows, (block + 1) * BLOCK_ROWS);
+            StringBuilder out = new StringBuilder(BLOCK_ROWS * 32);
+            NumberFormatter formatter = new NumberFormatter();
+            for (int row = block * BLOCK_ROWS; row < end; row++) {
+                out.append(lines[row]).append(',');
+                formatter.appendTo(out, result[row]);
+                out.append('\n');
+            }
+            parts[block] = out;
+        });
+        StringBuilder out = new StringBuilder();
+        for (StringBuilder part : parts) {
+            out.append(part);
+        }
+        return out.toString();
+    }
+
+    private static void parseRow(String line, int[] slots, double[][] columns, int row, long lineNumber) {
+        int field = 0, start = 0;
+        while (field < slots.length) {
+            int end = line.indexOf(',', start);
+            if (end < 0) {
+                end = line.length();
+            }
+            if (slots[field] >= 0) {
+                columns[slots[field]][row] = parseField(line, start, end, lineNumber);
+            }
+            field++;
+            if (end == line.length()) {
+                break;
+            }
+            start = end + 1;
+        }
+        if (field < slots.length) {
+            throw new IllegalArgumentException("Line " + lineNumber + ": expected " + slots.length
+                    + " fields but got " + field);
+        }
+    }
+
+    private static double parseField(String line, int start, int end, long lineNumber) {
+        while (start < end && line.charAt(start) <= ' ') {
+            start++;
+        }
+        if (start == end) {
+            return Double.NaN;
+        }
+        try {
+            return NumberFormatter.parseDouble(line, start, end);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Line " + lineNumber + ": not a number: " + line.substring(start, end).trim());
+        }
+    }
+
+    // --- Command line ---
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: java Calc.ColumnarEvaluator \"formula\" input.csv [output.csv]");
+            System.exit(2);
+        }
+        ColumnarEvaluator evaluator = new ColumnarEvaluator(CompiledExpression.compile(args[0]));
+        long start = System.nanoTime();
+        long rows;
+        try (Reader in = Files.newBufferedReader(Path.of(args[1]), StandardCharsets.UTF_8);
+                Writer out = args.length > 2
+                        ? Files.newBufferedWriter(Path.of(args[2]), StandardCharsets.UTF_8)
+                        : new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))) {
+            rows = evaluator.evaluateCsv(in, out, "result");
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.err.printf("%d rows in %.3f s (%.1f M rows/s)%n", rows, seconds, rows / seconds / 1e6);
+    }
+}
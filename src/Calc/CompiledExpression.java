@@ -0,0 +1,321 @@
+package Calc;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A parsed Expression flattened into a straight-line register program.
+ * Registers hold the variables first, then the constants, then one temporary per instruction.
+ * Structurally equal sub-trees are emitted once (common-subexpression elimination),
+ * so the program can be evaluated repeatedly without walking the tree.
+ */
+public final class CompiledExpression {
+    static final int ADD = 0, SUB = 1, MUL = 2, DIV = 3, POW = 4;
+    static final int SQRT = 5, RAD = 6, SIN = 7, COS = 8, TAN = 9, SIND = 10, COSD = 11, TAND = 12;
+    static final int NEG = 13;
+
+    private static final String[] NAMES = {
+        "+", "-", "*", "/", "^", "√", "toRadians", "sin", "cos", "tan", "sind", "cosd", "tand", "neg"
+    };
+
+    final String[] variables;
+    final BigDecimal[] constants;
+    final double[] doubleConstants;
+    final int[] codes;
+    final int[] lhs;
+    final int[] rhs; // unused (-1) for functions
+    final int result;
+
+    private CompiledExpression(String[] variables, List<BigDecimal> constants,
+            int[] codes, int[] lhs, int[] rhs, int result) {
+        this.variables = variables;
+        this.constants = constants.toArray(new BigDecimal[0]);
+        this.doubleConstants = new double[this.constants.length];
+        for (int i = 0; i < this.constants.length; i++) {
+            this.doubleConstants[i] = this.constants[i].doubleValue();
+        }
+        this.codes = codes;
+        this.lhs = lhs;
+        this.rhs = rhs;
+        this.result = result;
+    }
+
+    // --- Factory Methods ---
+
+    /**
+     * Parses, optimizes and compiles an expression; variables are numbered in order of appearance.
+     */
+    public static CompiledExpression compile(String expression) {
+        return compile(new ExpressionOptimizer().optimize(new ExpressionParser().parse(expression)));
+    }
+
+    public static CompiledExpression compile(Expression expression) {
+        Set<String> names = new LinkedHashSet<>();
+        collectVariables(expression, names);
+        return compile(expression, new ArrayList<>(names));
+    }
+
+    /**
+     * Compiles with a fixed variable order, e.g. to match the columns of a table.
+     */
+    public static CompiledExpression compile(Expression expression, List<String> variables) {
+        return new Builder(variables, true).build(expression);
+    }
+
+    /**
+     * One instruction per tree node, with no subexpression sharing: the baseline that isolates
+     * what ExpressionOptimizer and sharing each contribute (Benchmarks optimizer).
+     */
+    static CompiledExpression compileUnshared(Expression expression, List<String> variables) {
+        return new Builder(variables, false).build(expression);
+    }
+
+    private static void collectVariables(Expression expression, Set<String> names) {
+        if (expression instanceof VariableNode) {
+            names.add(((VariableNode) expression).name);
+        } else if (expression instanceof BinaryNode) {
+            // Left spine with a loop, in order of appearance
+            ArrayDeque<BinaryNode> spine = new ArrayDeque<>();
+            Expression bottom = expression;
+            while (bottom instanceof BinaryNode) {
+                spine.push((BinaryNode) bottom);
+                bottom = ((BinaryNode) bottom).left;
+            }
+            collectVariables(bottom, names);
+            while (!spine.isEmpty()) {
+                collectVariables(spine.pop().right, names);
+            }
+        } else if (expression instanceof FunctionNode) {
+            collectVariables(((FunctionNode) expression).argument, names);
+        }
+    }
+
+    // --- Accessors ---
+
+    public List<String> getVariables() {
+        return List.of(variables);
+    }
+
+    public int getInstructionCount() {
+        return codes.length;
+    }
+
+    int registerCount() {
+        return variables.length + constants.length + codes.length;
+    }
+
+    int temporaryBase() {
+        return variables.length + constants.length;
+    }
+
+    static boolean isBinary(int code) {
+        return code <= POW;
+    }
+
+    static String nameOf(int code) {
+        return NAMES[code];
+    }
+
+    // --- Evaluation ---
+
+    public double evaluate(double... values) {
+        checkArity(values.length);
+        double[] r = new double[registerCount()];
+        System.arraycopy(values, 0, r, 0, variables.length);
+        System.arraycopy(doubleConstants, 0, r, variables.length, doubleConstants.length);
+
+        int t = temporaryBase();
+        for (int i = 0; i < codes.length; i++, t++) {
+            double a = r[lhs[i]];
+            r[t] = switch (codes[i]) {
+                case ADD -> a + r[rhs[i]];
+                case SUB -> a - r[rhs[i]];
+                case MUL -> a * r[rhs[i]];
+                case DIV -> a / r[rhs[i]];
+                case POW -> Math.pow(a, (int) r[rhs[i]]);
+                case SQRT -> Math.sqrt(a);
+                case RAD -> Math.toRadians(a);
+                case SIN -> Math.sin(a);
+                case COS -> Math.cos(a);
+                case TAN -> Math.tan(a);
+                case SIND -> Math.sin(Math.toRadians(a));
+                case COSD -> Math.cos(Math.toRadians(a));
+                case TAND -> Math.tan(Math.toRadians(a));
+                default -> -a;
+            };
+        }
+        return r[result];
+    }
+
+    public BigDecimal evaluate(BigDecimal... values) {
+        checkArity(values.length);
+        BigDecimal[] r = new BigDecimal[registerCount()];
+        System.arraycopy(values, 0, r, 0, variables.length);
+        System.arraycopy(constants, 0, r, variables.length, constants.length);
+
+        int t = temporaryBase();
+        for (int i = 0; i < codes.length; i++, t++) {
+            r[t] = isBinary(codes[i])
+                    ? BinaryNode.apply(NAMES[codes[i]].charAt(0), r[lhs[i]], r[rhs[i]])
+                    : FunctionNode.apply(NAMES[codes[i]], r[lhs[i]]);
+        }
+        return r[result];
+    }
+
+    void checkArity(int count) {
+        if (count != variables.length) {
+            throw new IllegalArgumentException("Expected " + variables.length + " values for "
+                    + Arrays.toString(variables) + " but got " + count);
+        }
+    }
+
+    // --- Dump of the optimized form ---
+
+    String registerName(int register) {
+        if (register < variables.length) {
+            return variables[register];
+        }
+        if (register < temporaryBase()) {
+            return "c" + (register - variables.length);
+        }
+        return "t" + (register - temporaryBase());
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder();
+        out.append("variables: ").append(String.join(", ", variables)).append('\n');
+        for (int i = 0; i < constants.length; i++) {
+            out.append("c").append(i).append(" = ").append(constants[i].toPlainString()).append('\n');
+        }
+        for (int i = 0; i < codes.length; i++) {
+            out.append("t").append(i).append(" = ");
+            if (isBinary(codes[i])) {
+                out.append(registerName(lhs[i])).append(' ').append(NAMES[codes[i]])
+                        .append(' ').append(registerName(rhs[i]));
+            } else {
+                out.append(NAMES[codes[i]]).append('(').append(registerName(lhs[i])).append(')');
+            }
+            out.append('\n');
+        }
+        out.append("result = ").append(registerName(result));
+        return out.toString();
+    }
+
+    // --- Builder (tree -> register program) ---
+
+    private static final class Builder implements ExpressionVisitor<Integer> {
+        private static final int NONE = Integer.MIN_VALUE;
+
+        private final String[] variables;
+        private final Map<String, Integer> variableSlots = new HashMap<>();
+        private final List<BigDecimal> constants = new ArrayList<>();
+        private final Map<NumberNode, Integer> constantSlots = new HashMap<>();
+        private final List<int[]> instructions = new ArrayList<>();
+        // Temporaries get provisional negative ids until the constant count is known in build()
+        private final Map<Expression, Integer> shared = new HashMap<>();
+        private final boolean share;
+
+        Builder(List<String> variables, boolean share) {
+            this.variables = variables.toArray(new String[0]);
+            this.share = share;
+            for (int i = 0; i < this.variables.length; i++) {
+                variableSlots.put(this.variables[i], i);
+            }
+        }
+
+        CompiledExpression build(Expression expression) {
+            int root = expression.accept(this);
+            int base = variables.length + constants.size();
+
+            int[] codes = new int[instructions.size()];
+            int[] lhs = new int[codes.length];
+            int[] rhs = new int[codes.length];
+            for (int i = 0; i < codes.length; i++) {
+                int[] instruction = instructions.get(i);
+                codes[i] = instruction[0];
+                lhs[i] = resolve(instruction[1], base);
+                rhs[i] = instruction[2] == NONE ? -1 : resolve(instruction[2], base);
+            }
+            return new CompiledExpression(variables, constants, codes, lhs, rhs, resolve(root, base));
+        }
+
+        private int resolve(int id, int base) {
+            return id < 0 ? base + (-1 - id) : id;
+        }
+
+        @Override
+        public Integer visitNumber(NumberNode node) {
+            return constantSlots.computeIfAbsent(node, n -> {
+                constants.add(n.value);
+                return variables.length + constants.size() - 1;
+            });
+        }
+
+        @Override
+        public Integer visitVariable(VariableNode node) {
+            Integer slot = variableSlots.get(node.name);
+            if (slot == null) {
+                throw new IllegalArgumentException("Unknown variable: " + node.name);
+            }
+            return slot;
+        }
+
+        @Override
+        public Integer visitBinary(BinaryNode node) {
+            Integer known = shared.get(node);
+            if (known != null) {
+                return known;
+            }
+            // As BinaryNode.foldLeft, but the walk down the left spine stops at a shared node
+            ArrayDeque<BinaryNode> spine = new ArrayDeque<>();
+            Expression bottom = node;
+            while (bottom instanceof BinaryNode && !shared.containsKey(bottom)) {
+                spine.push((BinaryNode) bottom);
+                bottom = ((BinaryNode) bottom).left;
+            }
+            int result = bottom.accept(this);
+            while (!spine.isEmpty()) {
+                BinaryNode next = spine.pop();
+                int right = next.right.accept(this);
+                result = emit(next, codeOf(String.valueOf(next.operator)), result, right);
+            }
+            return result;
+        }
+
+        @Override
+        public Integer visitFunction(FunctionNode node) {
+            Integer known = shared.get(node);
+            if (known != null) {
+                return known;
+            }
+            int argument = node.argument.accept(this);
+            return emit(node, codeOf(node.name), argument, NONE);
+        }
+
+        private int emit(Expression node, int code, int left, int right) {
+            instructions.add(new int[] {code, left, right});
+            int id = -instructions.size();
+            if (share) {
+                shared.put(node, id);
+            }
+            return id;
+        }
+
+        private static int codeOf(String name) {
+            for (int i = 0; i < NAMES.length; i++) {
+                if (NAMES[i].equals(name)) {
+                    return i;
+                }
+            }
+            throw new IllegalArgumentException("Unknown operation: " + name);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package Calc;
+
+/**
+ * A compiled expression evaluated over primitive doubles, one value per variable.
+ * Implemented by the bytecode that ExpressionJit generates for hot expressions.
+ */
+public interface DoubleEvaluator {
+    double eval(double[] vars);
+}
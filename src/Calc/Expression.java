@@ -0,0 +1,388 @@
+package Calc;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayDeque;
+
+// --- Component Interface (Parsed Expression Tree) ---
+// Composite Pattern: numbers and variables are leaves, operators and functions are composites.
+// Visitor Pattern: evaluation, optimization and printing are visitors over the tree.
+
+public interface Expression {
+    <R> R accept(ExpressionVisitor<R> visitor);
+
+    /**
+     * Number of nodes on the longest path to a leaf.
+     */
+    default int height() {
+        return 1;
+    }
+
+    /**
+     * Nesting depth: like height(), except that a left operand does not count, since left
+     * chains such as a+b+c+... are walked with a loop (BinaryNode.foldLeft). This bounds the
+     * recursion of every visitor, whatever the length of such a chain.
+     */
+    default int depth() {
+        return 1;
+    }
+}
+
+interface ExpressionVisitor<R> {
+    R visitNumber(NumberNode node);
+
+    R visitVariable(VariableNode node);
+
+    R visitBinary(BinaryNode node);
+
+    R visitFunction(FunctionNode node);
+}
+
+// --- Leaves ---
+
+final class NumberNode implements Expression {
+    static final NumberNode PI = new NumberNode(BigDecimal.valueOf(Math.PI), true);
+    static final NumberNode E = new NumberNode(BigDecimal.valueOf(Math.E), true);
+
+    final BigDecimal value;
+    final double doubleValue;
+    // value only approximates the number (π, e, or a constant folded from them), so the
+    // exact evaluator must not take it as a fraction
+    final boolean irrational;
+
+    NumberNode(BigDecimal value) {
+        this(value, false);
+    }
+
+    NumberNode(BigDecimal value, boolean irrational) {
+        this.value = value;
+        this.doubleValue = value.doubleValue();
+        this.irrational = irrational;
+    }
+
+    boolean is(int n) {
+        return value.compareTo(BigDecimal.valueOf(n)) == 0;
+    }
+
+    @Override
+    public <R> R accept(ExpressionVisitor<R> visitor) {
+        return visitor.visitNumber(this);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof NumberNode && value.compareTo(((NumberNode) o).value) == 0
+                && irrational == ((NumberNode) o).irrational;
+    }
+
+    @Override
+    public int hashCode() {
+        return Double.hashCode(doubleValue);
+    }
+
+    @Override
+    public String toString() {
+        return value.toPlainString();
+    }
+}
+
+final class VariableNode implements Expression {
+    final String name;
+
+    VariableNode(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public <R> R accept(ExpressionVisitor<R> visitor) {
+        return visitor.visitVariable(this);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof VariableNode && name.equals(((VariableNode) o).name);
+    }
+
+    @Override
+    public int hashCode() {
+        return name.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
+
+// --- Composites ---
+
+final class BinaryNode implements Expression {
+    final char operator;
+    final Expression left;
+    final Expression right;
+    private final int height;
+    private final int depth;
+    private final int hash; // from the children's cached hashes, so hashCode() never recurses down a chain
+
+    BinaryNode(char operator, Expression left, Expression right) {
+        this.operator = operator;
+        this.left = left;
+        this.right = right;
+        this.height = 1 + Math.max(left.height(), right.height());
+        this.depth = Math.max(left.depth(), 1 + right.depth());
+        this.hash = (operator * 31 + left.hashCode()) * 31 + right.hashCode();
+    }
+
+    @Override
+    public int height() {
+        return height;
+    }
+
+    @Override
+    public int depth() {
+        return depth;
+    }
+
+    /**
+     * One step of a left fold: combines a node with the result for its left operand.
+     */
+    interface Step<R> {
+        R apply(BinaryNode node, R left);
+    }
+
+    /**
+     * Visits a node and its left operands with a loop: the left spine is collected, its bottom
+     * operand visited, then step applied on the way back up. Only right operands recurse, so a
+     * visitor's stack use follows depth(), not the length of a chain such as 1+1+1+...
+     */
+    static <R> R foldLeft(BinaryNode node, ExpressionVisitor<R> visitor, Step<R> step) {
+        if (!(node.left instanceof BinaryNode)) {
+            return step.apply(node, node.left.accept(visitor));
+        }
+        ArrayDeque<BinaryNode> spine = new ArrayDeque<>();
+        Expression bottom = node;
+        while (bottom instanceof BinaryNode) {
+            spine.push((BinaryNode) bottom);
+            bottom = ((BinaryNode) bottom).left;
+        }
+        R result = bottom.accept(visitor);
+        while (!spine.isEmpty()) {
+            result = step.apply(spine.pop(), result);
+        }
+        return result;
+    }
+
+    // Operations are stateless, so one instance of each serves every node
+    private static final Operation ADD = new AddOperation();
+    private static final Operation SUBTRACT = new SubtractOperation();
+    private static final Operation MULTIPLY = new MultiplyOperation();
+    private static final Operation DIVIDE = new DivideOperation();
+    private static final Operation POWER = new PowerOperation();
+
+    /**
+     * The BigDecimal arithmetic behind CalculatorApp.evaluateExpression; the Operation
+     * objects route large operands to the BigArithmetic backend.
+     */
+    static BigDecimal apply(char operator, BigDecimal left, BigDecimal right) {
+        return switch (operator) {
+            case '+' -> ADD.compute(left, right);
+            case '-' -> SUBTRACT.compute(left, right);
+            case '*' -> MULTIPLY.compute(left, right);
+            case '/' -> DIVIDE.compute(left, right);
+            case '^' -> POWER.compute(left, right);
+            default -> throw new IllegalArgumentException("Unknown operator: " + operator);
+        };
+    }
+
+    /**
+     * Double counterpart of apply; follows IEEE rules, so division by zero yields an infinity.
+     */
+    static double apply(char operator, double left, double right) {
+        return switch (operator) {
+            case '+' -> left + right;
+            case '-' -> left - right;
+            case '*' -> left * right;
+            case '/' -> left / right;
+            case '^' -> Math.pow(left, (int) right);
+            default -> throw new IllegalArgumentException("Unknown operator: " + operator);
+        };
+    }
+
+    /**
+     * Exact rational counterpart of apply.
+     */
+    static Rational apply(char operator, Rational left, Rational right) {
+        return switch (operator) {
+            case '+' -> ADD.compute(left, right);
+            case '-' -> SUBTRACT.compute(left, right);
+            case '*' -> MULTIPLY.compute(left, right);
+            case '/' -> DIVIDE.compute(left, right);
+            case '^' -> POWER.compute(left, right);
+            default -> throw new IllegalArgumentException("Unknown operator: " + operator);
+        };
+    }
+
+    /**
+     * Operand counterpart of apply, for complex numbers, vectors and matrices.
+     */
+    static Operand apply(char operator, Operand left, Operand right) {
+        return switch (operator) {
+            case '+' -> ADD.compute(left, right);
+            case '-' -> SUBTRACT.compute(left, right);
+            case '*' -> MULTIPLY.compute(left, right);
+            case '/' -> DIVIDE.compute(left, right);
+            case '^' -> POWER.compute(left, right);
+            default -> throw new IllegalArgumentException("Unknown operator: " + operator);
+        };
+    }
+
+    @Override
+    public <R> R accept(ExpressionVisitor<R> visitor) {
+        return visitor.visitBinary(this);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof BinaryNode)) {
+            return false;
+        }
+        // Both left spines are walked together, recursing only into right operands
+        Expression a = this, b = (Expression) o;
+        while (a instanceof BinaryNode && b instanceof BinaryNode) {
+            BinaryNode x = (BinaryNode) a, y = (BinaryNode) b;
+            if (x == y) {
+                return true;
+            }
+            if (x.operator != y.operator || x.hash != y.hash || !x.right.equals(y.right)) {
+                return false;
+            }
+            a = x.left;
+            b = y.left;
+        }
+        return a.equals(b);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        ArrayDeque<BinaryNode> spine = new ArrayDeque<>();
+        Expression bottom = this;
+        while (bottom instanceof BinaryNode) {
+            spine.push((BinaryNode) bottom);
+            bottom = ((BinaryNode) bottom).left;
+        }
+        StringBuilder out = new StringBuilder().append("(".repeat(spine.size())).append(bottom);
+        while (!spine.isEmpty()) {
+            BinaryNode node = spine.pop();
+            out.append(' ').append(node.operator).append(' ').append(node.right).append(')');
+        }
+        return out.toString();
+    }
+}
+
+final class FunctionNode implements Expression {
+    // "sind", "cosd" and "tand" are the fused toRadians+trig forms produced by the optimizer
+    final String name;
+    final Expression argument;
+    private final int height;
+    private final int depth;
+
+    FunctionNode(String name, Expression argument) {
+        this.name = name;
+        this.argument = argument;
+        this.height = 1 + argument.height();
+        this.depth = 1 + argument.depth();
+    }
+
+    @Override
+    public int height() {
+        return height;
+    }
+
+    @Override
+    public int depth() {
+        return depth;
+    }
+
+    static BigDecimal apply(String name, BigDecimal a) {
+        return switch (name) {
+            case "neg" -> a.negate();
+            case "√" -> a.sqrt(MathContext.DECIMAL128);
+            case "toRadians" -> BigDecimal.valueOf(Math.toRadians(a.doubleValue()));
+            // BigDecimal.valueOf(double) round-trips, so the fused forms match the two-step result
+            case "sin", "cos", "tan", "sind", "cosd", "tand" -> BigDecimal.valueOf(apply(name, a.doubleValue()));
+            default -> throw new IllegalArgumentException("Unknown function: " + name);
+        };
+    }
+
+    static double apply(String name, double a) {
+        return switch (name) {
+            case "neg" -> -a;
+            case "√" -> Math.sqrt(a);
+            case "toRadians" -> Math.toRadians(a);
+            case "sin" -> Math.sin(a);
+            case "cos" -> Math.cos(a);
+            case "tan" -> Math.tan(a);
+            case "sind" -> Math.sin(Math.toRadians(a));
+            case "cosd" -> Math.cos(Math.toRadians(a));
+            case "tand" -> Math.tan(Math.toRadians(a));
+            default -> throw new IllegalArgumentException("Unknown function: " + name);
+        };
+    }
+
+    /**
+     * Exact counterpart of apply; IrrationalException when the result is irrational.
+     */
+    static Rational apply(String name, Rational a) {
+        return switch (name) {
+            case "neg" -> a.negate();
+            case "√" -> a.sqrt();
+            case "sind" -> a.sinDegrees();
+            case "cosd" -> a.cosDegrees();
+            case "tand" -> a.tanDegrees();
+            // Radians: only the zero angle has rational trig values
+            case "toRadians", "sin", "tan" -> exactAtZero(name, a, Rational.ZERO);
+            case "cos" -> exactAtZero(name, a, Rational.ONE);
+            default -> throw new IllegalArgumentException("Unknown function: " + name);
+        };
+    }
+
+    private static Rational exactAtZero(String name, Rational a, Rational valueAtZero) {
+        if (a.signum() != 0) {
+            throw new IrrationalException(name + "(" + a + ") is irrational");
+        }
+        return valueAtZero;
+    }
+
+    static Operand apply(String name, Operand a) {
+        return a.function(name);
+    }
+
+    @Override
+    public <R> R accept(ExpressionVisitor<R> visitor) {
+        return visitor.visitFunction(this);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof FunctionNode)) {
+            return false;
+        }
+        FunctionNode other = (FunctionNode) o;
+        return name.equals(other.name) && argument.equals(other.argument);
+    }
+
+    @Override
+    public int hashCode() {
+        return name.hashCode() * 31 + argument.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return name + "(" + argument + ")";
+    }
+}
@@ -0,0 +1,172 @@
+package Calc;
+
+import java.math.BigDecimal;
+
+/**
+ * Symbolic differentiation over the parsed form (Visitor Pattern). Returns a new tree for the
+ * derivative with respect to one variable, covering the whole evaluateExpression grammar:
+ * + - * / ^, neg, √, toRadians, sin, cos, tan and the fused degree forms sind, cosd and tand.
+ * ^ raises to an integer power, so its exponent is piecewise constant and contributes no term:
+ * d(a^b) = b*a^(b-1)*a', with a constant exponent truncated the way evaluation truncates it
+ * (a variable exponent is assumed to take integer values).
+ * Zero and one terms are dropped while building and the result is passed through the
+ * ExpressionOptimizer, so derivatives stay small enough to compile and print.
+ */
+public class ExpressionDifferentiator implements ExpressionVisitor<Expression> {
+    private static final NumberNode ZERO = new NumberNode(BigDecimal.ZERO);
+    private static final NumberNode ONE = new NumberNode(BigDecimal.ONE);
+    private static final NumberNode TWO = new NumberNode(BigDecimal.valueOf(2));
+
+    private final String variable;
+
+    public ExpressionDifferentiator(String variable) {
+        this.variable = variable;
+    }
+
+    public Expression differentiate(Expression expression) {
+        return new ExpressionOptimizer().optimize(expression.accept(this));
+    }
+
+    /**
+     * Parses, differentiates and simplifies, e.g. d/dx of "x^3+sin(x)" prints as
+     * ((3 * (x ^ 2)) + (cosd(x) * 0.017453292519943295)).
+     */
+    public static Expression differentiate(String expression, String variable) {
+        return new ExpressionDifferentiator(variable).differentiate(new ExpressionParser().parse(expression));
+    }
+
+    @Override
+    public Expression visitNumber(NumberNode node) {
+        return ZERO;
+    }
+
+    @Override
+    public Expression visitVariable(VariableNode node) {
+        return node.name.equals(variable) ? ONE : ZERO;
+    }
+
+    @Override
+    public Expression visitBinary(BinaryNode node) {
+        return BinaryNode.foldLeft(node, this, this::differentiateBinary);
+    }
+
+    // da is the derivative of the left operand; the right one is only differentiated when needed
+    private Expression differentiateBinary(BinaryNode node, Expression da) {
+        Expression a = node.left, b = node.right;
+        switch (node.operator) {
+            case '+':
+                return add(da, b.accept(this));
+            case '-':
+                return subtract(da, b.accept(this));
+            case '*':
+                // Product rule: a'b + ab'
+                return add(multiply(da, b), multiply(a, b.accept(this)));
+            case '/': {
+                // Quotient rule: (a'b - ab') / b^2
+                Expression db = b.accept(this);
+                if (isZero(db)) {
+                    return divide(da, b);
+                }
+                return divide(subtract(multiply(da, b), multiply(a, db)), new BinaryNode('^', b, TWO));
+            }
+            case '^': {
+                if (isZero(da)) {
+                    return ZERO;
+                }
+                Expression n, nMinusOne;
+                if (b instanceof NumberNode) {
+                    int exponent = ((NumberNode) b).value.intValue();
+                    n = new NumberNode(BigDecimal.valueOf(exponent));
+                    nMinusOne = new NumberNode(BigDecimal.valueOf(exponent - 1L));
+                } else {
+                    n = b;
+                    nMinusOne = new BinaryNode('-', b, ONE);
+                }
+                return multiply(multiply(n, new BinaryNode('^', a, nMinusOne)), da);
+            }
+            default:
+                throw new IllegalArgumentException("Cannot differentiate operator: " + node.operator);
+        }
+    }
+
+    @Override
+    public Expression visitFunction(FunctionNode node) {
+        Expression a = node.argument;
+        Expression da = a.accept(this);
+        if (isZero(da)) {
+            return ZERO;
+        }
+        switch (node.name) {
+            case "neg":
+                return negate(da);
+            case "toRadians":
+                // Linear, so the derivative is the converted derivative of the argument
+                return new FunctionNode("toRadians", da);
+            case "√":
+                return divide(da, multiply(TWO, node));
+            case "sin":
+                return multiply(new FunctionNode("cos", a), da);
+            case "cos":
+                return negate(multiply(new FunctionNode("sin", a), da));
+            case "tan":
+                return divide(da, new BinaryNode('^', new FunctionNode("cos", a), TWO));
+            // Degree forms: the chain rule brings in toRadians of the inner derivative
+            case "sind":
+                return multiply(new FunctionNode("cosd", a), new FunctionNode("toRadians", da));
+            case "cosd":
+                return negate(multiply(new FunctionNode("sind", a), new FunctionNode("toRadians", da)));
+            case "tand":
+                return divide(new FunctionNode("toRadians", da), new BinaryNode('^', new FunctionNode("cosd", a), TWO));
+            default:
+                throw new IllegalArgumentException("Cannot differentiate function: " + node.name);
+        }
+    }
+
+    // --- Builders that drop zero and one terms ---
+
+    private static Expression add(Expression a, Expression b) {
+        if (isZero(a)) {
+            return b;
+        }
+        return isZero(b) ? a : new BinaryNode('+', a, b);
+    }
+
+    private static Expression subtract(Expression a, Expression b) {
+        if (isZero(b)) {
+            return a;
+        }
+        return isZero(a) ? negate(b) : new BinaryNode('-', a, b);
+    }
+
+    private static Expression multiply(Expression a, Expression b) {
+        if (isZero(a) || isZero(b)) {
+            return ZERO;
+        }
+        if (isOne(a)) {
+            return b;
+        }
+        return isOne(b) ? a : new BinaryNode('*', a, b);
+    }
+
+    private static Expression divide(Expression a, Expression b) {
+        return isZero(a) ? ZERO : new BinaryNode('/', a, b);
+    }
+
+    private static Expression negate(Expression a) {
+        if (isZero(a)) {
+            return ZERO;
+        }
+        if (a instanceof FunctionNode && ((FunctionNode) a).name.equals("neg")) {
+            return ((FunctionNode) a).argument;
+        }
+        return new FunctionNode("neg", a);
+    }
+
+    private static boolean isZero(Expression expression) {
+        return expression instanceof NumberNode && ((NumberNode) expression).is(0);
+    }
+
+    private static boolean isOne(Expression expression) {
+        return expression instanceof NumberNode && ((NumberNode) expression).is(1);
+    }
+}
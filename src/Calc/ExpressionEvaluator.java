@@ -0,0 +1,50 @@
+package Calc;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Evaluates a parsed Expression with BigDecimal arithmetic (Visitor Pattern).
+ * Variables are looked up in the bindings supplied at construction.
+ */
+public class ExpressionEvaluator implements ExpressionVisitor<BigDecimal> {
+    private final Map<String, BigDecimal> bindings;
+
+    public ExpressionEvaluator() {
+        this(Collections.emptyMap());
+    }
+
+    public ExpressionEvaluator(Map<String, BigDecimal> bindings) {
+        this.bindings = bindings;
+    }
+
+    public BigDecimal evaluate(Expression expression) {
+        return expression.accept(this);
+    }
+
+    @Override
+    public BigDecimal visitNumber(NumberNode node) {
+        return node.value;
+    }
+
+    @Override
+    public BigDecimal visitVariable(VariableNode node) {
+        BigDecimal value = bindings.get(node.name);
+        if (value == null) {
+            throw new IllegalArgumentException("Unknown variable: " + node.name);
+        }
+        return value;
+    }
+
+    @Override
+    public BigDecimal visitBinary(BinaryNode node) {
+        return BinaryNode.foldLeft(node, this,
+                (n, left) -> BinaryNode.apply(n.operator, left, n.right.accept(this)));
+    }
+
+    @Override
+    public BigDecimal visitFunction(FunctionNode node) {
+        return FunctionNode.apply(node.name, node.argument.accept(this));
+    }
+}
@@ -0,0 +1,272 @@
+package Calc;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Translates a CompiledExpression into JVM bytecode and loads it as a hidden class
+ * implementing DoubleEvaluator, so HotSpot can inline and optimize it like hand-written code.
+ * Hidden classes are defined without ClassOption.STRONG, so they are unloaded together
+ * with the last DoubleEvaluator instance that refers to them.
+ */
+final class ExpressionJit {
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    // JVM opcodes used by the generator
+    private static final int ALOAD_0 = 0x2a, ALOAD_1 = 0x2b, ICONST_0 = 0x03, BIPUSH = 0x10, SIPUSH = 0x11;
+    private static final int LDC2_W = 0x14, DLOAD = 0x18, DSTORE = 0x39, DALOAD = 0x31, WIDE = 0xc4;
+    private static final int DADD = 0x63, DSUB = 0x67, DMUL = 0x6b, DDIV = 0x6f, D2I = 0x8e, I2D = 0x87;
+    private static final int DNEG = 0x77;
+    private static final int DRETURN = 0xaf, RETURN = 0xb1, INVOKESPECIAL = 0xb7, INVOKESTATIC = 0xb8;
+
+    private ExpressionJit() {
+    }
+
+    /**
+     * @throws ReflectiveOperationException or a LinkageError if the class cannot be defined,
+     *         e.g. when the expression is too large for a single method.
+     */
+    static DoubleEvaluator generate(CompiledExpression program) throws ReflectiveOperationException {
+        byte[] bytes = new ClassBuilder(program).build();
+        MethodHandles.Lookup hidden = LOOKUP.defineHiddenClass(bytes, true);
+        try {
+            return (DoubleEvaluator) hidden.findConstructor(hidden.lookupClass(),
+                    MethodType.methodType(void.class)).invoke();
+        } catch (ReflectiveOperationException | RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new ReflectiveOperationException(t);
+        }
+    }
+
+    // --- Class file writer (just enough of the format for one straight-line method) ---
+
+    private static final class ClassBuilder {
+        private final CompiledExpression program;
+        private final ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+        private final DataOutputStream pool = new DataOutputStream(poolBytes);
+        private final Map<String, Integer> poolIndex = new HashMap<>();
+        private int poolCount = 1;
+
+        ClassBuilder(CompiledExpression program) {
+            this.program = program;
+        }
+
+        byte[] build() {
+            try {
+                int thisClass = classRef(LOOKUP.lookupClass().getPackageName().replace('.', '/') + "/JitExpression");
+                int superClass = classRef("java/lang/Object");
+                int iface = classRef(DoubleEvaluator.class.getName().replace('.', '/'));
+                int objectInit = methodRef("java/lang/Object", "<init>", "()V");
+                int initName = utf8("<init>");
+                int initDesc = utf8("()V");
+                int evalName = utf8("eval");
+                int evalDesc = utf8("([D)D");
+                int codeName = utf8("Code");
+                byte[] evalCode = evalCode();
+
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                DataOutputStream out = new DataOutputStream(bytes);
+                out.writeInt(0xCAFEBABE);
+                out.writeShort(0);
+                out.writeShort(52);
+                out.writeShort(poolCount);
+                pool.flush();
+                poolBytes.writeTo(out);
+                out.writeShort(0x0030); // ACC_FINAL | ACC_SUPER
+                out.writeShort(thisClass);
+                out.writeShort(superClass);
+                out.writeShort(1);
+                out.writeShort(iface);
+                out.writeShort(0); // fields
+                out.writeShort(2); // methods
+
+                byte[] initCode = {(byte) ALOAD_0, (byte) INVOKESPECIAL,
+                    (byte) (objectInit >> 8), (byte) objectInit, (byte) RETURN};
+                writeMethod(out, 0x0001, initName, initDesc, codeName, 1, 1, initCode);
+                writeMethod(out, 0x0001, evalName, evalDesc, codeName, 4,
+                        2 + 2 * program.codes.length, evalCode);
+
+                out.writeShort(0); // class attributes
+                out.flush();
+                return bytes.toByteArray();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private void writeMethod(DataOutputStream out, int access, int name, int descriptor, int codeName,
+                int maxStack, int maxLocals, byte[] code) throws IOException {
+            if (code.length > 65535 || maxLocals > 65535) {
+                throw new IllegalStateException("Expression too large for a single method");
+            }
+            out.writeShort(access);
+            out.writeShort(name);
+            out.writeShort(descriptor);
+            out.writeShort(1);
+            out.writeShort(codeName);
+            out.writeInt(12 + code.length);
+            out.writeShort(maxStack);
+            out.writeShort(maxLocals);
+            out.writeInt(code.length);
+            out.write(code);
+            out.writeShort(0); // exception table
+            out.writeShort(0); // code attributes
+        }
+
+        /**
+         * eval(double[] vars): every instruction leaves its value in its own local (2 + 2 * i).
+         */
+        private byte[] evalCode() throws IOException {
+            ByteArrayOutputStream code = new ByteArrayOutputStream();
+            int[] codes = program.codes;
+            for (int i = 0; i < codes.length; i++) {
+                load(code, program.lhs[i]);
+                if (CompiledExpression.isBinary(codes[i])) {
+                    load(code, program.rhs[i]);
+                }
+                switch (codes[i]) {
+                    case CompiledExpression.ADD -> code.write(DADD);
+                    case CompiledExpression.SUB -> code.write(DSUB);
+                    case CompiledExpression.MUL -> code.write(DMUL);
+                    case CompiledExpression.DIV -> code.write(DDIV);
+                    case CompiledExpression.POW -> {
+                        code.write(D2I);
+                        code.write(I2D);
+                        invokeMath(code, "pow", "(DD)D");
+                    }
+                    case CompiledExpression.SQRT -> invokeMath(code, "sqrt", "(D)D");
+                    case CompiledExpression.RAD -> invokeMath(code, "toRadians", "(D)D");
+                    case CompiledExpression.SIN -> invokeMath(code, "sin", "(D)D");
+                    case CompiledExpression.COS -> invokeMath(code, "cos", "(D)D");
+                    case CompiledExpression.TAN -> invokeMath(code, "tan", "(D)D");
+                    case CompiledExpression.NEG -> code.write(DNEG);
+                    default -> {
+                        invokeMath(code, "toRadians", "(D)D");
+                        invokeMath(code, CompiledExpression.nameOf(codes[i]).substring(0, 3), "(D)D");
+                    }
+                }
+                local(code, DSTORE, 2 + 2 * i);
+            }
+            load(code, program.result);
+            code.write(DRETURN);
+            return code.toByteArray();
+        }
+
+        private void load(ByteArrayOutputStream code, int register) throws IOException {
+            int variables = program.variables.length;
+            if (register < variables) {
+                code.write(ALOAD_1);
+                if (register <= 5) {
+                    code.write(ICONST_0 + register);
+                } else if (register <= Byte.MAX_VALUE) {
+                    code.write(BIPUSH);
+                    code.write(register);
+                } else {
+                    code.write(SIPUSH);
+                    code.write(register >> 8);
+                    code.write(register);
+                }
+                code.write(DALOAD);
+            } else if (register < program.temporaryBase()) {
+                int index = doubleConstant(program.doubleConstants[register - variables]);
+                code.write(LDC2_W);
+                code.write(index >> 8);
+                code.write(index);
+            } else {
+                local(code, DLOAD, 2 + 2 * (register - program.temporaryBase()));
+            }
+        }
+
+        private void local(ByteArrayOutputStream code, int opcode, int slot) {
+            if (slot > 255) {
+                code.write(WIDE);
+                code.write(opcode);
+                code.write(slot >> 8);
+            } else {
+                code.write(opcode);
+            }
+            code.write(slot);
+        }
+
+        private void invokeMath(ByteArrayOutputStream code, String name, String descriptor) throws IOException {
+            int index = methodRef("java/lang/Math", name, descriptor);
+            code.write(INVOKESTATIC);
+            code.write(index >> 8);
+            code.write(index);
+        }
+
+        // --- Constant pool ---
+
+        private int utf8(String value) throws IOException {
+            Integer known = poolIndex.get("U" + value);
+            if (known != null) {
+                return known;
+            }
+            pool.writeByte(1);
+            pool.writeUTF(value);
+            return register("U" + value, 1);
+        }
+
+        private int classRef(String internalName) throws IOException {
+            Integer known = poolIndex.get("C" + internalName);
+            if (known != null) {
+                return known;
+            }
+            int name = utf8(internalName);
+            pool.writeByte(7);
+            pool.writeShort(name);
+            return register("C" + internalName, 1);
+        }
+
+        private int methodRef(String owner, String name, String descriptor) throws IOException {
+            String key = "M" + owner + "." + name + descriptor;
+            Integer known = poolIndex.get(key);
+            if (known != null) {
+                return known;
+            }
+            int ownerIndex = classRef(owner);
+            int nameAndType = nameAndType(name, descriptor);
+            pool.writeByte(10);
+            pool.writeShort(ownerIndex);
+            pool.writeShort(nameAndType);
+            return register(key, 1);
+        }
+
+        private int nameAndType(String name, String descriptor) throws IOException {
+            Integer known = poolIndex.get("N" + name + descriptor);
+            if (known != null) {
+                return known;
+            }
+            int nameIndex = utf8(name);
+            int descriptorIndex = utf8(descriptor);
+            pool.writeByte(12);
+            pool.writeShort(nameIndex);
+            pool.writeShort(descriptorIndex);
+            return register("N" + name + descriptor, 1);
+        }
+
+        private int doubleConstant(double value) throws IOException {
+            String key = "D" + Double.doubleToRawLongBits(value);
+            Integer known = poolIndex.get(key);
+            if (known != null) {
+                return known;
+            }
+            pool.writeByte(6);
+            pool.writeDouble(value);
+            return register(key, 2); // doubles take two pool slots
+        }
+
+        private int register(String key, int slots) {
+            int index = poolCount;
+            poolIndex.put(key, index);
+            poolCount += slots;
+            return index;
+        }
+    }
+}
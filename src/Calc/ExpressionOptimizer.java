@@ -0,0 +1,108 @@
+package Calc;
+
+/**
+ * Optimization pass over the parsed form (Visitor Pattern). Returns a new tree with:
+ * constant sub-trees folded, toRadians+trig fused into a single degree-based function,
+ * and the identities x+0, 0+x, x-0, x*1, 1*x, x/1 and x^1 removed.
+ * Common sub-expressions are shared later, when CompiledExpression linearizes the tree.
+ */
+public class ExpressionOptimizer implements ExpressionVisitor<Expression> {
+
+    public Expression optimize(Expression expression) {
+        return expression.accept(this);
+    }
+
+    @Override
+    public Expression visitNumber(NumberNode node) {
+        return node;
+    }
+
+    @Override
+    public Expression visitVariable(VariableNode node) {
+        return node;
+    }
+
+    @Override
+    public Expression visitBinary(BinaryNode node) {
+        return BinaryNode.foldLeft(node, this, this::optimizeBinary);
+    }
+
+    private Expression optimizeBinary(BinaryNode node, Expression left) {
+        Expression right = node.right.accept(this);
+
+        if (left instanceof NumberNode && right instanceof NumberNode) {
+            try {
+                return new NumberNode(BinaryNode.apply(node.operator,
+                        ((NumberNode) left).value, ((NumberNode) right).value),
+                        ((NumberNode) left).irrational || ((NumberNode) right).irrational);
+            } catch (ArithmeticException e) {
+                // Leave it in the tree so the error is raised at evaluation time, as before
+            }
+        }
+
+        switch (node.operator) {
+            case '+':
+                if (isConstant(left, 0)) {
+                    return right;
+                }
+                if (isConstant(right, 0)) {
+                    return left;
+                }
+                break;
+            case '-':
+            case '/':
+            case '^':
+                if (isConstant(right, node.operator == '-' ? 0 : 1)) {
+                    return left;
+                }
+                break;
+            case '*':
+                if (isConstant(left, 1)) {
+                    return right;
+                }
+                if (isConstant(right, 1)) {
+                    return left;
+                }
+                break;
+        }
+
+        if (left == node.left && right == node.right) {
+            return node;
+        }
+        return new BinaryNode(node.operator, left, right);
+    }
+
+    @Override
+    public Expression visitFunction(FunctionNode node) {
+        Expression argument = node.argument.accept(this);
+
+        // sin(toRadians(x)) -> sind(x): one step instead of two
+        if (argument instanceof FunctionNode && ((FunctionNode) argument).name.equals("toRadians")) {
+            String fused = switch (node.name) {
+                case "sin" -> "sind";
+                case "cos" -> "cosd";
+                case "tan" -> "tand";
+                default -> null;
+            };
+            if (fused != null) {
+                return visitFunction(new FunctionNode(fused, ((FunctionNode) argument).argument));
+            }
+        }
+
+        if (argument instanceof NumberNode) {
+            try {
+                // Only negation keeps an exact constant exact
+                return new NumberNode(FunctionNode.apply(node.name, ((NumberNode) argument).value),
+                        ((NumberNode) argument).irrational || !node.name.equals("neg"));
+            } catch (ArithmeticException e) {
+                // e.g. √ of a negative constant: keep it for evaluation time
+            }
+        }
+
+        return argument == node.argument ? node : new FunctionNode(node.name, argument);
+    }
+
+    private boolean isConstant(Expression expression, int value) {
+        return expression instanceof NumberNode && ((NumberNode) expression).is(value);
+    }
+}
@@ -0,0 +1,159 @@
+package Calc;
+
+import java.math.BigDecimal;
+
+/**
+ * Turns an expression string into its parsed form (an Expression tree).
+ * A table-driven Pratt parser: each token is read once with no backtracking, and binding
+ * strength comes from the OperatorTable, so 8-3-2 = 3, 2^3^2 = 512, -2^2 = -4 and
+ * sin(30)^2 = 0.25.
+ * Names other than registered functions and the constant e are variables.
+ */
+public class ExpressionParser {
+    // Bounds parser recursion and the nesting depth of the tree (parentheses, prefix operators,
+    // right operands), so neither parsing nor any visitor over the result can overflow the
+    // stack; left chains such as 1+1+1+... do not nest and may be of any length
+    public static final int MAX_DEPTH = 1000;
+
+    private final OperatorTable table;
+
+    public ExpressionParser() {
+        this(OperatorTable.standard());
+    }
+
+    public ExpressionParser(OperatorTable table) {
+        this.table = table;
+    }
+
+    public Expression parse(String expression) {
+        ExpressionTokenizer tokens = new ExpressionTokenizer(expression);
+        Expression result = parse(tokens);
+        if (tokens.type != ExpressionTokenizer.Type.END) {
+            throw new IllegalArgumentException("Unexpected " + tokens.text);
+        }
+        return result;
+    }
+
+    /**
+     * Parses one expression and leaves the tokenizer on the first token that cannot continue
+     * it, for callers with trailing syntax of their own (UnitExpression's "in unit").
+     */
+    Expression parse(ExpressionTokenizer tokens) {
+        if (tokens.type == ExpressionTokenizer.Type.END) {
+            throw new IllegalArgumentException("Invalid expression");
+        }
+        return parseExpression(tokens, 0, 0);
+    }
+
+    private Expression parseExpression(ExpressionTokenizer tokens, int minPrecedence, int depth) {
+        if (depth > MAX_DEPTH) {
+            throw new IllegalArgumentException("Expression nested too deeply");
+        }
+        Expression left = parsePrefix(tokens, depth);
+
+        while (tokens.type == ExpressionTokenizer.Type.SYMBOL) {
+            OperatorTable.InfixOperator operator = table.infix(tokens.symbol);
+            if (operator == null || operator.precedence < minPrecedence) {
+                break;
+            }
+            tokens.advance();
+            int next = operator.associativity == OperatorTable.Associativity.LEFT
+                    ? operator.precedence + 1
+                    : operator.precedence;
+            left = checkDepth(new BinaryNode(operator.operator, left, parseExpression(tokens, next, depth + 1)));
+        }
+        return left;
+    }
+
+    private Expression parsePrefix(ExpressionTokenizer tokens, int depth) {
+        String text = tokens.text;
+        switch (tokens.type) {
+            case NUMBER:
+                tokens.advance();
+                return parseUnits(tokens, new NumberNode(new BigDecimal(text)), depth);
+            case NAME:
+                if (table.prefix(text) == null) {
+                    tokens.advance();
+                    return text.equals("e") ? NumberNode.E : new VariableNode(text);
+                }
+                break;
+            case SYMBOL:
+                if (tokens.symbol == 'π') {
+                    tokens.advance();
+                    return NumberNode.PI;
+                }
+                if (tokens.symbol == '(') {
+                    tokens.advance();
+                    Expression inner = parseExpression(tokens, 0, depth + 1);
+                    if (!tokens.isSymbol(')')) {
+                        throw new IllegalArgumentException("Missing )");
+                    }
+                    tokens.advance();
+                    return parseUnits(tokens, inner, depth);
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unexpected end of expression");
+        }
+
+        OperatorTable.PrefixOperator operator = table.prefix(text);
+        if (operator == null) {
+            throw new IllegalArgumentException("Unexpected " + text);
+        }
+        tokens.advance();
+        // A named function followed by ( is a call, so sin(x)^2 squares the sine;
+        // without parentheses it binds like any prefix operator: sin x^2 = sin(x^2)
+        int precedence = tokens.type == ExpressionTokenizer.Type.SYMBOL && tokens.symbol == '('
+                && Character.isLetter(text.charAt(0)) ? Integer.MAX_VALUE : operator.precedence;
+        return checkDepth(operator.builder.apply(parseExpression(tokens, precedence, depth + 1)));
+    }
+
+    /**
+     * Unit suffixes of a number or parenthesized quantity, when the table has units: each
+     * unit name (with an optional ^ power) multiplies the quantity and ° (or deg) wraps it in
+     * the degree conversion. Unit names stay VariableNodes for UnitExpression to resolve.
+     */
+    private Expression parseUnits(ExpressionTokenizer tokens, Expression quantity, int depth) {
+        if (!table.hasUnits()) {
+            return quantity;
+        }
+        while (true) {
+            if (tokens.isSymbol('°') || tokens.type == ExpressionTokenizer.Type.NAME
+                    && Unit.DEGREE.equals(Unit.named(tokens.text))) {
+                tokens.advance();
+                quantity = checkDepth(Unit.DEGREE.toBase(quantity));
+            } else if (tokens.type == ExpressionTokenizer.Type.NAME && Unit.named(tokens.text) != null) {
+                Expression unit = new VariableNode(tokens.text);
+                tokens.advance();
+                if (tokens.isSymbol('^')) {
+                    tokens.advance();
+                    unit = new BinaryNode('^', unit, parseUnitPower(tokens));
+                }
+                quantity = checkDepth(new BinaryNode('*', quantity, unit));
+            } else {
+                return quantity;
+            }
+        }
+    }
+
+    // An integer literal, optionally negative: "m^2 s" is m² times s, not m^(2 s)
+    private static Expression parseUnitPower(ExpressionTokenizer tokens) {
+        boolean negative = tokens.isSymbol('-');
+        if (negative) {
+            tokens.advance();
+        }
+        if (tokens.type != ExpressionTokenizer.Type.NUMBER) {
+            throw new IllegalArgumentException("Expected a number after ^ in a unit");
+        }
+        BigDecimal power = new BigDecimal(tokens.text);
+        tokens.advance();
+        return new NumberNode(negative ? power.negate() : power);
+    }
+
+    private Expression checkDepth(Expression expression) {
+        if (expression.depth() > MAX_DEPTH) {
+            throw new IllegalArgumentException("Expression nested too deeply");
+        }
+        return expression;
+    }
+}
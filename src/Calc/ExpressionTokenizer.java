@@ -0,0 +1,132 @@
+package Calc;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+
+/**
+ * Splits an expression into numbers, names (runs of letters) and single-character symbols.
+ * Holds one token of lookahead, which is all the Pratt parser needs.
+ * Input is either a String or a Reader; a Reader is consumed through a fixed-size buffer,
+ * so only the current token is ever held in memory.
+ */
+final class ExpressionTokenizer {
+
+    enum Type {
+        NUMBER, NAME, SYMBOL, END
+    }
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Reader reader;
+    private final char[] buffer;
+    private int position, limit;
+    private long consumed;
+    private final StringBuilder token = new StringBuilder();
+
+    Type type;
+    String text;
+    char symbol;
+
+    ExpressionTokenizer(String input) {
+        this.reader = null;
+        this.buffer = input.toCharArray();
+        this.limit = buffer.length;
+        advance();
+    }
+
+    ExpressionTokenizer(Reader reader) {
+        this.reader = reader;
+        this.buffer = new char[BUFFER_SIZE];
+        advance();
+    }
+
+    void advance() {
+        int c = peek();
+        while (c >= 0 && Character.isWhitespace(c)) {
+            position++;
+            c = peek();
+        }
+        if (c < 0) {
+            type = Type.END;
+            text = "";
+            return;
+        }
+
+        if (Character.isDigit(c) || c == '.') {
+            type = Type.NUMBER;
+            text = readWhile(true);
+        } else if (Character.isLetter(c) && c != 'π') {
+            type = Type.NAME;
+            text = readWhile(false);
+        } else {
+            position++;
+            type = Type.SYMBOL;
+            symbol = (char) c;
+            text = String.valueOf(symbol);
+        }
+    }
+
+    boolean isSymbol(char c) {
+        return type == Type.SYMBOL && symbol == c;
+    }
+
+    /**
+     * Number of characters read so far, for locating errors in streamed input.
+     */
+    long offset() {
+        return consumed + position;
+    }
+
+    private String readWhile(boolean number) {
+        int start = position;
+        token.setLength(0);
+        while (true) {
+            if (position == limit) {
+                // The token runs past the buffer; keep what was read before refilling
+                token.append(buffer, start, position - start);
+                if (!fill()) {
+                    return token.toString();
+                }
+                start = 0;
+            }
+            char c = buffer[position];
+            if (number ? !(Character.isDigit(c) || c == '.') : !(Character.isLetter(c) && c != 'π')) {
+                break;
+            }
+            position++;
+        }
+        if (token.length() == 0) {
+            return new String(buffer, start, position - start);
+        }
+        return token.append(buffer, start, position - start).toString();
+    }
+
+    private int peek() {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position];
+    }
+
+    private boolean fill() {
+        if (reader == null) {
+            return false;
+        }
+        try {
+            consumed += limit;
+            position = limit = 0;
+            int n;
+            do {
+                n = reader.read(buffer, 0, buffer.length);
+            } while (n == 0);
+            if (n < 0) {
+                return false;
+            }
+            limit = n;
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package Calc;
+
+/**
+ * Automatic differentiation over a CompiledExpression's register program.
+ * Forward mode carries a tangent next to every register, giving one directional derivative per
+ * pass. Reverse mode runs the program once, then sweeps it backwards accumulating adjoints,
+ * giving the value and the full gradient for about the cost of two or three evaluations,
+ * however many variables there are. Shared sub-expressions (one register, several readers)
+ * are handled by the adjoint accumulation. ^ is an integer power, as in evaluation, so the
+ * exponent operand gets no derivative.
+ */
+public final class GradientEvaluator {
+    private static final double DEGREES = Math.PI / 180;
+
+    private final CompiledExpression program;
+
+    public GradientEvaluator(CompiledExpression program) {
+        this.program = program;
+    }
+
+    public static GradientEvaluator compile(String expression) {
+        return new GradientEvaluator(CompiledExpression.compile(expression));
+    }
+
+    public CompiledExpression getProgram() {
+        return program;
+    }
+
+    // --- Forward mode ---
+
+    /**
+     * Partial derivative with respect to the variable at the given index.
+     */
+    public double derivative(int variable, double... values) {
+        double[] direction = new double[values.length];
+        direction[variable] = 1;
+        return directional(values, direction);
+    }
+
+    /**
+     * Derivative along a direction: the sum of direction[i] times the i-th partial derivative.
+     */
+    public double directional(double[] values, double[] direction) {
+        CompiledExpression p = program;
+        p.checkArity(values.length);
+        p.checkArity(direction.length);
+        int size = p.registerCount();
+        double[] r = new double[size];
+        double[] dr = new double[size];
+        System.arraycopy(values, 0, r, 0, values.length);
+        System.arraycopy(direction, 0, dr, 0, direction.length);
+        System.arraycopy(p.doubleConstants, 0, r, values.length, p.doubleConstants.length);
+
+        int t = p.temporaryBase();
+        for (int i = 0; i < p.codes.length; i++, t++) {
+            int x = p.lhs[i];
+            double a = r[x], da = dr[x];
+            double b = 0, db = 0;
+            if (CompiledExpression.isBinary(p.codes[i])) {
+                b = r[p.rhs[i]];
+                db = dr[p.rhs[i]];
+            }
+            double v = apply(p.codes[i], a, b);
+            r[t] = v;
+            dr[t] = switch (p.codes[i]) {
+                case CompiledExpression.ADD -> da + db;
+                case CompiledExpression.SUB -> da - db;
+                case CompiledExpression.MUL -> da * b + a * db;
+                case CompiledExpression.DIV -> (da - v * db) / b;
+                default -> da == 0 ? 0 : partial(p.codes[i], a, b, v) * da;
+            };
+        }
+        return dr[p.result];
+    }
+
+    // --- Reverse mode ---
+
+    /**
+     * Value and full gradient in one forward and one backward sweep; the gradient array
+     * receives one partial derivative per variable, in the program's variable order.
+     */
+    public double evaluate(double[] values, double[] gradient) {
+        CompiledExpression p = program;
+        p.checkArity(values.length);
+        p.checkArity(gradient.length);
+        int size = p.registerCount();
+        double[] r = new double[size];
+        System.arraycopy(values, 0, r, 0, values.length);
+        System.arraycopy(p.doubleConstants, 0, r, values.length, p.doubleConstants.length);
+
+        int base = p.temporaryBase();
+        for (int i = 0; i < p.codes.length; i++) {
+            double b = CompiledExpression.isBinary(p.codes[i]) ? r[p.rhs[i]] : 0;
+            r[base + i] = apply(p.codes[i], r[p.lhs[i]], b);
+        }
+
+        double[] adjoint = new double[size];
+        adjoint[p.result] = 1;
+        for (int i = p.codes.length - 1; i >= 0; i--) {
+            double w = adjoint[base + i];
+            if (w == 0) {
+                continue;
+            }
+            int x = p.lhs[i], y = p.rhs[i];
+            double a = r[x], v = r[base + i];
+            switch (p.codes[i]) {
+                case CompiledExpression.ADD -> {
+                    adjoint[x] += w;
+                    adjoint[y] += w;
+                }
+                case CompiledExpression.SUB -> {
+                    adjoint[x] += w;
+                    adjoint[y] -= w;
+                }
+                case CompiledExpression.MUL -> {
+                    adjoint[x] += w * r[y];
+                    adjoint[y] += w * a;
+                }
+                case CompiledExpression.DIV -> {
+                    adjoint[x] += w / r[y];
+                    adjoint[y] -= w * v / r[y];
+                }
+                default -> adjoint[x] += w * partial(p.codes[i], a, y < 0 ? 0 : r[y], v);
+            }
+        }
+        System.arraycopy(adjoint, 0, gradient, 0, gradient.length);
+        return r[p.result];
+    }
+
+    public double[] gradient(double... values) {
+        double[] gradient = new double[values.length];
+        evaluate(values, gradient);
+        return gradient;
+    }
+
+    // --- Local derivatives ---
+
+    private static double apply(int code, double a, double b) {
+        return switch (code) {
+            case CompiledExpression.ADD -> a + b;
+            case CompiledExpression.SUB -> a - b;
+            case CompiledExpression.MUL -> a * b;
+            case CompiledExpression.DIV -> a / b;
+            case CompiledExpression.POW -> Math.pow(a, (int) b);
+            case CompiledExpression.SQRT -> Math.sqrt(a);
+            case CompiledExpression.RAD -> Math.toRadians(a);
+            case CompiledExpression.SIN -> Math.sin(a);
+            case CompiledExpression.COS -> Math.cos(a);
+            case CompiledExpression.TAN -> Math.tan(a);
+            case CompiledExpression.SIND -> Math.sin(Math.toRadians(a));
+            case CompiledExpression.COSD -> Math.cos(Math.toRadians(a));
+            case CompiledExpression.TAND -> Math.tan(Math.toRadians(a));
+            default -> -a;
+        };
+    }
+
+    /**
+     * d(result)/d(a) for the one-operand-differentiable instructions; v is the result.
+     */
+    private static double partial(int code, double a, double b, double v) {
+        return switch (code) {
+            case CompiledExpression.POW -> {
+                int n = (int) b;
+                yield n == 0 ? 0 : n * Math.pow(a, n - 1);
+            }
+            case CompiledExpression.SQRT -> 0.5 / v;
+            case CompiledExpression.RAD -> DEGREES;
+            case CompiledExpression.SIN -> Math.cos(a);
+            case CompiledExpression.COS -> -Math.sin(a);
+            case CompiledExpression.TAN -> 1 + v * v;
+            case CompiledExpression.SIND -> Math.cos(Math.toRadians(a)) * DEGREES;
+            case CompiledExpression.COSD -> -Math.sin(Math.toRadians(a)) * DEGREES;
+            case CompiledExpression.TAND -> (1 + v * v) * DEGREES;
+            default -> -1;
+        };
+    }
+}
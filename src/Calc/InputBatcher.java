@@ -0,0 +1,91 @@
+package Calc;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+/**
+ * Coalesces GUI input. Actions submitted from any thread are queued; the first one in a frame
+ * starts a one-shot Swing timer, and when it fires every queued action is applied in order on
+ * the event dispatch thread, followed by a single refresh. A burst of key repeats, a paste or
+ * Robot-driven input therefore costs one repaint per frame instead of one per event.
+ */
+final class InputBatcher {
+    static final int FRAME_MILLIS = 16;
+
+    private final ConcurrentLinkedQueue<Runnable> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final Runnable refresh;
+    private final Timer timer;
+    private volatile Runnable refreshListener;
+
+    private final AtomicLong applied = new AtomicLong();
+    private final AtomicLong refreshes = new AtomicLong();
+
+    InputBatcher(Runnable refresh) {
+        this.refresh = refresh;
+        this.timer = new Timer(FRAME_MILLIS, e -> drain());
+        this.timer.setRepeats(false);
+    }
+
+    void submit(Runnable action) {
+        pending.add(action);
+        if (scheduled.compareAndSet(false, true)) {
+            timer.restart();
+        }
+    }
+
+    /**
+     * Applies everything queued so far right away; must be called on the event dispatch thread.
+     */
+    void flush() {
+        if (!SwingUtilities.isEventDispatchThread()) {
+            throw new IllegalStateException("flush() must run on the event dispatch thread");
+        }
+        timer.stop();
+        drain();
+    }
+
+    private void drain() {
+        // Cleared first, so input arriving while draining schedules the next frame
+        scheduled.set(false);
+        int count = 0;
+        try {
+            for (Runnable action = pending.poll(); action != null; action = pending.poll()) {
+                action.run();
+                count++;
+            }
+        } finally {
+            if (count > 0) {
+                applied.addAndGet(count);
+                refreshes.incrementAndGet();
+                refresh.run();
+                Runnable listener = refreshListener;
+                if (listener != null) {
+                    listener.run();
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs on the event dispatch thread after every refresh; the soak harness times input to display with it.
+     */
+    void setRefreshListener(Runnable listener) {
+        this.refreshListener = listener;
+    }
+
+    long getAppliedCount() {
+        return applied.get();
+    }
+
+    long getRefreshCount() {
+        return refreshes.get();
+    }
+
+    int getPendingCount() {
+        return pending.size();
+    }
+}
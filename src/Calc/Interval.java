@@ -0,0 +1,185 @@
+package Calc;
+
+import java.math.BigDecimal;
+
+/**
+ * A closed interval [lower, upper] of doubles that is guaranteed to contain the exact result.
+ * Java has no rounding-mode control, so every operation rounds outward by stepping each bound
+ * one ulp away (Math.nextDown / Math.nextUp), which covers the half-ulp error of IEEE arithmetic
+ * and the one-ulp error allowed for Math.sqrt, sin, cos, tan and pow.
+ */
+public final class Interval {
+    public static final Interval ENTIRE = new Interval(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+
+    private static final double TWO_PI = 2 * Math.PI;
+
+    public final double lower;
+    public final double upper;
+
+    private Interval(double lower, double upper) {
+        this.lower = lower;
+        this.upper = upper;
+    }
+
+    // --- Factory Methods ---
+
+    public static Interval of(double lower, double upper) {
+        if (!(lower <= upper)) {
+            throw new IllegalArgumentException("Invalid interval [" + lower + ", " + upper + "]");
+        }
+        return new Interval(lower, upper);
+    }
+
+    public static Interval point(double value) {
+        return of(value, value);
+    }
+
+    /**
+     * Double interval enclosing a decimal value: a point for integers below 10^15, otherwise
+     * the neighbours of the nearest double, since doubleValue() is correctly rounded.
+     */
+    public static Interval of(BigDecimal value) {
+        double nearest = value.doubleValue();
+        if (Double.isInfinite(nearest)) {
+            return nearest > 0 ? of(Double.MAX_VALUE, nearest) : of(nearest, -Double.MAX_VALUE);
+        }
+        if (value.scale() == 0 && value.precision() <= 15) {
+            return point(nearest);
+        }
+        return of(Math.nextDown(nearest), Math.nextUp(nearest));
+    }
+
+    private static Interval outward(double lower, double upper) {
+        return new Interval(Math.nextDown(lower), Math.nextUp(upper));
+    }
+
+    // --- Accessors ---
+
+    public double width() {
+        return upper - lower;
+    }
+
+    public double midpoint() {
+        return lower == upper ? lower : lower / 2 + upper / 2;
+    }
+
+    /**
+     * Width relative to the magnitude of the midpoint (absolute width near zero).
+     */
+    public double relativeWidth() {
+        double magnitude = Math.max(Math.abs(lower), Math.abs(upper));
+        return magnitude <= 1 ? width() : width() / magnitude;
+    }
+
+    public boolean contains(double value) {
+        return lower <= value && value <= upper;
+    }
+
+    // --- Arithmetic ---
+
+    public Interval add(Interval other) {
+        return outward(lower + other.lower, upper + other.upper);
+    }
+
+    public Interval subtract(Interval other) {
+        return outward(lower - other.upper, upper - other.lower);
+    }
+
+    public Interval multiply(Interval other) {
+        double a = lower * other.lower, b = lower * other.upper;
+        double c = upper * other.lower, d = upper * other.upper;
+        return outward(Math.min(Math.min(a, b), Math.min(c, d)), Math.max(Math.max(a, b), Math.max(c, d)));
+    }
+
+    public Interval divide(Interval other) {
+        if (other.lower == 0 && other.upper == 0) {
+            throw new ArithmeticException("Division by zero");
+        }
+        if (other.contains(0)) {
+            return ENTIRE;
+        }
+        double a = lower / other.lower, b = lower / other.upper;
+        double c = upper / other.lower, d = upper / other.upper;
+        return outward(Math.min(Math.min(a, b), Math.min(c, d)), Math.max(Math.max(a, b), Math.max(c, d)));
+    }
+
+    public Interval negate() {
+        return new Interval(-upper, -lower);
+    }
+
+    /**
+     * Integer power, truncating the exponent like the BigDecimal evaluator does.
+     */
+    public Interval pow(Interval exponent) {
+        int n = (int) exponent.lower;
+        if (n != (int) exponent.upper) {
+            return ENTIRE;
+        }
+        if (n == Integer.MIN_VALUE) {
+            // -n would overflow; BigDecimal.pow rejects exponents this large too
+            throw new ArithmeticException("Exponent out of range");
+        }
+        if (n < 0) {
+            return point(1).divide(pow(point(-n)));
+        }
+        if (n == 0) {
+            return point(1);
+        }
+        if (n % 2 == 1 || lower >= 0) {
+            return outward(Math.pow(lower, n), Math.pow(upper, n));
+        }
+        if (upper <= 0) {
+            return outward(Math.pow(upper, n), Math.pow(lower, n));
+        }
+        return of(0, Math.nextUp(Math.pow(Math.max(-lower, upper), n)));
+    }
+
+    public Interval sqrt() {
+        if (upper < 0) {
+            throw new ArithmeticException("Square root of negative number");
+        }
+        return of(lower <= 0 ? 0 : Math.nextDown(Math.sqrt(lower)), Math.nextUp(Math.sqrt(upper)));
+    }
+
+    public Interval toRadians() {
+        // Math.toRadians multiplies by a rounded π/180, so allow one extra ulp
+        return outward(Math.nextDown(Math.toRadians(lower)), Math.nextUp(Math.toRadians(upper)));
+    }
+
+    public Interval sin() {
+        // sin(x) = cos(x - π/2); the shift is rounded outward as well
+        return subtract(point(Math.PI / 2)).cos();
+    }
+
+    public Interval cos() {
+        if (Double.isInfinite(lower) || Double.isInfinite(upper) || width() >= TWO_PI) {
+            return of(-1, 1);
+        }
+        double a = Math.cos(lower), b = Math.cos(upper);
+        double min = Math.min(a, b), max = Math.max(a, b);
+        // Extremes inside the interval: maxima at 2kπ, minima at (2k+1)π
+        if (Math.floor(upper / TWO_PI) > Math.floor(Math.nextDown(lower) / TWO_PI)) {
+            max = 1;
+        }
+        if (Math.floor((upper - Math.PI) / TWO_PI) > Math.floor((Math.nextDown(lower) - Math.PI) / TWO_PI)) {
+            min = -1;
+        }
+        return of(Math.max(-1, Math.nextDown(min)), Math.min(1, Math.nextUp(max)));
+    }
+
+    public Interval tan() {
+        if (Double.isInfinite(lower) || Double.isInfinite(upper) || width() >= Math.PI) {
+            return ENTIRE;
+        }
+        // A pole at π/2 + kπ inside the interval makes tan unbounded
+        if (Math.floor((upper - Math.PI / 2) / Math.PI) > Math.floor((Math.nextDown(lower) - Math.PI / 2) / Math.PI)) {
+            return ENTIRE;
+        }
+        return outward(Math.nextDown(Math.tan(lower)), Math.nextUp(Math.tan(upper)));
+    }
+
+    @Override
+    public String toString() {
+        return "[" + lower + ", " + upper + "]";
+    }
+}
@@ -0,0 +1,118 @@
+package Calc;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Interval evaluation mode (Visitor Pattern): evaluates a parsed Expression with
+ * Interval bounds, going through the same Operation objects the Calculator uses.
+ *
+ * evaluateAdaptive builds an adaptive-precision strategy on top: it takes the fast
+ * double result when the bounds are tight enough, and only escalates to BigDecimal
+ * evaluation when they are not.
+ */
+public class IntervalEvaluator implements ExpressionVisitor<Interval> {
+    private static final Map<Character, Operation> BINARY = Map.of(
+            '+', new AddOperation(),
+            '-', new SubtractOperation(),
+            '*', new MultiplyOperation(),
+            '/', new DivideOperation(),
+            '^', new PowerOperation());
+
+    private final Map<String, BigDecimal> bindings;
+    private final Map<String, Operation> unary;
+
+    private final AtomicLong fastResults = new AtomicLong();
+    private final AtomicLong escalations = new AtomicLong();
+
+    public IntervalEvaluator() {
+        this(Collections.emptyMap());
+    }
+
+    public IntervalEvaluator(Map<String, BigDecimal> bindings) {
+        this.bindings = bindings;
+        // Interval mode never calls back into the adaptee, so its operations have none
+        this.unary = Map.of(
+                "√", new IntervalUnaryOperation("√"),
+                "sin", new IntervalUnaryOperation("sin"),
+                "cos", new IntervalUnaryOperation("cos"),
+                "tan", new IntervalUnaryOperation("tan"));
+    }
+
+    public Interval evaluate(Expression expression) {
+        return expression.accept(this);
+    }
+
+    /**
+     * Returns the double midpoint when the interval's relative width is within the tolerance,
+     * otherwise the result of a full BigDecimal evaluation.
+     */
+    public BigDecimal evaluateAdaptive(Expression expression, double relativeTolerance) {
+        try {
+            Interval bounds = evaluate(expression);
+            if (bounds.relativeWidth() <= relativeTolerance && !Double.isInfinite(bounds.midpoint())) {
+                fastResults.incrementAndGet();
+                return BigDecimal.valueOf(bounds.midpoint());
+            }
+        } catch (ArithmeticException e) {
+            // Bounds may straddle a domain error the exact operands avoid; let BigDecimal decide
+        }
+        escalations.incrementAndGet();
+        return new ExpressionEvaluator(bindings).evaluate(expression);
+    }
+
+    public long getFastResultCount() {
+        return fastResults.get();
+    }
+
+    public long getEscalationCount() {
+        return escalations.get();
+    }
+
+    // --- Visitor ---
+
+    @Override
+    public Interval visitNumber(NumberNode node) {
+        return Interval.of(node.value);
+    }
+
+    @Override
+    public Interval visitVariable(VariableNode node) {
+        BigDecimal value = bindings.get(node.name);
+        if (value == null) {
+            throw new IllegalArgumentException("Unknown variable: " + node.name);
+        }
+        return Interval.of(value);
+    }
+
+    @Override
+    public Interval visitBinary(BinaryNode node) {
+        return BinaryNode.foldLeft(node, this,
+                (n, left) -> BINARY.get(n.operator).compute(left, n.right.accept(this)));
+    }
+
+    @Override
+    public Interval visitFunction(FunctionNode node) {
+        // The adapter takes degrees, so sin(toRadians(x)) and the fused sind(x) both map onto it
+        if (node.argument instanceof FunctionNode && ((FunctionNode) node.argument).name.equals("toRadians")
+                && !node.name.equals("√") && unary.containsKey(node.name)) {
+            return unary.get(node.name).compute(((FunctionNode) node.argument).argument.accept(this));
+        }
+
+        Interval argument = node.argument.accept(this);
+        return switch (node.name) {
+            case "neg" -> argument.negate();
+            case "toRadians" -> argument.toRadians();
+            case "√" -> unary.get("√").compute(argument);
+            case "sind" -> unary.get("sin").compute(argument);
+            case "cosd" -> unary.get("cos").compute(argument);
+            case "tand" -> unary.get("tan").compute(argument);
+            case "sin" -> argument.sin();
+            case "cos" -> argument.cos();
+            case "tan" -> argument.tan();
+            default -> throw new IllegalArgumentException("Unknown function: " + node.name);
+        };
+    }
+}
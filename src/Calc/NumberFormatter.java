@@ -0,0 +1,521 @@
+package Calc;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * Number formatting and parsing for the display, CSV output and replays.
+ *
+ * Formatting writes the shortest decimal that reads back to the same double or float
+ * (Schubfach, as in Giulietti's "The Schubfach way to render doubles") into a reusable char
+ * buffer. Layout rules: plain notation while the decimal exponent is in [-7, 21), with
+ * whole values printed without a fraction ("3", not "3.0"); scientific "1.5E22" outside
+ * that range; optional thousands grouping of the integer part. Zero prints as "0" whatever
+ * its sign. Instances are not thread-safe; use one per thread.
+ *
+ * Parsing takes Clinger's fast path: up to 15 significant digits with a power of ten up
+ * to 10^22 is one correctly rounded double multiplication or division. Anything else
+ * (more digits, NaN, hex, bad input) goes to Double.parseDouble, which also supplies the
+ * NumberFormatException.
+ */
+public final class NumberFormatter {
+    private static final int PLAIN_MIN_EXPONENT = -7;
+    private static final int PLAIN_MAX_EXPONENT = 21;
+
+    private final boolean grouping;
+    private char[] buffer = new char[64];
+    private int length;
+
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    // Decimal digits of the value being formatted, most significant first
+    private final char[] digits = new char[20];
+
+    public NumberFormatter() {
+        this(false);
+    }
+
+    public NumberFormatter(boolean grouping) {
+        this.grouping = grouping;
+    }
+
+    // --- Formatting ---
+
+    public String format(double value) {
+        write(value);
+        return new String(buffer, 0, length);
+    }
+
+    public String format(float value) {
+        write(value);
+        return new String(buffer, 0, length);
+    }
+
+    /**
+     * Keeps every digit of the value, including trailing zeros of its scale, like toPlainString.
+     */
+    public String format(BigDecimal value) {
+        write(value);
+        return new String(buffer, 0, length);
+    }
+
+    public void appendTo(StringBuilder out, double value) {
+        write(value);
+        out.append(buffer, 0, length);
+    }
+
+    private void write(double value) {
+        length = 0;
+        if (!special(value)) {
+            Schubfach.toDecimal(this, value);
+        }
+    }
+
+    private void write(float value) {
+        length = 0;
+        if (!special(value)) {
+            Schubfach.toDecimal(this, value);
+        }
+    }
+
+    private void write(BigDecimal value) {
+        String text = value.unscaledValue().abs().toString();
+        length = 0;
+        ensureCapacity(2 * text.length() + 32);
+        if (value.signum() < 0) {
+            buffer[length++] = '-';
+        }
+        char[] all = text.toCharArray();
+        layout(all, all.length, (long) all.length - 1 - value.scale());
+    }
+
+    private boolean special(double value) {
+        if (value == 0) {
+            buffer[length++] = '0';
+            return true;
+        }
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            String text = Double.toString(value);
+            text.getChars(0, text.length(), buffer, 0);
+            length = text.length();
+            return true;
+        }
+        if (value < 0) {
+            buffer[length++] = '-';
+        }
+        return false;
+    }
+
+    /**
+     * Lays out f * 10^e for a positive f, dropping f's trailing zeros.
+     */
+    void emit(long f, int e) {
+        while (f % 100 == 0) {
+            f /= 100;
+            e += 2;
+        }
+        if (f % 10 == 0) {
+            f /= 10;
+            e++;
+        }
+        int count = 1;
+        while (count < 19 && f >= POWERS_OF_TEN[count]) {
+            count++;
+        }
+        // Two digits per division, in int arithmetic once the rest fits
+        int i = count;
+        for (; f > Integer.MAX_VALUE; f /= 100) {
+            int pair = (int) (f % 100);
+            digits[--i] = (char) ('0' + pair % 10);
+            digits[--i] = (char) ('0' + pair / 10);
+        }
+        int rest = (int) f;
+        for (; rest >= 10; rest /= 100) {
+            int pair = rest % 100;
+            digits[--i] = (char) ('0' + pair % 10);
+            digits[--i] = (char) ('0' + pair / 10);
+        }
+        if (i > 0) {
+            digits[0] = (char) ('0' + rest);
+        }
+        layout(digits, count, e + count - 1);
+    }
+
+    /**
+     * Appends d[0].d[1]...d[count-1] * 10^exponent.
+     */
+    private void layout(char[] d, int count, long exponent) {
+        if (exponent < PLAIN_MIN_EXPONENT || exponent >= PLAIN_MAX_EXPONENT) {
+            buffer[length++] = d[0];
+            if (count > 1) {
+                buffer[length++] = '.';
+                System.arraycopy(d, 1, buffer, length, count - 1);
+                length += count - 1;
+            }
+            buffer[length++] = 'E';
+            String text = Long.toString(exponent);
+            text.getChars(0, text.length(), buffer, length);
+            length += text.length();
+            return;
+        }
+
+        int integerDigits = (int) exponent + 1;
+        if (integerDigits <= 0) {
+            buffer[length++] = '0';
+            buffer[length++] = '.';
+            for (int i = integerDigits; i < 0; i++) {
+                buffer[length++] = '0';
+            }
+            System.arraycopy(d, 0, buffer, length, count);
+            length += count;
+            return;
+        }
+        if (grouping) {
+            for (int i = 0; i < integerDigits; i++) {
+                buffer[length++] = i < count ? d[i] : '0';
+                int remaining = integerDigits - 1 - i;
+                if (remaining > 0 && remaining % 3 == 0) {
+                    buffer[length++] = ',';
+                }
+            }
+        } else {
+            int copied = Math.min(count, integerDigits);
+            System.arraycopy(d, 0, buffer, length, copied);
+            length += copied;
+            for (int i = copied; i < integerDigits; i++) {
+                buffer[length++] = '0';
+            }
+        }
+        if (count > integerDigits) {
+            buffer[length++] = '.';
+            System.arraycopy(d, integerDigits, buffer, length, count - integerDigits);
+            length += count - integerDigits;
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (buffer.length < capacity) {
+            buffer = new char[capacity];
+        }
+    }
+
+    // --- Parsing ---
+
+    private static final double[] DOUBLE_POWERS = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+        1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final float[] FLOAT_POWERS = {
+        1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f
+    };
+
+    public static double parseDouble(CharSequence text) {
+        return parseDouble(text, 0, text.length());
+    }
+
+    /**
+     * Parses text[start, end) without copying it, as Double.parseDouble would.
+     */
+    public static double parseDouble(CharSequence text, int start, int end) {
+        long scanned = scan(text, start, end);
+        if (scanned >= 0) {
+            long mantissa = scanned >>> 7;
+            int exponent = (int) (scanned >>> 1 & 63) - 32;
+            if (mantissa < 1L << 53 && Math.abs(exponent) <= 22) {
+                double value = exponent < 0
+                        ? mantissa / DOUBLE_POWERS[-exponent]
+                        : mantissa * DOUBLE_POWERS[exponent];
+                return (scanned & 1) != 0 ? -value : value;
+            }
+        }
+        return Double.parseDouble(text.subSequence(start, end).toString());
+    }
+
+    public static float parseFloat(CharSequence text) {
+        long scanned = scan(text, 0, text.length());
+        if (scanned >= 0) {
+            long mantissa = scanned >>> 7;
+            int exponent = (int) (scanned >>> 1 & 63) - 32;
+            // Both operands are exact floats, so one float operation rounds correctly
+            if (mantissa < 1L << 24 && Math.abs(exponent) <= 10) {
+                float value = exponent < 0
+                        ? mantissa / FLOAT_POWERS[-exponent]
+                        : mantissa * FLOAT_POWERS[exponent];
+                return (scanned & 1) != 0 ? -value : value;
+            }
+        }
+        return Float.parseFloat(text.toString());
+    }
+
+    /**
+     * Reads [sign] digits [. digits] [(e|E) [sign] digits]. Returns mantissa << 7 |
+     * (exponent + 32) << 1 | sign when the mantissa fits 53 bits and the exponent is in
+     * [-32, 31], and -1 for anything else so the caller falls back to the JDK.
+     */
+    private static long scan(CharSequence text, int start, int end) {
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        int i = start;
+        boolean negative = false;
+        if (i < end && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+            negative = text.charAt(i++) == '-';
+        }
+
+        long mantissa = 0;
+        int exponent = 0, significant = 0;
+        boolean digit = false, point = false;
+        for (; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digit = true;
+                if (mantissa != 0 || c != '0') {
+                    if (++significant > 16) {
+                        return -1;
+                    }
+                    mantissa = mantissa * 10 + (c - '0');
+                }
+                if (point) {
+                    exponent--;
+                }
+            } else if (c == '.' && !point) {
+                point = true;
+            } else {
+                break;
+            }
+        }
+        if (!digit) {
+            return -1;
+        }
+        if (i < end && (text.charAt(i) == 'e' || text.charAt(i) == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < end && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+                negativeExponent = text.charAt(i++) == '-';
+            }
+            if (i == end) {
+                return -1;
+            }
+            int value = 0;
+            for (; i < end && text.charAt(i) >= '0' && text.charAt(i) <= '9'; i++) {
+                if (value > 1000) {
+                    return -1;
+                }
+                value = value * 10 + (text.charAt(i) - '0');
+            }
+            exponent += negativeExponent ? -value : value;
+        }
+        if (i != end || mantissa >= 1L << 53 || exponent < -32 || exponent > 31) {
+            return -1;
+        }
+        return mantissa << 7 | (long) (exponent + 32) << 1 | (negative ? 1 : 0);
+    }
+
+    // --- Shortest decimal (Schubfach) ---
+
+    /**
+     * For a binary value c * 2^q, finds the shortest decimal in its rounding interval using
+     * 126-bit approximations g of powers of ten, so no multi-word arithmetic is needed.
+     */
+    private static final class Schubfach {
+        private static final int K_MIN = -324, K_MAX = 292;
+        private static final long MASK_63 = (1L << 63) - 1;
+        private static final long MASK_32 = (1L << 32) - 1;
+        // g = floor(10^-k * 2^(125 - flog2pow10(-k))) + 1, split into high and low 63 bits
+        private static final long[] G = new long[2 * (K_MAX - K_MIN + 1)];
+
+        static {
+            for (int k = K_MIN; k <= K_MAX; k++) {
+                BigInteger numerator = BigInteger.ONE, denominator = BigInteger.ONE;
+                if (k <= 0) {
+                    numerator = BigInteger.TEN.pow(-k);
+                } else {
+                    denominator = BigInteger.TEN.pow(k);
+                }
+                int shift = 125 - flog2pow10(-k);
+                if (shift >= 0) {
+                    numerator = numerator.shiftLeft(shift);
+                } else {
+                    denominator = denominator.shiftLeft(-shift);
+                }
+                BigInteger g = numerator.divide(denominator).add(BigInteger.ONE);
+                G[2 * (k - K_MIN)] = g.shiftRight(63).longValueExact();
+                G[2 * (k - K_MIN) + 1] = g.longValue() & MASK_63;
+            }
+        }
+
+        private static int flog10pow2(int e) {
+            return (int) (e * 661_971_961_083L >> 41);
+        }
+
+        private static int flog10threeQuartersPow2(int e) {
+            return (int) (e * 661_971_961_083L + -274_743_187_321L >> 41);
+        }
+
+        private static int flog2pow10(int e) {
+            return (int) (e * 913_124_641_741L >> 38);
+        }
+
+        // --- double: 53-bit significand ---
+
+        static void toDecimal(NumberFormatter out, double v) {
+            long bits = Double.doubleToRawLongBits(v);
+            long t = bits & (1L << 52) - 1;
+            int bq = (int) (bits >>> 52) & 0x7FF;
+            if (bq != 0) {
+                int mq = 1074 + 1 - bq;
+                long c = 1L << 52 | t;
+                if (0 < mq && mq < 53) {
+                    long f = c >> mq;
+                    if (f << mq == c) {
+                        out.emit(f, 0); // an integer below 2^53
+                        return;
+                    }
+                }
+                toDecimal(out, -mq, c, 0);
+            } else {
+                // Subnormal; the smallest ones need an extra digit of headroom
+                if (t < 3) {
+                    toDecimal(out, -1074, 10 * t, -1);
+                } else {
+                    toDecimal(out, -1074, t, 0);
+                }
+            }
+        }
+
+        private static void toDecimal(NumberFormatter out, int q, long c, int dk) {
+            int odd = (int) c & 1;
+            long cb = c << 2;
+            long cbr = cb + 2;
+            long cbl;
+            int k;
+            if (c != 1L << 52 || q == -1074) {
+                cbl = cb - 2;
+                k = flog10pow2(q);
+            } else {
+                // Lower boundary is closer at a power of two
+                cbl = cb - 1;
+                k = flog10threeQuartersPow2(q);
+            }
+            int h = q + flog2pow10(-k) + 2;
+            long g1 = G[2 * (k - K_MIN)], g0 = G[2 * (k - K_MIN) + 1];
+
+            long vb = rop(g1, g0, cb << h);
+            long vbl = rop(g1, g0, cbl << h);
+            long vbr = rop(g1, g0, cbr << h);
+
+            long s = vb >> 2;
+            if (s >= 100) {
+                // Try one digit fewer: the multiple of ten below or above
+                long sp10 = 10 * Math.multiplyHigh(s, 115_292_150_460_684_698L << 4);
+                long tp10 = sp10 + 10;
+                boolean upin = vbl + odd <= sp10 << 2;
+                boolean wpin = (tp10 << 2) + odd <= vbr;
+                if (upin != wpin) {
+                    out.emit(upin ? sp10 : tp10, k);
+                    return;
+                }
+            }
+            long t = s + 1;
+            boolean uin = vbl + odd <= s << 2;
+            boolean win = (t << 2) + odd <= vbr;
+            if (uin != win) {
+                out.emit(uin ? s : t, k + dk);
+                return;
+            }
+            long cmp = vb - (s + t << 1);
+            out.emit(cmp < 0 || cmp == 0 && (s & 1) == 0 ? s : t, k + dk);
+        }
+
+        private static long rop(long g1, long g0, long cp) {
+            long x1 = Math.multiplyHigh(g0, cp);
+            long y0 = g1 * cp;
+            long y1 = Math.multiplyHigh(g1, cp);
+            long z = (y0 >>> 1) + x1;
+            long vbp = y1 + (z >>> 63);
+            return vbp | (z & MASK_63) + MASK_63 >>> 63;
+        }
+
+        // --- float: 24-bit significand, 64-bit g is enough ---
+
+        static void toDecimal(NumberFormatter out, float v) {
+            int bits = Float.floatToRawIntBits(v);
+            int t = bits & (1 << 23) - 1;
+            int bq = (bits >>> 23) & 0xFF;
+            if (bq != 0) {
+                int mq = 149 + 1 - bq;
+                int c = 1 << 23 | t;
+                if (0 < mq && mq < 24) {
+                    int f = c >> mq;
+                    if (f << mq == c) {
+                        out.emit(f, 0);
+                        return;
+                    }
+                }
+                toDecimal(out, -mq, c, 0);
+            } else if (t < 8) {
+                toDecimal(out, -149, 10 * t, -1);
+            } else {
+                toDecimal(out, -149, t, 0);
+            }
+        }
+
+        private static void toDecimal(NumberFormatter out, int q, int c, int dk) {
+            int odd = c & 1;
+            long cb = (long) c << 2;
+            long cbr = cb + 2;
+            long cbl;
+            int k;
+            if (c != 1 << 23 || q == -149) {
+                cbl = cb - 2;
+                k = flog10pow2(q);
+            } else {
+                cbl = cb - 1;
+                k = flog10threeQuartersPow2(q);
+            }
+            int h = q + flog2pow10(-k) + 33;
+            long g = G[2 * (k - K_MIN)] + 1;
+
+            int vb = rop(g, cb << h);
+            int vbl = rop(g, cbl << h);
+            int vbr = rop(g, cbr << h);
+
+            int s = vb >> 2;
+            if (s >= 100) {
+                int sp10 = 10 * (int) (s * 1_717_986_919L >>> 34);
+                int tp10 = sp10 + 10;
+                boolean upin = vbl + odd <= sp10 << 2;
+                boolean wpin = (tp10 << 2) + odd <= vbr;
+                if (upin != wpin) {
+                    out.emit(upin ? sp10 : tp10, k);
+                    return;
+                }
+            }
+            int t = s + 1;
+            boolean uin = vbl + odd <= s << 2;
+            boolean win = (t << 2) + odd <= vbr;
+            if (uin != win) {
+                out.emit(uin ? s : t, k + dk);
+                return;
+            }
+            int cmp = vb - (s + t << 1);
+            out.emit(cmp < 0 || cmp == 0 && (s & 1) == 0 ? s : t, k + dk);
+        }
+
+        private static int rop(long g, long cp) {
+            long x1 = Math.multiplyHigh(g, cp);
+            long vbp = x1 >>> 31;
+            return (int) (vbp | (x1 & MASK_32) + MASK_32 >>> 32);
+        }
+    }
+}
@@ -0,0 +1,659 @@
+package Calc;
+
+import java.util.Arrays;
+
+// --- Operand Model (complex numbers, vectors and dense matrices) ---
+// Double dispatch: add/subtract/multiply/divide dispatch on the left operand, which calls the
+// right operand's addLeft/subtractLeft/multiplyLeft/divideLeft overload for its own type, so
+// every (left, right) pair reaches one concrete method with no instanceof chains.
+// Values live in primitive doubles and double[] arrays; nothing is boxed on the way.
+
+public interface Operand {
+
+    // --- Factory Methods ---
+
+    static Operand real(double value) {
+        return new Complex(value, 0);
+    }
+
+    static Operand complex(double re, double im) {
+        return new Complex(re, im);
+    }
+
+    static Operand vector(double... values) {
+        return new Vector(values.clone());
+    }
+
+    /**
+     * A rows x cols matrix from values in row-major order.
+     */
+    static Operand matrix(int rows, int cols, double... values) {
+        if (values.length != rows * cols) {
+            throw new IllegalArgumentException("Expected " + rows * cols + " values but got " + values.length);
+        }
+        return new Matrix(rows, cols, values.clone());
+    }
+
+    // --- First dispatch (on the left operand) ---
+
+    Operand add(Operand right);
+
+    Operand subtract(Operand right);
+
+    Operand multiply(Operand right);
+
+    Operand divide(Operand right);
+
+    Operand power(int exponent);
+
+    /**
+     * Applies a FunctionNode function by name (neg, √, toRadians, sin, ...).
+     */
+    Operand function(String name);
+
+    String describe();
+
+    // --- Second dispatch (this is the right operand; the left operand's type is known) ---
+
+    default Operand addLeft(Complex left) {
+        throw unsupported(left, "+", this);
+    }
+
+    default Operand addLeft(Vector left) {
+        throw unsupported(left, "+", this);
+    }
+
+    default Operand addLeft(Matrix left) {
+        throw unsupported(left, "+", this);
+    }
+
+    default Operand subtractLeft(Complex left) {
+        throw unsupported(left, "-", this);
+    }
+
+    default Operand subtractLeft(Vector left) {
+        throw unsupported(left, "-", this);
+    }
+
+    default Operand subtractLeft(Matrix left) {
+        throw unsupported(left, "-", this);
+    }
+
+    default Operand multiplyLeft(Complex left) {
+        throw unsupported(left, "*", this);
+    }
+
+    default Operand multiplyLeft(Vector left) {
+        throw unsupported(left, "*", this);
+    }
+
+    default Operand multiplyLeft(Matrix left) {
+        throw unsupported(left, "*", this);
+    }
+
+    default Operand divideLeft(Complex left) {
+        throw unsupported(left, "/", this);
+    }
+
+    default Operand divideLeft(Vector left) {
+        throw unsupported(left, "/", this);
+    }
+
+    default Operand divideLeft(Matrix left) {
+        throw unsupported(left, "/", this);
+    }
+
+    static UnsupportedOperationException unsupported(Operand left, String operator, Operand right) {
+        return new UnsupportedOperationException("Unsupported: " + left.describe() + " " + operator
+                + " " + right.describe());
+    }
+}
+
+// --- Complex number (a real number is a complex number with im == 0) ---
+
+final class Complex implements Operand {
+    static final Complex I = new Complex(0, 1);
+
+    final double re;
+    final double im;
+
+    Complex(double re, double im) {
+        this.re = re;
+        this.im = im;
+    }
+
+    boolean isReal() {
+        return im == 0;
+    }
+
+    /**
+     * The real value, for scaling vectors and matrices, which hold real entries.
+     */
+    double realScalar(Operand other, String operator) {
+        if (!isReal()) {
+            throw new UnsupportedOperationException("Unsupported: complex scalar " + operator + " " + other.describe());
+        }
+        return re;
+    }
+
+    @Override
+    public Operand add(Operand right) {
+        return right.addLeft(this);
+    }
+
+    @Override
+    public Operand subtract(Operand right) {
+        return right.subtractLeft(this);
+    }
+
+    @Override
+    public Operand multiply(Operand right) {
+        return right.multiplyLeft(this);
+    }
+
+    @Override
+    public Operand divide(Operand right) {
+        return right.divideLeft(this);
+    }
+
+    @Override
+    public Operand addLeft(Complex left) {
+        return new Complex(left.re + re, left.im + im);
+    }
+
+    @Override
+    public Operand subtractLeft(Complex left) {
+        return new Complex(left.re - re, left.im - im);
+    }
+
+    @Override
+    public Operand multiplyLeft(Complex left) {
+        return new Complex(left.re * re - left.im * im, left.re * im + left.im * re);
+    }
+
+    @Override
+    public Operand multiplyLeft(Vector left) {
+        return left.scale(realScalar(left, "*"));
+    }
+
+    @Override
+    public Operand multiplyLeft(Matrix left) {
+        return left.scale(realScalar(left, "*"));
+    }
+
+    @Override
+    public Operand divideLeft(Complex left) {
+        if (re == 0 && im == 0) {
+            throw new ArithmeticException("Division by zero");
+        }
+        // Smith's algorithm: scale by the larger component so |c|^2 + |d|^2 cannot overflow
+        if (Math.abs(re) >= Math.abs(im)) {
+            double r = im / re, d = re + im * r;
+            return new Complex((left.re + left.im * r) / d, (left.im - left.re * r) / d);
+        }
+        double r = re / im, d = re * r + im;
+        return new Complex((left.re * r + left.im) / d, (left.im * r - left.re) / d);
+    }
+
+    @Override
+    public Operand divideLeft(Vector left) {
+        return left.scale(1 / nonZero(realScalar(left, "/")));
+    }
+
+    @Override
+    public Operand divideLeft(Matrix left) {
+        return left.scale(1 / nonZero(realScalar(left, "/")));
+    }
+
+    private static double nonZero(double value) {
+        if (value == 0) {
+            throw new ArithmeticException("Division by zero");
+        }
+        return value;
+    }
+
+    @Override
+    public Operand power(int exponent) {
+        if (isReal()) {
+            return new Complex(Math.pow(re, exponent), 0);
+        }
+        Complex result = new Complex(1, 0), base = this;
+        for (long n = Math.abs((long) exponent); n > 0; n >>= 1) {
+            if ((n & 1) != 0) {
+                result = (Complex) base.multiplyLeft(result);
+            }
+            base = (Complex) base.multiplyLeft(base);
+        }
+        return exponent < 0 ? result.divideLeft(new Complex(1, 0)) : result;
+    }
+
+    @Override
+    public Operand function(String name) {
+        if (isReal() && !(name.equals("√") && re < 0)) {
+            // Real arguments keep the double arithmetic of FunctionNode.apply exactly
+            return new Complex(FunctionNode.apply(name, re), 0);
+        }
+        return switch (name) {
+            case "neg" -> new Complex(-re, -im);
+            case "√" -> sqrt();
+            case "toRadians" -> new Complex(Math.toRadians(re), Math.toRadians(im));
+            case "sin" -> sin();
+            case "cos" -> cos();
+            case "tan" -> sin().divide(cos());
+            case "sind", "cosd", "tand" -> ((Complex) function("toRadians")).function(name.substring(0, 3));
+            default -> throw new UnsupportedOperationException("Unsupported: " + name + " of a complex number");
+        };
+    }
+
+    private Complex sqrt() {
+        // Principal root, computed from |z| without cancellation
+        double modulus = Math.hypot(re, im);
+        if (modulus == 0) {
+            return new Complex(0, 0);
+        }
+        double t = Math.sqrt((modulus + Math.abs(re)) / 2);
+        return re >= 0
+                ? new Complex(t, im / (2 * t))
+                : new Complex(Math.abs(im) / (2 * t), Math.copySign(t, im));
+    }
+
+    private Complex sin() {
+        return new Complex(Math.sin(re) * Math.cosh(im), Math.cos(re) * Math.sinh(im));
+    }
+
+    private Complex cos() {
+        return new Complex(Math.cos(re) * Math.cosh(im), -Math.sin(re) * Math.sinh(im));
+    }
+
+    @Override
+    public String describe() {
+        return isReal() ? "scalar" : "complex";
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Complex && ((Complex) o).re == re && ((Complex) o).im == im;
+    }
+
+    @Override
+    public int hashCode() {
+        return Double.hashCode(re) * 31 + Double.hashCode(im);
+    }
+
+    @Override
+    public String toString() {
+        NumberFormatter formatter = new NumberFormatter();
+        if (im == 0) {
+            return formatter.format(re);
+        }
+        String imaginary = (Math.abs(im) == 1 ? "" : formatter.format(Math.abs(im))) + "i";
+        if (re == 0) {
+            return (im < 0 ? "-" : "") + imaginary;
+        }
+        return formatter.format(re) + (im < 0 ? " - " : " + ") + imaginary;
+    }
+}
+
+// --- Real vector ---
+
+final class Vector implements Operand {
+    final double[] values;
+
+    Vector(double[] values) {
+        this.values = values;
+    }
+
+    int length() {
+        return values.length;
+    }
+
+    Vector scale(double factor) {
+        double[] result = new double[values.length];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = values[i] * factor;
+        }
+        return new Vector(result);
+    }
+
+    private void checkLength(Vector other, String operator) {
+        if (other.values.length != values.length) {
+            throw new ArithmeticException("Dimension mismatch: " + other.describe() + " " + operator + " " + describe());
+        }
+    }
+
+    @Override
+    public Operand add(Operand right) {
+        return right.addLeft(this);
+    }
+
+    @Override
+    public Operand subtract(Operand right) {
+        return right.subtractLeft(this);
+    }
+
+    @Override
+    public Operand multiply(Operand right) {
+        return right.multiplyLeft(this);
+    }
+
+    @Override
+    public Operand divide(Operand right) {
+        return right.divideLeft(this);
+    }
+
+    @Override
+    public Operand addLeft(Vector left) {
+        checkLength(left, "+");
+        double[] result = new double[values.length];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = left.values[i] + values[i];
+        }
+        return new Vector(result);
+    }
+
+    @Override
+    public Operand subtractLeft(Vector left) {
+        checkLength(left, "-");
+        double[] result = new double[values.length];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = left.values[i] - values[i];
+        }
+        return new Vector(result);
+    }
+
+    @Override
+    public Operand multiplyLeft(Complex left) {
+        return scale(left.realScalar(this, "*"));
+    }
+
+    /**
+     * Vector * vector is the dot product.
+     */
+    @Override
+    public Operand multiplyLeft(Vector left) {
+        checkLength(left, "*");
+        double sum = 0;
+        for (int i = 0; i < values.length; i++) {
+            sum += left.values[i] * values[i];
+        }
+        return new Complex(sum, 0);
+    }
+
+    /**
+     * Matrix * vector treats the vector as a column.
+     */
+    @Override
+    public Operand multiplyLeft(Matrix left) {
+        if (left.cols != values.length) {
+            throw new ArithmeticException("Dimension mismatch: " + left.describe() + " * " + describe());
+        }
+        double[] result = new double[left.rows];
+        for (int i = 0; i < left.rows; i++) {
+            double sum = 0;
+            for (int k = 0, row = i * left.cols; k < left.cols; k++) {
+                sum += left.values[row + k] * values[k];
+            }
+            result[i] = sum;
+        }
+        return new Vector(result);
+    }
+
+    @Override
+    public Operand power(int exponent) {
+        throw new UnsupportedOperationException("Unsupported: " + describe() + " ^ " + exponent);
+    }
+
+    @Override
+    public Operand function(String name) {
+        if (name.equals("neg")) {
+            return scale(-1);
+        }
+        throw new UnsupportedOperationException("Unsupported: " + name + " of a " + describe());
+    }
+
+    @Override
+    public String describe() {
+        return "vector[" + values.length + "]";
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Vector && Arrays.equals(((Vector) o).values, values);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(values);
+    }
+
+    @Override
+    public String toString() {
+        NumberFormatter formatter = new NumberFormatter();
+        StringBuilder out = new StringBuilder("[");
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                out.append(", ");
+            }
+            formatter.appendTo(out, values[i]);
+        }
+        return out.append(']').toString();
+    }
+}
+
+// --- Dense real matrix (row-major double[]) ---
+
+final class Matrix implements Operand {
+    // Tile edge for the blocked multiply: three 64x64 double tiles fit in a 128K L2 share
+    static final int BLOCK = 64;
+
+    final int rows;
+    final int cols;
+    final double[] values;
+
+    Matrix(int rows, int cols, double[] values) {
+        this.rows = rows;
+        this.cols = cols;
+        this.values = values;
+    }
+
+    static Matrix identity(int n) {
+        double[] values = new double[n * n];
+        for (int i = 0; i < n; i++) {
+            values[i * n + i] = 1;
+        }
+        return new Matrix(n, n, values);
+    }
+
+    Matrix scale(double factor) {
+        double[] result = new double[values.length];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = values[i] * factor;
+        }
+        return new Matrix(rows, cols, result);
+    }
+
+    private void checkShape(Matrix other, String operator) {
+        if (other.rows != rows || other.cols != cols) {
+            throw new ArithmeticException("Dimension mismatch: " + other.describe() + " " + operator + " " + describe());
+        }
+    }
+
+    @Override
+    public Operand add(Operand right) {
+        return right.addLeft(this);
+    }
+
+    @Override
+    public Operand subtract(Operand right) {
+        return right.subtractLeft(this);
+    }
+
+    @Override
+    public Operand multiply(Operand right) {
+        return right.multiplyLeft(this);
+    }
+
+    @Override
+    public Operand divide(Operand right) {
+        return right.divideLeft(this);
+    }
+
+    @Override
+    public Operand addLeft(Matrix left) {
+        checkShape(left, "+");
+        double[] result = new double[values.length];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = left.values[i] + values[i];
+        }
+        return new Matrix(rows, cols, result);
+    }
+
+    @Override
+    public Operand subtractLeft(Matrix left) {
+        checkShape(left, "-");
+        double[] result = new double[values.length];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = left.values[i] - values[i];
+        }
+        return new Matrix(rows, cols, result);
+    }
+
+    @Override
+    public Operand multiplyLeft(Complex left) {
+        return scale(left.realScalar(this, "*"));
+    }
+
+    /**
+     * Vector * matrix treats the vector as a row.
+     */
+    @Override
+    public Operand multiplyLeft(Vector left) {
+        if (left.length() != rows) {
+            throw new ArithmeticException("Dimension mismatch: " + left.describe() + " * " + describe());
+        }
+        double[] result = new double[cols];
+        for (int k = 0; k < rows; k++) {
+            double a = left.values[k];
+            for (int j = 0, row = k * cols; j < cols; j++) {
+                result[j] += a * values[row + j];
+            }
+        }
+        return new Vector(result);
+    }
+
+    @Override
+    public Operand multiplyLeft(Matrix left) {
+        if (left.cols != rows) {
+            throw new ArithmeticException("Dimension mismatch: " + left.describe() + " * " + describe());
+        }
+        double[] result = new double[left.rows * cols];
+        multiply(left.values, values, result, left.rows, rows, cols);
+        return new Matrix(left.rows, cols, result);
+    }
+
+    /**
+     * c += a * b for row-major a (n x m), b (m x p) and c (n x p), tiled so each tile of b is
+     * reused from cache across a whole tile of rows of a. The innermost loop runs along rows of
+     * b and c with unit stride, which the JIT vectorizes.
+     */
+    static void multiply(double[] a, double[] b, double[] c, int n, int m, int p) {
+        for (int i0 = 0; i0 < n; i0 += BLOCK) {
+            int i1 = Math.min(i0 + BLOCK, n);
+            for (int k0 = 0; k0 < m; k0 += BLOCK) {
+                int k1 = Math.min(k0 + BLOCK, m);
+                for (int j0 = 0; j0 < p; j0 += BLOCK) {
+                    int j1 = Math.min(j0 + BLOCK, p);
+                    for (int i = i0; i < i1; i++) {
+                        int ci = i * p;
+                        for (int k = k0; k < k1; k++) {
+                            double aik = a[i * m + k];
+                            int bk = k * p;
+                            for (int j = j0; j < j1; j++) {
+                                c[ci + j] += aik * b[bk + j];
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Straightforward i-j-k product, kept for comparison in Benchmarks.
+     */
+    static void multiplyNaive(double[] a, double[] b, double[] c, int n, int m, int p) {
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < p; j++) {
+                double sum = 0;
+                for (int k = 0; k < m; k++) {
+                    sum += a[i * m + k] * b[k * p + j];
+                }
+                c[i * p + j] = sum;
+            }
+        }
+    }
+
+    @Override
+    public Operand power(int exponent) {
+        if (rows != cols) {
+            throw new ArithmeticException("Dimension mismatch: " + describe() + " ^ " + exponent);
+        }
+        if (exponent < 0) {
+            throw new UnsupportedOperationException("Unsupported: " + describe() + " ^ " + exponent);
+        }
+        Operand result = identity(rows), base = this;
+        for (int n = exponent; n > 0; n >>= 1) {
+            if ((n & 1) != 0) {
+                result = result.multiply(base);
+            }
+            if (n > 1) {
+                base = base.multiply(base);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Operand function(String name) {
+        if (name.equals("neg")) {
+            return scale(-1);
+        }
+        throw new UnsupportedOperationException("Unsupported: " + name + " of a " + describe());
+    }
+
+    @Override
+    public String describe() {
+        return "matrix[" + rows + "x" + cols + "]";
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof Matrix)) {
+            return false;
+        }
+        Matrix other = (Matrix) o;
+        return other.rows == rows && other.cols == cols && Arrays.equals(other.values, values);
+    }
+
+    @Override
+    public int hashCode() {
+        return (rows * 31 + cols) * 31 + Arrays.hashCode(values);
+    }
+
+    @Override
+    public String toString() {
+        NumberFormatter formatter = new NumberFormatter();
+        StringBuilder out = new StringBuilder("[");
+        for (int i = 0; i < rows; i++) {
+            out.append(i > 0 ? ", [" : "[");
+            for (int j = 0; j < cols; j++) {
+                if (j > 0) {
+                    out.append(", ");
+                }
+                formatter.appendTo(out, values[i * cols + j]);
+            }
+            out.append(']');
+        }
+        return out.append(']').toString();
+    }
+}
@@ -0,0 +1,212 @@
+package Calc;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Evaluates expressions over Operand values: complex numbers, vectors and matrices.
+ * The grammar is the OperatorTable grammar of ExpressionParser plus:
+ *   i             the imaginary unit (unless bound as a variable)
+ *   [a, b, c]     a vector of real entries
+ *   [[a, b], [c, d]]  a matrix, one bracketed row per entry
+ * so "(1 + 2i)" is written "1 + 2*i" and "[[1, 2], [3, 4]] * [5, 6]" is a matrix-vector product.
+ * Operators go through BinaryNode.apply and hence the same Operation objects as every other
+ * evaluator; parsed Expression trees can be evaluated too (Visitor).
+ */
+public final class OperandEvaluator implements ExpressionVisitor<Operand> {
+    // Stands in for the operand when a prefix operator's tree builder is applied
+    private static final String PLACEHOLDER = "\0operand";
+
+    private final OperatorTable table;
+    private final Map<String, Operand> bindings;
+    private Operand placeholder;
+
+    public OperandEvaluator() {
+        this(OperatorTable.standard(), Collections.emptyMap());
+    }
+
+    public OperandEvaluator(OperatorTable table, Map<String, Operand> bindings) {
+        this.table = table;
+        this.bindings = bindings;
+    }
+
+    public Operand evaluate(String expression) {
+        return evaluate(new StringReader(expression));
+    }
+
+    public Operand evaluate(Reader expression) {
+        ExpressionTokenizer tokens = new ExpressionTokenizer(expression);
+        try {
+            if (tokens.type == ExpressionTokenizer.Type.END) {
+                throw new IllegalArgumentException("Invalid expression");
+            }
+            Operand result = evaluateExpression(tokens, 0, 0);
+            if (tokens.type != ExpressionTokenizer.Type.END) {
+                throw new IllegalArgumentException("Unexpected " + tokens.text);
+            }
+            return result;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(e.getMessage() + " at offset " + tokens.offset(), e);
+        }
+    }
+
+    public Operand evaluate(Expression expression) {
+        return expression.accept(this);
+    }
+
+    // --- Pratt loop (as in StreamingEvaluator) ---
+
+    private Operand evaluateExpression(ExpressionTokenizer tokens, int minPrecedence, int depth) {
+        if (depth > ExpressionParser.MAX_DEPTH) {
+            throw new IllegalArgumentException("Expression nested too deeply");
+        }
+        Operand left = evaluatePrefix(tokens, depth);
+
+        while (tokens.type == ExpressionTokenizer.Type.SYMBOL) {
+            OperatorTable.InfixOperator operator = table.infix(tokens.symbol);
+            if (operator == null || operator.precedence < minPrecedence) {
+                break;
+            }
+            tokens.advance();
+            int next = operator.associativity == OperatorTable.Associativity.LEFT
+                    ? operator.precedence + 1
+                    : operator.precedence;
+            left = BinaryNode.apply(operator.operator, left, evaluateExpression(tokens, next, depth + 1));
+        }
+        return left;
+    }
+
+    private Operand evaluatePrefix(ExpressionTokenizer tokens, int depth) {
+        String text = tokens.text;
+        switch (tokens.type) {
+            case NUMBER:
+                tokens.advance();
+                return new Complex(NumberFormatter.parseDouble(text), 0);
+            case NAME:
+                if (table.prefix(text) == null) {
+                    tokens.advance();
+                    return visitVariable(new VariableNode(text));
+                }
+                break;
+            case SYMBOL:
+                if (tokens.symbol == 'π') {
+                    tokens.advance();
+                    return new Complex(Math.PI, 0);
+                }
+                if (tokens.symbol == '(') {
+                    tokens.advance();
+                    Operand inner = evaluateExpression(tokens, 0, depth + 1);
+                    expect(tokens, ')');
+                    return inner;
+                }
+                if (tokens.symbol == '[') {
+                    tokens.advance();
+                    return evaluateBrackets(tokens, depth);
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unexpected end of expression");
+        }
+
+        OperatorTable.PrefixOperator operator = table.prefix(text);
+        if (operator == null) {
+            throw new IllegalArgumentException("Unexpected " + text);
+        }
+        tokens.advance();
+        int precedence = tokens.type == ExpressionTokenizer.Type.SYMBOL && tokens.symbol == '('
+                && Character.isLetter(text.charAt(0)) ? Integer.MAX_VALUE : operator.precedence;
+        Operand operand = evaluateExpression(tokens, precedence, depth + 1);
+        // Prefix operators are tree builders; apply one to a placeholder bound to the operand
+        Operand saved = placeholder;
+        placeholder = operand;
+        try {
+            return evaluate(operator.builder.apply(new VariableNode(PLACEHOLDER)));
+        } finally {
+            placeholder = saved;
+        }
+    }
+
+    /**
+     * The entries after '[': real scalars make a vector, equal-length vectors make a matrix.
+     */
+    private Operand evaluateBrackets(ExpressionTokenizer tokens, int depth) {
+        List<Operand> entries = new ArrayList<>();
+        if (!tokens.isSymbol(']')) {
+            entries.add(evaluateExpression(tokens, 0, depth + 1));
+            while (tokens.isSymbol(',')) {
+                tokens.advance();
+                entries.add(evaluateExpression(tokens, 0, depth + 1));
+            }
+        }
+        expect(tokens, ']');
+        if (entries.isEmpty()) {
+            throw new IllegalArgumentException("Empty brackets");
+        }
+
+        if (entries.get(0) instanceof Vector) {
+            int cols = ((Vector) entries.get(0)).length();
+            double[] values = new double[entries.size() * cols];
+            for (int i = 0; i < entries.size(); i++) {
+                if (!(entries.get(i) instanceof Vector) || ((Vector) entries.get(i)).length() != cols) {
+                    throw new IllegalArgumentException("Matrix rows must be vectors of length " + cols);
+                }
+                System.arraycopy(((Vector) entries.get(i)).values, 0, values, i * cols, cols);
+            }
+            return new Matrix(entries.size(), cols, values);
+        }
+        double[] values = new double[entries.size()];
+        for (int i = 0; i < values.length; i++) {
+            Operand entry = entries.get(i);
+            if (!(entry instanceof Complex) || !((Complex) entry).isReal()) {
+                throw new IllegalArgumentException("Vector entries must be real numbers, not " + entry.describe());
+            }
+            values[i] = ((Complex) entry).re;
+        }
+        return new Vector(values);
+    }
+
+    private static void expect(ExpressionTokenizer tokens, char symbol) {
+        if (!tokens.isSymbol(symbol)) {
+            throw new IllegalArgumentException("Missing " + symbol);
+        }
+        tokens.advance();
+    }
+
+    // --- Visitor (Expression trees) ---
+
+    @Override
+    public Operand visitNumber(NumberNode node) {
+        return new Complex(node.doubleValue, 0);
+    }
+
+    @Override
+    public Operand visitVariable(VariableNode node) {
+        if (node.name.equals(PLACEHOLDER)) {
+            return placeholder;
+        }
+        Operand value = bindings.get(node.name);
+        if (value != null) {
+            return value;
+        }
+        return switch (node.name) {
+            case "i" -> Complex.I;
+            case "e" -> new Complex(Math.E, 0);
+            default -> throw new IllegalArgumentException("Unknown variable: " + node.name);
+        };
+    }
+
+    @Override
+    public Operand visitBinary(BinaryNode node) {
+        return BinaryNode.foldLeft(node, this,
+                (n, left) -> BinaryNode.apply(n.operator, left, n.right.accept(this)));
+    }
+
+    @Override
+    public Operand visitFunction(FunctionNode node) {
+        return FunctionNode.apply(node.name, node.argument.accept(this));
+    }
+}
@@ -1,6 +1,7 @@
 package Calc;
 
 import java.math.BigDecimal;
+import java.math.MathContext;
 
 // --- Target/Product Interface ---
 // Used as Factory Product Interface and Adapter Target Interface
@@ -11,10 +12,40 @@ public interface Operation {
         throw new UnsupportedOperationException("Binary operation not supported");
     }
 
+    // Binary operation at full precision (exact, or DECIMAL128 for division)
+    default BigDecimal compute(BigDecimal a, BigDecimal b) {
+        throw new UnsupportedOperationException("Exact binary operation not supported");
+    }
+
     // Unary operation (one operand)
     default BigDecimal compute(BigDecimal a) {
         throw new UnsupportedOperationException("Unary operation not supported");
     }
+
+    // Binary operation in interval mode (bounds on the exact result)
+    default Interval compute(Interval a, Interval b) {
+        throw new UnsupportedOperationException("Interval binary operation not supported");
+    }
+
+    // Unary operation in interval mode
+    default Interval compute(Interval a) {
+        throw new UnsupportedOperationException("Interval unary operation not supported");
+    }
+
+    // Binary operation in exact rational mode
+    default Rational compute(Rational a, Rational b) {
+        throw new UnsupportedOperationException("Rational binary operation not supported");
+    }
+
+    // Unary operation in exact rational mode; IrrationalException when the result is irrational
+    default Rational compute(Rational a) {
+        throw new UnsupportedOperationException("Rational unary operation not supported");
+    }
+
+    // Binary operation on complex numbers, vectors and matrices (double dispatch in Operand)
+    default Operand compute(Operand a, Operand b) {
+        throw new UnsupportedOperationException("Operand binary operation not supported");
+    }
 }
 
 // --- Concrete Products (Binary Operations) ---
@@ -25,6 +56,26 @@ class AddOperation implements Operation {
     public float compute(float a, float b) {
         return a + b;
     }
+
+    @Override
+    public BigDecimal compute(BigDecimal a, BigDecimal b) {
+        return a.add(b);
+    }
+
+    @Override
+    public Interval compute(Interval a, Interval b) {
+        return a.add(b);
+    }
+
+    @Override
+    public Rational compute(Rational a, Rational b) {
+        return a.add(b);
+    }
+
+    @Override
+    public Operand compute(Operand a, Operand b) {
+        return a.add(b);
+    }
 }
 
 class SubtractOperation implements Operation {
@@ -32,6 +83,26 @@ class SubtractOperation implements Operation {
     public float compute(float a, float b) {
         return a - b;
     }
+
+    @Override
+    public BigDecimal compute(BigDecimal a, BigDecimal b) {
+        return a.subtract(b);
+    }
+
+    @Override
+    public Interval compute(Interval a, Interval b) {
+        return a.subtract(b);
+    }
+
+    @Override
+    public Rational compute(Rational a, Rational b) {
+        return a.subtract(b);
+    }
+
+    @Override
+    public Operand compute(Operand a, Operand b) {
+        return a.subtract(b);
+    }
 }
 
 class MultiplyOperation implements Operation {
@@ -39,6 +110,26 @@ class MultiplyOperation implements Operation {
     public float compute(float a, float b) {
         return a * b;
     }
+
+    @Override
+    public BigDecimal compute(BigDecimal a, BigDecimal b) {
+        return BigArithmetic.multiply(a, b);
+    }
+
+    @Override
+    public Interval compute(Interval a, Interval b) {
+        return a.multiply(b);
+    }
+
+    @Override
+    public Rational compute(Rational a, Rational b) {
+        return a.multiply(b);
+    }
+
+    @Override
+    public Operand compute(Operand a, Operand b) {
+        return a.multiply(b);
+    }
 }
 
 class DivideOperation implements Operation {
@@ -48,7 +139,61 @@ class DivideOperation implements Operation {
             throw new ArithmeticException("Division by zero");
         return a / b;
     }
+
+    @Override
+    public BigDecimal compute(BigDecimal a, BigDecimal b) {
+        if (b.signum() == 0)
+            throw new ArithmeticException("Division by zero");
+        return a.divide(b, MathContext.DECIMAL128);
+    }
+
+    @Override
+    public Interval compute(Interval a, Interval b) {
+        return a.divide(b);
+    }
+
+    @Override
+    public Rational compute(Rational a, Rational b) {
+        return a.divide(b);
+    }
+
+    @Override
+    public Operand compute(Operand a, Operand b) {
+        return a.divide(b);
+    }
+}
+class PowerOperation implements Operation {
+    @Override
+    public float compute(float a, float b) {
+        return (float) Math.pow(a, (int) b);
+    }
+
+    @Override
+    public BigDecimal compute(BigDecimal a, BigDecimal b) {
+        int exponent = b.intValue();
+        return exponent >= 0 ? BigArithmetic.pow(a, exponent) : a.pow(exponent, MathContext.DECIMAL128);
+    }
+
+    @Override
+    public Interval compute(Interval a, Interval b) {
+        return a.pow(b);
+    }
+
+    @Override
+    public Rational compute(Rational a, Rational b) {
+        return a.pow(b);
+    }
+
+    // The exponent must be a real number; like the float path it is truncated to an int
+    @Override
+    public Operand compute(Operand a, Operand b) {
+        if (!(b instanceof Complex) || !((Complex) b).isReal()) {
+            throw new UnsupportedOperationException("Unsupported: " + a.describe() + " ^ " + b.describe());
+        }
+        return a.power((int) ((Complex) b).re);
+    }
 }
+
 // --- Single Adapter (Unary Operations) ---
 
 class UniversalUnaryAdapter implements Operation {
@@ -73,7 +218,97 @@ class UniversalUnaryAdapter implements Operation {
             case "√" -> calculatorAppAdaptee.sqrt(a);
             case "sin" -> calculatorAppAdaptee.sin(calculatorAppAdaptee.toRadians(a));
             case "cos" -> calculatorAppAdaptee.cos(calculatorAppAdaptee.toRadians(a));
+            case "tan" -> calculatorAppAdaptee.tan(calculatorAppAdaptee.toRadians(a));
+            default -> throw new UnsupportedOperationException("Unknown unary operation: " + opType);
+        };
+    }
+
+    // Interval mode needs no adaptee: the bounds are computed by Interval itself
+    @Override
+    public Interval compute(Interval a) {
+        return IntervalUnaryOperation.apply(opType, a);
+    }
+
+    // Exact mode needs no adaptee either; trig takes degrees, as in compute(BigDecimal)
+    @Override
+    public Rational compute(Rational a) {
+        return switch (opType) {
+            case "√" -> a.sqrt();
+            case "sin" -> a.sinDegrees();
+            case "cos" -> a.cosDegrees();
+            case "tan" -> a.tanDegrees();
+            default -> throw new UnsupportedOperationException("Unknown unary operation: " + opType);
+        };
+    }
+} 
+
+// --- Interval Mode (bounds only, no adaptee) ---
+
+class IntervalUnaryOperation implements Operation {
+    private final String opType;
+
+    public IntervalUnaryOperation(String operationType) {
+        this.opType = operationType;
+    }
+
+    @Override
+    public Interval compute(Interval a) {
+        return apply(opType, a);
+    }
+
+    // Trig takes degrees, as in UniversalUnaryAdapter.compute(BigDecimal)
+    static Interval apply(String opType, Interval a) {
+        return switch (opType) {
+            case "√" -> a.sqrt();
+            case "sin" -> a.toRadians().sin();
+            case "cos" -> a.toRadians().cos();
+            case "tan" -> a.toRadians().tan();
             default -> throw new UnsupportedOperationException("Unknown unary operation: " + opType);
         };
     }
-} 
\ No newline at end of file
+}
+
+// --- Fast Trig Mode (degree-based, no adaptee round trip) ---
+
+class FastTrigOperation implements Operation {
+    private final String opType;
+
+    public FastTrigOperation(String operationType) {
+        this.opType = operationType;
+    }
+
+    @Override
+    public BigDecimal compute(BigDecimal a) {
+        double degrees = FastTrig.toReducedDegrees(a);
+        double result = switch (opType) {
+            case "sin" -> FastTrig.sin(degrees);
+            case "cos" -> FastTrig.cos(degrees);
+            case "tan" -> FastTrig.tan(degrees);
+            default -> throw new UnsupportedOperationException("Unknown trig operation: " + opType);
+        };
+        if (Double.isInfinite(result)) {
+            throw new ArithmeticException(opType + " is undefined at " + a.toPlainString() + "°");
+        }
+        return BigDecimal.valueOf(result);
+    }
+
+    @Override
+    public Interval compute(Interval a) {
+        return switch (opType) {
+            case "sin" -> a.toRadians().sin();
+            case "cos" -> a.toRadians().cos();
+            case "tan" -> a.toRadians().tan();
+            default -> throw new UnsupportedOperationException("Unknown trig operation: " + opType);
+        };
+    }
+
+    @Override
+    public Rational compute(Rational a) {
+        return switch (opType) {
+            case "sin" -> a.sinDegrees();
+            case "cos" -> a.cosDegrees();
+            case "tan" -> a.tanDegrees();
+            default -> throw new UnsupportedOperationException("Unknown trig operation: " + opType);
+        };
+    }
+}
@@ -0,0 +1,110 @@
+package Calc;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * Declarative precedence and associativity table driving the ExpressionParser.
+ * Higher precedence binds tighter. New symbols can be registered as long as they
+ * map onto an operator or function the expression tree knows how to evaluate.
+ */
+public final class OperatorTable {
+
+    public enum Associativity {
+        LEFT, RIGHT
+    }
+
+    static final class InfixOperator {
+        final char operator;
+        final int precedence;
+        final Associativity associativity;
+
+        InfixOperator(char operator, int precedence, Associativity associativity) {
+            this.operator = operator;
+            this.precedence = precedence;
+            this.associativity = associativity;
+        }
+    }
+
+    static final class PrefixOperator {
+        final int precedence;
+        final UnaryOperator<Expression> builder;
+
+        PrefixOperator(int precedence, UnaryOperator<Expression> builder) {
+            this.precedence = precedence;
+            this.builder = builder;
+        }
+    }
+
+    public static final int ADDITIVE = 10;
+    public static final int MULTIPLICATIVE = 20;
+    public static final int PREFIX = 30;
+    public static final int POWER = 40;
+
+    private final Map<Character, InfixOperator> infix = new HashMap<>();
+    private final Map<String, PrefixOperator> prefix = new HashMap<>();
+    private boolean units;
+
+    /**
+     * The grammar of CalculatorApp.evaluateExpression: + - * / ^, unary minus and plus,
+     * √ and the degree-based sin, cos and tan. × and ÷ are accepted as well, since those
+     * are the symbols the Calculator's Operation factory uses.
+     */
+    public static OperatorTable standard() {
+        return new OperatorTable()
+                .infix('+', '+', ADDITIVE, Associativity.LEFT)
+                .infix('-', '-', ADDITIVE, Associativity.LEFT)
+                .infix('*', '*', MULTIPLICATIVE, Associativity.LEFT)
+                .infix('×', '*', MULTIPLICATIVE, Associativity.LEFT)
+                .infix('/', '/', MULTIPLICATIVE, Associativity.LEFT)
+                .infix('÷', '/', MULTIPLICATIVE, Associativity.LEFT)
+                .infix('^', '^', POWER, Associativity.RIGHT)
+                .prefix("-", PREFIX, operand -> new FunctionNode("neg", operand))
+                .prefix("+", PREFIX, operand -> operand)
+                .prefix("√", PREFIX, operand -> new FunctionNode("√", operand))
+                // Plain numbers are angles in degrees: the ° unit's conversion, toRadians
+                .prefix("sin", PREFIX, operand -> new FunctionNode("sin", Unit.DEGREE.toBase(operand)))
+                .prefix("cos", PREFIX, operand -> new FunctionNode("cos", Unit.DEGREE.toBase(operand)))
+                .prefix("tan", PREFIX, operand -> new FunctionNode("tan", Unit.DEGREE.toBase(operand)));
+    }
+
+    /**
+     * The standard grammar plus units: a number or parenthesis followed by unit names is
+     * a quantity (3 km, 9.81 m/s^2, (1 + 2) h, 30°), unit names alone are one of that unit
+     * (km/h), and "in unit" converts the result. UnitExpression checks and resolves them.
+     */
+    public static OperatorTable withUnits() {
+        OperatorTable table = standard();
+        table.units = true;
+        return table;
+    }
+
+    /**
+     * Registers a binary operator symbol evaluated as the tree operator (one of + - * / ^).
+     */
+    public OperatorTable infix(char symbol, char operator, int precedence, Associativity associativity) {
+        infix.put(symbol, new InfixOperator(operator, precedence, associativity));
+        return this;
+    }
+
+    /**
+     * Registers a prefix symbol or function name; the builder wraps the parsed operand.
+     */
+    public OperatorTable prefix(String symbol, int precedence, UnaryOperator<Expression> builder) {
+        prefix.put(symbol, new PrefixOperator(precedence, builder));
+        return this;
+    }
+
+    InfixOperator infix(char symbol) {
+        return infix.get(symbol);
+    }
+
+    PrefixOperator prefix(String symbol) {
+        return prefix.get(symbol);
+    }
+
+    boolean hasUnits() {
+        return units;
+    }
+}
@@ -0,0 +1,272 @@
+package Calc;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Samples f(x) over a range for plotting and renders the samples into a BufferedImage.
+ * Points are evaluated in batches through a ColumnarEvaluator, so each pass is a set of tight
+ * array loops spread over all cores. Sampling starts from a uniform grid and then refines
+ * adaptively: an interval whose midpoint strays from the chord between its ends (high
+ * curvature, a jump or a pole) gets its midpoint inserted, for a few rounds, so points are
+ * dense where the curve bends and sparse where it is straight. The total stays within
+ * MAX_POINTS, so a noisy function cannot double the arrays round after round.
+ * Neither sampling nor rendering touches Swing, so both run off the event dispatch thread.
+ */
+public final class PlotSampler {
+    public static final int DEFAULT_REFINEMENTS = 6;
+    public static final int MAX_POINTS = 2_000_000;
+
+    // Fraction of the visible y-range a midpoint may deviate from the chord before refining
+    private static final double FLATNESS = 1e-3;
+
+    private static final int BACKGROUND = 0xFF15141C, AXIS = 0xFF49454E, CURVE = 0xFFFF4B4B;
+
+    private final ColumnarEvaluator evaluator;
+
+    /**
+     * Sorted sample points; y is NaN where f is undefined.
+     */
+    public static final class Samples {
+        public final double[] x;
+        public final double[] y;
+
+        Samples(double[] x, double[] y) {
+            this.x = x;
+            this.y = y;
+        }
+
+        public int size() {
+            return x.length;
+        }
+    }
+
+    public PlotSampler(CompiledExpression program) {
+        if (program.variables.length != 1) {
+            throw new IllegalArgumentException("Expected a function of one variable but got "
+                    + program.getVariables());
+        }
+        this.evaluator = new ColumnarEvaluator(program);
+    }
+
+    public static PlotSampler of(String expression) {
+        Expression parsed = new ExpressionOptimizer().optimize(new ExpressionParser().parse(expression));
+        return new PlotSampler(CompiledExpression.compile(parsed, List.of("x")));
+    }
+
+    // --- Sampling ---
+
+    public Samples sample(double from, double to, int points) {
+        return sample(from, to, points, DEFAULT_REFINEMENTS);
+    }
+
+    public Samples sample(double from, double to, int points, int refinements) {
+        if (!(from < to) || points < 2 || points > MAX_POINTS) {
+            throw new IllegalArgumentException("Need from < to and 2 to " + MAX_POINTS + " points");
+        }
+        double[] grid = new double[points];
+        double step = (to - from) / (points - 1);
+        IntStream.range(0, points).parallel().forEach(i -> grid[i] = from + i * step);
+        grid[points - 1] = to;
+        double[] x = grid, y = evaluate(grid, points);
+
+        for (int round = 0; round < refinements; round++) {
+            double scale = visibleRange(y) * FLATNESS;
+            int[] refine = findCurvedIntervals(x, y, scale);
+            int budget = MAX_POINTS - x.length;
+            if (refine.length == 0 || budget == 0) {
+                break;
+            }
+            if (refine.length > budget) {
+                refine = spread(refine, budget);
+            }
+            double[] mx = new double[refine.length];
+            for (int i = 0; i < refine.length; i++) {
+                mx[i] = 0.5 * (x[refine[i]] + x[refine[i] + 1]);
+            }
+            double[] my = evaluate(mx, mx.length);
+
+            // Merge the midpoints in after their left ends; both lists are already in order
+            double[] nx = new double[x.length + mx.length], ny = new double[nx.length];
+            int j = 0, k = 0;
+            for (int i = 0; i < x.length; i++) {
+                nx[k] = x[i];
+                ny[k++] = y[i];
+                if (j < refine.length && refine[j] == i) {
+                    nx[k] = mx[j];
+                    ny[k++] = my[j++];
+                }
+            }
+            x = nx;
+            y = ny;
+        }
+        return new Samples(x, y);
+    }
+
+    // An evenly spaced subset, so a partial last round still covers the whole range
+    private static int[] spread(int[] indices, int count) {
+        int[] result = new int[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = indices[(int) ((long) i * indices.length / count)];
+        }
+        return result;
+    }
+
+    private double[] evaluate(double[] x, int count) {
+        return evaluator.evaluate(new double[][] {x}, count);
+    }
+
+    /**
+     * Left indices of intervals whose midpoint, estimated from the neighbouring samples,
+     * deviates from the chord by more than the threshold; intervals touching an undefined
+     * value are refined too, to pin down where the function breaks off.
+     */
+    private static int[] findCurvedIntervals(double[] x, double[] y, double threshold) {
+        int n = x.length;
+        boolean[] marked = new boolean[n];
+        IntStream.range(1, n - 1).parallel().forEach(i -> {
+            double a = y[i - 1], b = y[i], c = y[i + 1];
+            if (Double.isFinite(a) != Double.isFinite(c) || Double.isFinite(b) != Double.isFinite(a)) {
+                marked[i - 1] = true;
+                marked[i] = true;
+                return;
+            }
+            // Deviation of the middle sample from the chord through its neighbours
+            double t = (x[i] - x[i - 1]) / (x[i + 1] - x[i - 1]);
+            double deviation = Math.abs(b - (a + t * (c - a)));
+            if (deviation > threshold) {
+                marked[i - 1] = true;
+                marked[i] = true;
+            }
+        });
+        int count = 0;
+        for (int i = 0; i < n - 1; i++) {
+            // Stop refining once neighbouring points are no longer distinct doubles
+            if (marked[i] && 0.5 * (x[i] + x[i + 1]) > x[i] && 0.5 * (x[i] + x[i + 1]) < x[i + 1]) {
+                count++;
+            } else {
+                marked[i] = false;
+            }
+        }
+        int[] result = new int[count];
+        for (int i = 0, k = 0; i < n - 1; i++) {
+            if (marked[i]) {
+                result[k++] = i;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Spread of the finite samples between the 1st and 99th percentile, so a pole does not
+     * flatten the rest of the curve; falls back to 1 for constant or empty data.
+     */
+    static double visibleRange(double[] y) {
+        double[] lohi = visibleBounds(y);
+        double range = lohi[1] - lohi[0];
+        return range > 0 && Double.isFinite(range) ? range : 1;
+    }
+
+    private static double[] visibleBounds(double[] y) {
+        int stride = Math.max(1, y.length / 4096);
+        double[] picked = new double[(y.length + stride - 1) / stride];
+        int n = 0;
+        for (int i = 0; i < y.length; i += stride) {
+            if (Double.isFinite(y[i])) {
+                picked[n++] = y[i];
+            }
+        }
+        if (n == 0) {
+            return new double[] {-1, 1};
+        }
+        Arrays.sort(picked, 0, n);
+        return new double[] {picked[(int) (0.01 * (n - 1))], picked[(int) Math.ceil(0.99 * (n - 1))]};
+    }
+
+    // --- Rendering ---
+
+    /**
+     * Draws the samples as a min/max envelope per pixel column, joined to the neighbouring
+     * columns, so a million samples cost one pass and never more than one vertical run per
+     * column. Columns are computed in parallel and written straight into the raster.
+     */
+    public static BufferedImage render(Samples samples, int width, int height) {
+        double[] x = samples.x, y = samples.y;
+        double x0 = x[0], x1 = x[x.length - 1];
+        double[] bounds = visibleBounds(y);
+        double pad = 0.05 * Math.max(bounds[1] - bounds[0], 1e-12);
+        double y0 = bounds[0] - pad, y1 = bounds[1] + pad;
+
+        // Column c covers samples [start[c], start[c + 1])
+        int[] start = new int[width + 1];
+        for (int c = 0, i = 0; c <= width; c++) {
+            double edge = x0 + (x1 - x0) * c / width;
+            while (i < x.length && (x[i] < edge || c == width)) {
+                i++;
+            }
+            start[c] = i;
+        }
+
+        int[] low = new int[width], high = new int[width];
+        IntStream.range(0, width).parallel().forEach(c -> {
+            double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+            for (int i = start[c]; i < start[c + 1]; i++) {
+                if (Double.isFinite(y[i])) {
+                    min = Math.min(min, y[i]);
+                    max = Math.max(max, y[i]);
+                }
+            }
+            if (min > max) {
+                low[c] = Integer.MAX_VALUE;
+                high[c] = Integer.MIN_VALUE;
+            } else {
+                low[c] = row(max, y0, y1, height);
+                high[c] = row(min, y0, y1, height);
+            }
+        });
+
+        int[] pixels = new int[width * height];
+        Arrays.fill(pixels, BACKGROUND);
+        int axisRow = row(0, y0, y1, height);
+        if (axisRow >= 0 && axisRow < height) {
+            Arrays.fill(pixels, axisRow * width, (axisRow + 1) * width, AXIS);
+        }
+        if (x0 < 0 && x1 > 0) {
+            int axisColumn = (int) (-x0 / (x1 - x0) * (width - 1));
+            for (int r = 0; r < height; r++) {
+                pixels[r * width + axisColumn] = AXIS;
+            }
+        }
+
+        IntStream.range(0, width).parallel().forEach(c -> {
+            if (low[c] > high[c]) {
+                return;
+            }
+            int top = low[c], bottom = high[c];
+            // Join to the neighbouring column so steep segments stay connected, but not
+            // across a gap where the function is undefined or a pole where it flips sides
+            boolean pole = c > 0 && (high[c - 1] >= height && low[c] < 0 || low[c - 1] < 0 && high[c] >= height);
+            if (c > 0 && low[c - 1] <= high[c - 1] && !pole) {
+                top = Math.min(top, (low[c - 1] + low[c]) / 2);
+                bottom = Math.max(bottom, (high[c - 1] + high[c]) / 2);
+            }
+            top = Math.max(top, 0);
+            bottom = Math.min(bottom, height - 1);
+            for (int r = top; r <= bottom; r++) {
+                pixels[r * width + c] = CURVE;
+            }
+        });
+
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        image.setRGB(0, 0, width, height, pixels, 0, width);
+        return image;
+    }
+
+    private static int row(double value, double y0, double y1, int height) {
+        double r = (y1 - value) / (y1 - y0) * (height - 1);
+        // Clamp far outside values so they still draw as a line to the edge
+        return (int) Math.max(-1, Math.min(height, Math.round(r)));
+    }
+}
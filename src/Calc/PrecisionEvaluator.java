@@ -0,0 +1,413 @@
+package Calc;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Adaptive-precision BigDecimal evaluation of a parsed Expression.
+ *
+ * Every sub-expression starts at a cheap precision (16 digits) and carries a rigorous bound on
+ * its absolute error: its own rounding error plus the error propagated from each operand. When
+ * the result misses the requested number of digits, only the sub-expression contributing most
+ * of the error is re-evaluated at the next precision level (16, 32, 64, ... digits), and the
+ * loop repeats until the bound is met. Unlike the fixed DECIMAL128 arithmetic of
+ * CalculatorApp, √, sin, cos and tan are computed to the working precision as well.
+ *
+ * Literals and bound variables are taken as exact; π and e in the input are the double
+ * constants the parser produces, while toRadians uses π to full working precision.
+ */
+public class PrecisionEvaluator {
+    public static final int START_PRECISION = 16;
+    public static final int DEFAULT_MAX_LEVEL = 6; // 16 << 6 = 1024 digits
+
+    // Error bounds are small numbers rounded away from zero, so they stay conservative
+    private static final MathContext ERR = new MathContext(6, RoundingMode.UP);
+    private static final BigDecimal UNBOUNDED = BigDecimal.ONE.scaleByPowerOfTen(999_999);
+    private static final BigDecimal DEGREE = new BigDecimal("0.0174533"); // > π/180
+
+    private static volatile BigDecimal cachedPi = BigDecimal.ZERO;
+
+    private final Map<String, BigDecimal> bindings;
+    private final int maxLevel;
+
+    private final AtomicLong evaluations = new AtomicLong();
+    private final AtomicLong escalatedEvaluations = new AtomicLong();
+    private final AtomicLongArray escalationsPerLevel;
+
+    public PrecisionEvaluator() {
+        this(Collections.emptyMap());
+    }
+
+    public PrecisionEvaluator(Map<String, BigDecimal> bindings) {
+        this(bindings, DEFAULT_MAX_LEVEL);
+    }
+
+    public PrecisionEvaluator(Map<String, BigDecimal> bindings, int maxLevel) {
+        this.bindings = bindings;
+        this.maxLevel = maxLevel;
+        this.escalationsPerLevel = new AtomicLongArray(maxLevel + 1);
+    }
+
+    /**
+     * Evaluates to the requested number of correct significant digits; for results smaller
+     * than 1 the guarantee is an absolute error below 10^-digits.
+     *
+     * @throws ArithmeticException if the error cannot be brought within bounds at the maximum level,
+     *         e.g. for tan(90), which is a pole
+     */
+    public BigDecimal evaluate(Expression expression, int digits) {
+        // The error tree recurses through every node, chains included
+        if (expression.height() > ExpressionParser.MAX_DEPTH) {
+            throw new IllegalArgumentException("Expression too long for adaptive precision");
+        }
+        evaluations.incrementAndGet();
+        Term root = new Term(expression);
+        boolean escalated = false;
+
+        while (root.error.compareTo(tolerance(root.value, digits)) > 0) {
+            if (!root.refine()) {
+                throw new ArithmeticException("Cannot guarantee " + digits + " digits");
+            }
+            escalated = true;
+        }
+        if (escalated) {
+            escalatedEvaluations.incrementAndGet();
+        }
+        return root.value;
+    }
+
+    // --- Counters ---
+
+    public long getEvaluationCount() {
+        return evaluations.get();
+    }
+
+    public long getEscalatedEvaluationCount() {
+        return escalatedEvaluations.get();
+    }
+
+    /**
+     * Number of times a sub-expression was raised to the given level (index 0 is never used).
+     */
+    public long getEscalationCount(int level) {
+        return escalationsPerLevel.get(level);
+    }
+
+    public int getMaxLevel() {
+        return maxLevel;
+    }
+
+    public static int precisionOf(int level) {
+        return START_PRECISION << level;
+    }
+
+    private static BigDecimal tolerance(BigDecimal value, int digits) {
+        BigDecimal magnitude = value.abs().max(BigDecimal.ONE);
+        return magnitude.scaleByPowerOfTen(-digits).round(ERR);
+    }
+
+    // --- Evaluation tree with error bounds ---
+
+    private final class Term {
+        final Expression node;
+        final Term[] children;
+        int level;
+        BigDecimal value;
+        BigDecimal error;          // bound on |value - exact|
+        BigDecimal local;          // rounding error introduced at this node
+        BigDecimal[] contributions; // error propagated from each child
+
+        Term(Expression node) {
+            this.node = node;
+            if (node instanceof BinaryNode) {
+                children = new Term[] {new Term(((BinaryNode) node).left), new Term(((BinaryNode) node).right)};
+            } else if (node instanceof FunctionNode) {
+                children = new Term[] {new Term(((FunctionNode) node).argument)};
+            } else {
+                children = new Term[0];
+            }
+            compute();
+        }
+
+        /**
+         * Improves the error bound, either by refining the child that contributes most or by
+         * raising this node's own precision. Returns false when nothing can be improved.
+         */
+        boolean refine() {
+            int worst = -1;
+            BigDecimal largest = local;
+            for (int i = 0; i < children.length; i++) {
+                if (contributions[i].compareTo(largest) > 0) {
+                    worst = i;
+                    largest = contributions[i];
+                }
+            }
+            boolean improved = worst >= 0 && children[worst].refine();
+            if (!improved && level < maxLevel && local.signum() > 0) {
+                level++;
+                escalationsPerLevel.incrementAndGet(level);
+                improved = true;
+            }
+            if (improved) {
+                compute();
+            }
+            return improved;
+        }
+
+        private void compute() {
+            MathContext mc = new MathContext(precisionOf(level), RoundingMode.HALF_EVEN);
+            contributions = new BigDecimal[children.length];
+            local = BigDecimal.ZERO;
+
+            if (node instanceof NumberNode) {
+                value = ((NumberNode) node).value;
+            } else if (node instanceof VariableNode) {
+                value = bindings.get(((VariableNode) node).name);
+                if (value == null) {
+                    throw new IllegalArgumentException("Unknown variable: " + ((VariableNode) node).name);
+                }
+            } else if (node instanceof BinaryNode) {
+                computeBinary(((BinaryNode) node).operator, mc);
+            } else {
+                computeFunction(((FunctionNode) node).name, mc);
+            }
+
+            error = local;
+            for (BigDecimal contribution : contributions) {
+                error = error.add(contribution, ERR);
+            }
+            error = error.min(UNBOUNDED);
+        }
+
+        private void computeBinary(char operator, MathContext mc) {
+            BigDecimal a = children[0].value, b = children[1].value;
+            BigDecimal ea = children[0].error, eb = children[1].error;
+
+            switch (operator) {
+                case '+', '-' -> {
+                    value = operator == '+' ? a.add(b, mc) : a.subtract(b, mc);
+                    contributions[0] = ea;
+                    contributions[1] = eb;
+                    local = halfUlp(value, mc);
+                }
+                case '*' -> {
+                    value = a.multiply(b, mc);
+                    contributions[0] = ea.signum() == 0 ? BigDecimal.ZERO : b.abs().add(eb).multiply(ea, ERR);
+                    contributions[1] = eb.signum() == 0 ? BigDecimal.ZERO : a.abs().multiply(eb, ERR);
+                    // Short operands multiply exactly
+                    local = a.precision() + b.precision() <= mc.getPrecision() ? BigDecimal.ZERO : halfUlp(value, mc);
+                }
+                case '/' -> {
+                    if (b.signum() == 0) {
+                        throw new ArithmeticException("Division by zero");
+                    }
+                    value = a.divide(b, mc);
+                    local = halfUlp(value, mc);
+                    if (ea.signum() == 0 && eb.signum() == 0) {
+                        contributions[0] = BigDecimal.ZERO;
+                        contributions[1] = BigDecimal.ZERO;
+                        return;
+                    }
+                    BigDecimal margin = b.abs().subtract(eb);
+                    if (margin.signum() <= 0) {
+                        contributions[0] = UNBOUNDED;
+                        contributions[1] = UNBOUNDED;
+                    } else {
+                        contributions[0] = ea.divide(margin, ERR);
+                        // |a/b - A/B| <= |a - A| / |B| + |A| |b - B| / (|b| |B|)
+                        contributions[1] = a.abs().add(ea).multiply(eb, ERR)
+                                .divide(b.abs().multiply(margin, ERR), ERR);
+                    }
+                }
+                default -> { // '^' with the exponent truncated to an int
+                    int n = b.intValue();
+                    boolean exponentKnown = eb.signum() == 0
+                            || (b.subtract(eb).intValue() == n && b.add(eb).intValue() == n);
+                    contributions[1] = exponentKnown ? BigDecimal.ZERO : UNBOUNDED;
+                    if (n == 0) {
+                        value = BigDecimal.ONE;
+                        contributions[0] = BigDecimal.ZERO;
+                        return;
+                    }
+                    if (n > 0 && (long) a.precision() * n <= mc.getPrecision()) {
+                        value = a.pow(n); // exact
+                    } else {
+                        value = a.pow(n, mc);
+                        local = ulp(value, mc).multiply(BigDecimal.valueOf(2)); // pow is within two ulps
+                    }
+                    // |d/da a^n| = |n| |a|^(n-1), bounded over [a - ea, a + ea]
+                    BigDecimal base = n > 0 ? a.abs().add(ea) : a.abs().subtract(ea);
+                    if (ea.signum() == 0) {
+                        contributions[0] = BigDecimal.ZERO;
+                    } else if (base.signum() <= 0) {
+                        contributions[0] = UNBOUNDED;
+                    } else {
+                        contributions[0] = BigDecimal.valueOf(Math.abs((long) n))
+                                .multiply(base.pow(n - 1, ERR), ERR).multiply(ea, ERR);
+                    }
+                }
+            }
+        }
+
+        private void computeFunction(String name, MathContext mc) {
+            BigDecimal a = children[0].value, ea = children[0].error;
+            switch (name) {
+                case "neg" -> {
+                    value = a.negate();
+                    contributions[0] = ea;
+                }
+                case "√" -> {
+                    value = a.sqrt(mc);
+                    local = ulp(value, mc); // BigDecimal.sqrt is within one ulp
+                    // |√x - √y| <= |x - y| / √(a - ea), and always <= √|x - y|
+                    if (ea.signum() == 0) {
+                        contributions[0] = BigDecimal.ZERO;
+                        return;
+                    }
+                    BigDecimal bound = ea.sqrt(ERR).round(ERR);
+                    BigDecimal low = a.subtract(ea);
+                    if (low.signum() > 0) {
+                        bound = bound.min(ea.divide(low.sqrt(new MathContext(6, RoundingMode.DOWN)), ERR));
+                    }
+                    contributions[0] = bound;
+                }
+                case "toRadians" -> {
+                    int w = mc.getPrecision() + 5;
+                    value = a.multiply(pi(w)).divide(BigDecimal.valueOf(180), mc);
+                    local = ulp(value, mc);
+                    contributions[0] = ea.multiply(DEGREE, ERR);
+                }
+                case "sin", "cos", "tan", "sind", "cosd", "tand" -> {
+                    boolean degrees = name.endsWith("d");
+                    BigDecimal argumentError = degrees ? ea.multiply(DEGREE, ERR) : ea;
+                    BigDecimal radians = a;
+                    int w = mc.getPrecision() + integerDigits(a) + 10;
+                    BigDecimal conversionError = BigDecimal.ZERO;
+                    if (degrees) {
+                        MathContext wide = new MathContext(w);
+                        radians = a.multiply(pi(w + 5)).divide(BigDecimal.valueOf(180), wide);
+                        conversionError = ulp(radians, wide);
+                    }
+                    trig(name.substring(0, 3), radians, argumentError.add(conversionError, ERR), mc, w);
+                }
+                default -> throw new IllegalArgumentException("Unknown function: " + name);
+            }
+        }
+
+        /**
+         * sin, cos or tan of an angle in radians, computed at w digits and rounded to mc.
+         */
+        private void trig(String name, BigDecimal radians, BigDecimal argumentError, MathContext mc, int w) {
+            MathContext wide = new MathContext(w);
+            BigDecimal seriesError = BigDecimal.ONE.scaleByPowerOfTen(8 - w); // reduction + series rounding
+
+            if (name.equals("tan")) {
+                BigDecimal s = series(radians, false, wide), c = series(radians, true, wide);
+                BigDecimal margin = c.abs().subtract(seriesError);
+                if (margin.signum() <= 0) {
+                    // Too close to a pole at this precision: refine by raising the level
+                    value = s.signum() == 0 ? BigDecimal.ZERO : s.divide(c.signum() == 0 ? seriesError : c, mc);
+                    local = UNBOUNDED;
+                    contributions[0] = UNBOUNDED;
+                    return;
+                }
+                value = s.divide(c, mc);
+                // |s/c - S/C| <= (δ + |s/c| δ) / (|c| - δ), plus the final rounding
+                local = seriesError.add(value.abs().multiply(seriesError, ERR), ERR)
+                        .divide(margin, ERR).add(halfUlp(value, mc), ERR);
+                // tan' = 1/cos², bounded while the argument error stays clear of the pole
+                BigDecimal clearance = margin.subtract(argumentError);
+                contributions[0] = clearance.signum() <= 0
+                        ? UNBOUNDED
+                        : argumentError.divide(clearance.multiply(clearance, ERR), ERR);
+                return;
+            }
+
+            value = series(radians, name.equals("cos"), wide).round(mc);
+            local = seriesError.add(halfUlp(value, mc), ERR);
+            contributions[0] = argumentError; // |sin'| and |cos'| are at most 1
+        }
+    }
+
+    // --- Arbitrary-precision helpers ---
+
+    /**
+     * Unit in the last place of a value held to the given precision (zero for zero, which the
+     * operations here only produce exactly).
+     */
+    private static BigDecimal ulp(BigDecimal value, MathContext mc) {
+        if (value.signum() == 0) {
+            return BigDecimal.ZERO;
+        }
+        return BigDecimal.ONE.scaleByPowerOfTen(value.precision() - value.scale() - mc.getPrecision());
+    }
+
+    private static BigDecimal halfUlp(BigDecimal value, MathContext mc) {
+        if (value.signum() == 0) {
+            return BigDecimal.ZERO;
+        }
+        // 0.5 * 10^k written directly as 5 * 10^(k - 1)
+        return BigDecimal.valueOf(5, 1 + mc.getPrecision() - value.precision() + value.scale());
+    }
+
+    private static int integerDigits(BigDecimal value) {
+        return Math.max(0, value.precision() - value.scale());
+    }
+
+    /**
+     * Taylor series for sin or cos after reducing the angle to [-π, π].
+     */
+    static BigDecimal series(BigDecimal x, boolean cosine, MathContext mc) {
+        BigDecimal twoPi = pi(mc.getPrecision() + 5).multiply(BigDecimal.valueOf(2));
+        BigDecimal turns = x.divide(twoPi, mc).setScale(0, RoundingMode.HALF_EVEN);
+        BigDecimal r = x.subtract(turns.multiply(twoPi), mc);
+
+        BigDecimal r2 = r.multiply(r, mc);
+        BigDecimal term = cosine ? BigDecimal.ONE : r;
+        BigDecimal sum = term;
+        BigDecimal epsilon = BigDecimal.ONE.scaleByPowerOfTen(-mc.getPrecision() - 2);
+        for (int k = cosine ? 1 : 2; term.abs().compareTo(epsilon) > 0; k += 2) {
+            term = term.multiply(r2, mc).divide(BigDecimal.valueOf((long) k * (k + 1)), mc).negate();
+            sum = sum.add(term, mc);
+        }
+        return sum;
+    }
+
+    /**
+     * π to at least the given number of digits (Machin's formula), cached across calls.
+     */
+    static BigDecimal pi(int digits) {
+        BigDecimal cached = cachedPi;
+        if (cached.precision() < digits) {
+            synchronized (PrecisionEvaluator.class) {
+                cached = cachedPi;
+                if (cached.precision() < digits) {
+                    MathContext mc = new MathContext(digits + 10);
+                    cached = arctanInverse(5, mc).multiply(BigDecimal.valueOf(16))
+                            .subtract(arctanInverse(239, mc).multiply(BigDecimal.valueOf(4)))
+                            .round(new MathContext(digits + 5));
+                    cachedPi = cached;
+                }
+            }
+        }
+        return cached.round(new MathContext(digits));
+    }
+
+    private static BigDecimal arctanInverse(int x, MathContext mc) {
+        BigDecimal xSquared = BigDecimal.valueOf((long) x * x);
+        BigDecimal power = BigDecimal.ONE.divide(BigDecimal.valueOf(x), mc);
+        BigDecimal sum = power;
+        BigDecimal epsilon = BigDecimal.ONE.scaleByPowerOfTen(-mc.getPrecision());
+        for (int k = 1; power.compareTo(epsilon) > 0; k++) {
+            power = power.divide(xSquared, mc);
+            BigDecimal term = power.divide(BigDecimal.valueOf(2L * k + 1), mc);
+            sum = k % 2 == 1 ? sum.subtract(term, mc) : sum.add(term, mc);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,522 @@
+package Calc;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+
+/**
+ * An exact fraction numerator/denominator, so 1/3*3 is exactly 1.
+ *
+ * Small fractions live in two longs with overflow-checked arithmetic; a result that overflows
+ * is retried on reduced operands and only then promoted to BigInteger, and BigInteger results
+ * that fit in longs again are demoted when reduced. Reduction by the GCD is lazy: sums and
+ * products are left unreduced (integer arithmetic, denominator 1, never needs it) until a
+ * result overflows, grows past REDUCE_BITS, or is compared, hashed or printed. Every
+ * instance is immutable; the reduced form is cached on first use.
+ */
+public final class Rational implements Comparable<Rational> {
+    public static final Rational ZERO = new Rational(0, 1, true);
+    public static final Rational ONE = new Rational(1, 1, true);
+
+    // BigInteger fractions whose denominator grows past this are reduced right away
+    private static final int REDUCE_BITS = 512;
+
+    // Long form while bigNum is null; the denominator is always positive
+    private final long num;
+    private final long den;
+    private final BigInteger bigNum;
+    private final BigInteger bigDen;
+    private final boolean reduced;
+    private Rational canonical; // racy single-check cache, like String.hash
+
+    private Rational(long num, long den, boolean reduced) {
+        this.num = num;
+        this.den = den;
+        this.bigNum = null;
+        this.bigDen = null;
+        this.reduced = reduced;
+    }
+
+    private Rational(BigInteger num, BigInteger den, boolean reduced) {
+        this.num = 0;
+        this.den = 0;
+        this.bigNum = num;
+        this.bigDen = den;
+        this.reduced = reduced;
+    }
+
+    // --- Factory Methods ---
+
+    public static Rational of(long value) {
+        return new Rational(value, 1, true);
+    }
+
+    public static Rational of(long numerator, long denominator) {
+        if (denominator == 0) {
+            throw new ArithmeticException("Division by zero");
+        }
+        if (denominator < 0) {
+            if (numerator == Long.MIN_VALUE || denominator == Long.MIN_VALUE) {
+                return of(BigInteger.valueOf(numerator), BigInteger.valueOf(denominator));
+            }
+            numerator = -numerator;
+            denominator = -denominator;
+        }
+        return new Rational(numerator, denominator, denominator == 1);
+    }
+
+    public static Rational of(BigInteger numerator, BigInteger denominator) {
+        if (denominator.signum() == 0) {
+            throw new ArithmeticException("Division by zero");
+        }
+        if (denominator.signum() < 0) {
+            numerator = numerator.negate();
+            denominator = denominator.negate();
+        }
+        return normalize(numerator, denominator, denominator.equals(BigInteger.ONE));
+    }
+
+    /**
+     * The exact value of a decimal: unscaled value over 10^scale.
+     */
+    public static Rational of(BigDecimal value) {
+        BigInteger unscaled = value.unscaledValue();
+        if (value.scale() <= 0) {
+            return normalize(unscaled.multiply(BigInteger.TEN.pow(-value.scale())), BigInteger.ONE, true);
+        }
+        return normalize(unscaled, BigInteger.TEN.pow(value.scale()), false);
+    }
+
+    /**
+     * Parses "n/d" (as printed by toString) or a decimal number.
+     */
+    public static Rational valueOf(String text) {
+        int slash = text.indexOf('/');
+        if (slash < 0) {
+            return of(new BigDecimal(text.trim()));
+        }
+        Rational numerator = of(new BigDecimal(text.substring(0, slash).trim()));
+        Rational denominator = of(new BigDecimal(text.substring(slash + 1).trim()));
+        return numerator.divide(denominator);
+    }
+
+    // Demotes to the long form when both parts fit
+    private static Rational normalize(BigInteger num, BigInteger den, boolean reduced) {
+        if (den.bitLength() < 64 && num.bitLength() < 64) {
+            return new Rational(num.longValue(), den.longValue(), reduced);
+        }
+        if (!reduced && den.bitLength() > REDUCE_BITS) {
+            return reduce(num, den);
+        }
+        return new Rational(num, den, reduced);
+    }
+
+    private static Rational reduce(BigInteger num, BigInteger den) {
+        BigInteger gcd = num.gcd(den);
+        if (!gcd.equals(BigInteger.ONE)) {
+            num = num.divide(gcd);
+            den = den.divide(gcd);
+        }
+        return normalize(num, den, true);
+    }
+
+    // --- Accessors ---
+
+    private boolean isBig() {
+        return bigNum != null;
+    }
+
+    public BigInteger numerator() {
+        Rational r = reduced();
+        return r.isBig() ? r.bigNum : BigInteger.valueOf(r.num);
+    }
+
+    public BigInteger denominator() {
+        Rational r = reduced();
+        return r.isBig() ? r.bigDen : BigInteger.valueOf(r.den);
+    }
+
+    private BigInteger bigNum() {
+        return isBig() ? bigNum : BigInteger.valueOf(num);
+    }
+
+    private BigInteger bigDen() {
+        return isBig() ? bigDen : BigInteger.valueOf(den);
+    }
+
+    public int signum() {
+        return isBig() ? bigNum.signum() : Long.signum(num);
+    }
+
+    public boolean isInteger() {
+        return isBig() ? reduced().bigDen.equals(BigInteger.ONE) : den == 1 || num % den == 0;
+    }
+
+    /**
+     * The fraction in lowest terms (this, when it already is).
+     */
+    public Rational reduced() {
+        if (reduced) {
+            return this;
+        }
+        Rational r = canonical;
+        if (r == null) {
+            if (isBig()) {
+                r = reduce(bigNum, bigDen);
+            } else {
+                long gcd = gcd(Math.abs(num), den);
+                r = new Rational(num / gcd, den / gcd, true);
+            }
+            canonical = r;
+        }
+        return r;
+    }
+
+    private static long gcd(long a, long b) {
+        // Binary GCD; a may be Long.MIN_VALUE's absolute value (negative), b > 0
+        if (a == 0) {
+            return b;
+        }
+        if (a < 0) {
+            return BigInteger.valueOf(a).abs().gcd(BigInteger.valueOf(b)).longValue();
+        }
+        int shift = Long.numberOfTrailingZeros(a | b);
+        a >>= Long.numberOfTrailingZeros(a);
+        do {
+            b >>= Long.numberOfTrailingZeros(b);
+            if (a > b) {
+                long t = a;
+                a = b;
+                b = t;
+            }
+            b -= a;
+        } while (b != 0);
+        return a << shift;
+    }
+
+    // --- Arithmetic ---
+
+    public Rational add(Rational other) {
+        if (!isBig() && !other.isBig()) {
+            if (den == other.den) {
+                long n = num + other.num;
+                if (((num ^ n) & (other.num ^ n)) >= 0) {
+                    return new Rational(n, den, den == 1);
+                }
+            } else {
+                long a = num * other.den, b = other.num * den, d = den * other.den, n = a + b;
+                if (exact(num, other.den, a) && exact(other.num, den, b) && exact(den, other.den, d)
+                        && ((a ^ n) & (b ^ n)) >= 0) {
+                    return new Rational(n, d, false);
+                }
+            }
+            // Overflow: reduce and retry once, then go to BigInteger
+            if (!reduced || !other.reduced) {
+                return reduced().add(other.reduced());
+            }
+        }
+        BigInteger d = bigDen(), od = other.bigDen();
+        if (d.equals(od)) {
+            return normalize(bigNum().add(other.bigNum()), d, d.equals(BigInteger.ONE));
+        }
+        return normalize(bigNum().multiply(od).add(other.bigNum().multiply(d)), d.multiply(od), false);
+    }
+
+    public Rational subtract(Rational other) {
+        return add(other.negate());
+    }
+
+    public Rational multiply(Rational other) {
+        if (!isBig() && !other.isBig()) {
+            long n = num * other.num, d = den * other.den;
+            if (exact(num, other.num, n) && exact(den, other.den, d)) {
+                return new Rational(n, d, den == 1 && other.den == 1);
+            }
+            if (!reduced || !other.reduced) {
+                return reduced().multiply(other.reduced());
+            }
+        }
+        return normalize(bigNum().multiply(other.bigNum()), bigDen().multiply(other.bigDen()),
+                isInteger(this) && isInteger(other));
+    }
+
+    // Overflow checks stay branches rather than Math.*Exact exceptions, since chains of sums
+    // whose denominators hover around 64 bits overflow on most steps
+    private static boolean exact(long a, long b, long product) {
+        return Math.multiplyHigh(a, b) == product >> 63;
+    }
+
+    // Cheap integer test that never reduces
+    private static boolean isInteger(Rational r) {
+        return r.isBig() ? r.bigDen.equals(BigInteger.ONE) : r.den == 1;
+    }
+
+    public Rational divide(Rational other) {
+        return multiply(other.reciprocal());
+    }
+
+    public Rational negate() {
+        if (isBig()) {
+            return new Rational(bigNum.negate(), bigDen, reduced);
+        }
+        if (num == Long.MIN_VALUE) {
+            return normalize(BigInteger.valueOf(num).negate(), BigInteger.valueOf(den), reduced);
+        }
+        return new Rational(-num, den, reduced);
+    }
+
+    public Rational reciprocal() {
+        if (signum() == 0) {
+            throw new ArithmeticException("Division by zero");
+        }
+        if (isBig() || num == Long.MIN_VALUE) {
+            BigInteger n = bigNum(), d = bigDen();
+            return n.signum() < 0
+                    ? normalize(d.negate(), n.negate(), reduced)
+                    : normalize(d, n, reduced);
+        }
+        return num < 0 ? new Rational(-den, -num, reduced) : new Rational(den, num, reduced);
+    }
+
+    /**
+     * this^exponent, exact; negative exponents take the reciprocal first.
+     */
+    public Rational pow(int exponent) {
+        if (exponent < 0) {
+            if (exponent == Integer.MIN_VALUE) {
+                throw new ArithmeticException("Exponent out of range");
+            }
+            return reciprocal().pow(-exponent);
+        }
+        Rational base = reduced();
+        if (!base.isBig()) {
+            try {
+                long n = 1, d = 1, bn = base.num, bd = base.den;
+                for (int e = exponent; e > 0; e >>= 1) {
+                    if ((e & 1) != 0) {
+                        n = Math.multiplyExact(n, bn);
+                        d = Math.multiplyExact(d, bd);
+                    }
+                    if (e > 1) {
+                        bn = Math.multiplyExact(bn, bn);
+                        bd = Math.multiplyExact(bd, bd);
+                    }
+                }
+                return new Rational(n, d, true);
+            } catch (ArithmeticException overflow) {
+                // fall through to BigInteger
+            }
+        }
+        // Powers of coprime numbers stay coprime
+        return normalize(base.bigNum().pow(exponent), base.bigDen().pow(exponent), true);
+    }
+
+    /**
+     * Exact square root; fails unless numerator and denominator are perfect squares.
+     */
+    public Rational sqrt() {
+        if (signum() < 0) {
+            throw new ArithmeticException("Square root of a negative number");
+        }
+        Rational r = reduced();
+        BigInteger n = r.bigNum(), d = r.bigDen();
+        BigInteger rootN = n.sqrt(), rootD = d.sqrt();
+        if (!rootN.multiply(rootN).equals(n) || !rootD.multiply(rootD).equals(d)) {
+            throw new IrrationalException("√" + r + " is irrational");
+        }
+        return normalize(rootN, rootD, true);
+    }
+
+    /**
+     * this^exponent; a fractional exponent p/q takes the exact q-th root, then the p-th power,
+     * and fails (IrrationalException) unless numerator and denominator are perfect q-th powers.
+     */
+    public Rational pow(Rational exponent) {
+        if (exponent.isInteger()) {
+            return pow(exponent.intValue());
+        }
+        BigInteger p = exponent.numerator(), q = exponent.denominator();
+        if (signum() < 0 && !q.testBit(0)) {
+            throw new ArithmeticException("Even root of a negative number");
+        }
+        if (p.bitLength() > 31) {
+            throw new ArithmeticException("Exponent out of range");
+        }
+        // A q that does not fit an int only has the roots 0 and 1, which exactRoot finds anyway
+        int n = q.bitLength() > 31 ? Integer.MAX_VALUE : q.intValue();
+        Rational r = reduced();
+        BigInteger rootN = exactRoot(r.bigNum().abs(), n), rootD = exactRoot(r.bigDen(), n);
+        if (rootN == null || rootD == null) {
+            throw new IrrationalException(r + "^(" + exponent + ") is irrational");
+        }
+        return normalize(r.signum() < 0 ? rootN.negate() : rootN, rootD, true).pow(p.intValue());
+    }
+
+    // The integer n-th root of x >= 0, or null when x is not a perfect n-th power
+    private static BigInteger exactRoot(BigInteger x, int n) {
+        if (x.compareTo(BigInteger.ONE) <= 0) {
+            return x;
+        }
+        if (n >= x.bitLength()) {
+            return null; // 2^n > x, so the root is between 1 and 2
+        }
+        // Newton's method from above converges to the floor of the root
+        BigInteger degree = BigInteger.valueOf(n), root = BigInteger.ONE.shiftLeft(x.bitLength() / n + 1);
+        while (true) {
+            BigInteger next = root.multiply(degree.subtract(BigInteger.ONE)).add(x.divide(root.pow(n - 1))).divide(degree);
+            if (next.compareTo(root) >= 0) {
+                break;
+            }
+            root = next;
+        }
+        return root.pow(n).equals(x) ? root : null;
+    }
+
+    // --- Trig in degrees (Niven: the only rational sines of rational angles are 0, ±1/2, ±1) ---
+
+    public Rational sinDegrees() {
+        return switch (wholeDegrees()) {
+            case 0, 180 -> ZERO;
+            case 30, 150 -> of(1, 2);
+            case 90 -> ONE;
+            case 210, 330 -> of(-1, 2);
+            case 270 -> of(-1);
+            default -> throw irrational("sin");
+        };
+    }
+
+    public Rational cosDegrees() {
+        return switch (wholeDegrees()) {
+            case 90, 270 -> ZERO;
+            case 60, 300 -> of(1, 2);
+            case 0 -> ONE;
+            case 120, 240 -> of(-1, 2);
+            case 180 -> of(-1);
+            default -> throw irrational("cos");
+        };
+    }
+
+    public Rational tanDegrees() {
+        return switch (wholeDegrees()) {
+            case 0, 180 -> ZERO;
+            case 45, 225 -> ONE;
+            case 135, 315 -> of(-1);
+            case 90, 270 -> throw new ArithmeticException("tan is undefined at " + this + "°");
+            default -> throw irrational("tan");
+        };
+    }
+
+    // The angle reduced to [0, 360), or -1 when it is not a whole number of degrees
+    private int wholeDegrees() {
+        if (!isInteger()) {
+            return -1;
+        }
+        return numerator().mod(BigInteger.valueOf(360)).intValue();
+    }
+
+    private IrrationalException irrational(String function) {
+        return new IrrationalException(function + "(" + this + "°) is irrational");
+    }
+
+    // --- Conversions ---
+
+    /**
+     * True when the decimal expansion ends: the reduced denominator is 2^a * 5^b.
+     */
+    public boolean isTerminating() {
+        BigInteger d = denominator();
+        d = d.shiftRight(d.getLowestSetBit());
+        BigInteger five = BigInteger.valueOf(5);
+        while (d.mod(five).signum() == 0) {
+            d = d.divide(five);
+        }
+        return d.equals(BigInteger.ONE);
+    }
+
+    /**
+     * The exact decimal value; throws ArithmeticException when it does not terminate.
+     */
+    public BigDecimal toBigDecimal() {
+        return new BigDecimal(numerator()).divide(new BigDecimal(denominator()));
+    }
+
+    public BigDecimal toBigDecimal(MathContext mc) {
+        return new BigDecimal(bigNum()).divide(new BigDecimal(bigDen()), mc);
+    }
+
+    public double doubleValue() {
+        // Both parts exact in a double: a single correctly rounded division
+        if (!isBig() && Math.abs(num) < (1L << 53) && den < (1L << 53)) {
+            return (double) num / den;
+        }
+        return toBigDecimal(MathContext.DECIMAL64).doubleValue();
+    }
+
+    /**
+     * The integer part, truncated toward zero, as an int (low bits, like BigDecimal.intValue).
+     */
+    public int intValue() {
+        return isBig() ? bigNum.divide(bigDen).intValue() : (int) (num / den);
+    }
+
+    /**
+     * Plain decimal when it terminates, otherwise the fraction: 0.25, 7, 1/3.
+     */
+    public String toDisplayString() {
+        return isTerminating() ? toBigDecimal().stripTrailingZeros().toPlainString() : toString();
+    }
+
+    // --- Object ---
+
+    @Override
+    public int compareTo(Rational other) {
+        if (!isBig() && !other.isBig()) {
+            long leftHigh = Math.multiplyHigh(num, other.den), leftLow = num * other.den;
+            long rightHigh = Math.multiplyHigh(other.num, den), rightLow = other.num * den;
+            // 128-bit signed comparison of num*other.den and other.num*den
+            return leftHigh != rightHigh
+                    ? Long.compare(leftHigh, rightHigh)
+                    : Long.compareUnsigned(leftLow, rightLow);
+        }
+        return bigNum().multiply(other.bigDen()).compareTo(other.bigNum().multiply(bigDen()));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof Rational)) {
+            return false;
+        }
+        Rational a = reduced(), b = ((Rational) o).reduced();
+        return a.isBig() == b.isBig() && (a.isBig()
+                ? a.bigNum.equals(b.bigNum) && a.bigDen.equals(b.bigDen)
+                : a.num == b.num && a.den == b.den);
+    }
+
+    @Override
+    public int hashCode() {
+        Rational r = reduced();
+        return r.isBig() ? r.bigNum.hashCode() * 31 + r.bigDen.hashCode() : Long.hashCode(r.num) * 31 + Long.hashCode(r.den);
+    }
+
+    @Override
+    public String toString() {
+        Rational r = reduced();
+        if (r.isBig()) {
+            return r.bigDen.equals(BigInteger.ONE) ? r.bigNum.toString() : r.bigNum + "/" + r.bigDen;
+        }
+        return r.den == 1 ? Long.toString(r.num) : r.num + "/" + r.den;
+    }
+}
+
+/**
+ * A result with no exact Rational value (√2, sin(45°), π): the exact modes catch this and
+ * fall back to decimal arithmetic, while every other ArithmeticException (division by zero,
+ * tan(90°)) is a genuine error.
+ */
+final class IrrationalException extends ArithmeticException {
+    private static final long serialVersionUID = 1L;
+
+    IrrationalException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,77 @@
+package Calc;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Exact evaluation mode (Visitor Pattern): evaluates a parsed Expression with Rational
+ * arithmetic, going through the same Operation objects as every other mode, so 1/3*3 is 1
+ * and sin(30) is 1/2. Results that are not rational (√2, sin(45), anything in radians except
+ * at zero, π and e) throw IrrationalException; evaluateOrFallback then uses
+ * ExpressionEvaluator. Any other ArithmeticException, such as division by zero or tan(90),
+ * is a genuine error and propagates.
+ */
+public class RationalEvaluator implements ExpressionVisitor<Rational> {
+    private final Map<String, BigDecimal> bindings;
+
+    public RationalEvaluator() {
+        this(Collections.emptyMap());
+    }
+
+    public RationalEvaluator(Map<String, BigDecimal> bindings) {
+        this.bindings = bindings;
+    }
+
+    public Rational evaluate(Expression expression) {
+        return expression.accept(this);
+    }
+
+    /**
+     * The exact result as Rational.toDisplayString when there is one, otherwise the
+     * DECIMAL128 result of ExpressionEvaluator as plain text.
+     */
+    public String evaluateOrFallback(Expression expression) {
+        try {
+            return evaluate(expression).toDisplayString();
+        } catch (IrrationalException e) {
+            return new ExpressionEvaluator(bindings).evaluate(expression).toPlainString();
+        }
+    }
+
+    // --- Visitor ---
+
+    @Override
+    public Rational visitNumber(NumberNode node) {
+        if (node.irrational) {
+            throw new IrrationalException(node + " is irrational");
+        }
+        return Rational.of(node.value);
+    }
+
+    @Override
+    public Rational visitVariable(VariableNode node) {
+        BigDecimal value = bindings.get(node.name);
+        if (value == null) {
+            throw new IllegalArgumentException("Unknown variable: " + node.name);
+        }
+        return Rational.of(value);
+    }
+
+    @Override
+    public Rational visitBinary(BinaryNode node) {
+        return BinaryNode.foldLeft(node, this,
+                (n, left) -> BinaryNode.apply(n.operator, left, n.right.accept(this)));
+    }
+
+    @Override
+    public Rational visitFunction(FunctionNode node) {
+        // sin(toRadians(x)) is the parser's form of sin in degrees, where exact values exist
+        if (node.argument instanceof FunctionNode && ((FunctionNode) node.argument).name.equals("toRadians")
+                && (node.name.equals("sin") || node.name.equals("cos") || node.name.equals("tan"))) {
+            Rational degrees = ((FunctionNode) node.argument).argument.accept(this);
+            return FunctionNode.apply(node.name + "d", degrees);
+        }
+        return FunctionNode.apply(node.name, node.argument.accept(this));
+    }
+}
@@ -0,0 +1,546 @@
+package Calc;
+
+import java.awt.AWTEvent;
+import java.awt.AWTException;
+import java.awt.EventQueue;
+import java.awt.GraphicsEnvironment;
+import java.awt.Point;
+import java.awt.Robot;
+import java.awt.Toolkit;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongConsumer;
+import javax.swing.JButton;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.Document;
+
+/**
+ * Load and soak test for the Swing UI, run from the command line with:
+ * java Calc.SoakHarness [minutes=60] [rate=40] [sample=60] [input=robot|direct] [seed=1] [report=soak-report.txt]
+ * On a machine without a screen, run it under Xvfb: xvfb-run -a java Calc.SoakHarness minutes=240
+ *
+ * Input is injected open loop at a fixed rate (inputs per second) in rounds: a keystroke and
+ * button sequence on CalculatorGUI (key bindings, InputBatcher, CalculatorFacade), then an
+ * expression clicked on the CalculatorApp keypad, whose result lands in its history area.
+ * With input=robot, the default when java.awt.Robot works, GUI keys and clicks are real native
+ * events; input=direct posts the same submitKey and doClick calls to the event queue. The
+ * CalculatorApp is the GUI's hidden adaptee and is always driven with doClick, because clicking
+ * it would take the focus away from the GUI's key bindings.
+ *
+ * Measured over the whole run, with percentiles from fixed-size histograms:
+ * - input to display: from the scheduled injection time until the repaint that shows it has run
+ * - EDT blocking: how long each event took to dispatch on the event dispatch thread
+ * - heap: used heap after a full collection at every sample, and its growth per hour
+ * The report is printed and written to the report file. The exit status is 1 when any injected
+ * input never reached the display, and 0 otherwise.
+ */
+public final class SoakHarness {
+    private static final Set<String> OPTIONS = Set.of("minutes", "rate", "sample", "input", "seed", "report");
+    private static final long DRAIN_NANOS = 10_000_000_000L;
+
+    // --- Run state (set up once, then read by the injecting thread) ---
+    private final Random random;
+    private final Robot robot; // null for direct input
+    private final Tracker guiLatency = new Tracker();
+    private final Tracker historyLatency = new Tracker();
+    private final TimedEventQueue queue = new TimedEventQueue();
+    private final Map<String, JButton> guiButtons = new HashMap<>();
+    private final Map<String, Point> guiCenters = new HashMap<>();
+    private final Map<String, JButton> appButtons = new HashMap<>();
+    private CalculatorGUI gui;
+    private long baseline;
+
+    // --- Written on the event dispatch thread ---
+    private long historyEntries;
+    private volatile int historyLength;
+
+    private SoakHarness(long seed, Robot robot) {
+        this.random = new Random(seed);
+        this.robot = robot;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq < 0 || !OPTIONS.contains(arg.substring(0, eq))) {
+                System.err.println("Usage: java Calc.SoakHarness [minutes=60] [rate=40] [sample=60]"
+                        + " [input=robot|direct] [seed=1] [report=soak-report.txt]");
+                System.exit(2);
+            }
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        if (GraphicsEnvironment.isHeadless()) {
+            System.err.println("The soak harness needs a display; run it under Xvfb: xvfb-run -a java Calc.SoakHarness");
+            System.exit(2);
+        }
+
+        double minutes = Double.parseDouble(options.getOrDefault("minutes", "60"));
+        double rate = Double.parseDouble(options.getOrDefault("rate", "40"));
+        double sample = Double.parseDouble(options.getOrDefault("sample", "60"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "1"));
+        Path report = Path.of(options.getOrDefault("report", "soak-report.txt"));
+
+        Robot robot = null;
+        if (!options.getOrDefault("input", "robot").equals("direct")) {
+            try {
+                robot = new Robot();
+            } catch (AWTException | SecurityException e) {
+                System.err.println("No Robot (" + e.getMessage() + "), using direct input");
+            }
+        }
+
+        SoakHarness harness = new SoakHarness(seed, robot);
+        harness.start();
+        String text = harness.run((long) (minutes * 60e9), (long) (1e9 / rate), (long) (sample * 1e9),
+                String.format("Soak run: %.1f min at %.1f inputs/s, %s input, seed %d",
+                        minutes, rate, robot == null ? "direct" : "robot", seed));
+        System.out.println();
+        System.out.println(text);
+        Files.write(report, text.getBytes(StandardCharsets.UTF_8));
+        System.out.println("Report written to " + report.toAbsolutePath());
+        System.exit(harness.guiLatency.lost() + harness.historyLatency.lost() > 0 ? 1 : 0);
+    }
+
+    // --- Setup ---
+
+    private void start() throws InterruptedException, InvocationTargetException {
+        Toolkit.getDefaultToolkit().getSystemEventQueue().push(queue);
+        EventQueue.invokeAndWait(() -> {
+            gui = CalculatorGUI.getInstance();
+            gui.setVisible(true);
+            gui.toFront();
+            gui.requestFocus();
+
+            for (String label : new String[] {"0", "1", "2", "3", "4", "5", "6", "7", "8", "9", ".",
+                    "+", "-", "×", "÷", "=", "←", "C", "+/-", "√", "sin", "cos"}) {
+                guiButtons.put(label, gui.getButton(label));
+            }
+            CalculatorApp app = gui.getCalculatorApp();
+            for (String label : new String[] {"0", "1", "2", "3", "4", "5", "6", "7", "8", "9",
+                    "+", "-", "*", "/", "=", "C"}) {
+                appButtons.put(label, app.getButton(label));
+            }
+
+            InputBatcher batcher = gui.getInputBatcher();
+            baseline = batcher.getAppliedCount();
+            batcher.setRefreshListener(() -> {
+                long applied = batcher.getAppliedCount() - baseline;
+                // Queued behind the repaint this refresh scheduled, so the time includes painting
+                EventQueue.invokeLater(() -> guiLatency.resolve(applied, System.nanoTime()));
+            });
+
+            Document history = app.getHistoryArea().getDocument();
+            history.addDocumentListener(new DocumentListener() {
+                @Override
+                public void insertUpdate(DocumentEvent e) {
+                    long shown = ++historyEntries;
+                    historyLength = history.getLength();
+                    EventQueue.invokeLater(() -> historyLatency.resolve(shown, System.nanoTime()));
+                }
+
+                @Override
+                public void removeUpdate(DocumentEvent e) {
+                }
+
+                @Override
+                public void changedUpdate(DocumentEvent e) {
+                }
+            });
+        });
+
+        if (robot != null) {
+            robot.waitForIdle();
+            EventQueue.invokeAndWait(() -> {
+                for (Map.Entry<String, JButton> button : guiButtons.entrySet()) {
+                    Point at = button.getValue().getLocationOnScreen();
+                    at.translate(button.getValue().getWidth() / 2, button.getValue().getHeight() / 2);
+                    guiCenters.put(button.getKey(), at);
+                }
+            });
+        }
+    }
+
+    // --- Injection ---
+
+    private String run(long duration, long period, long sampleEvery, String title)
+            throws InterruptedException, InvocationTargetException {
+        List<String> samples = new ArrayList<>();
+        samples.add(String.format("%9s %10s %9s %10s %11s %9s %10s", "time", "injected", "in flight",
+                "refreshes", "EDT max ms", "heap MB", "history"));
+        System.out.println(title);
+        System.out.println(samples.get(0));
+
+        Heap heap = new Heap();
+        long begin = System.nanoTime(), next = begin, nextSample = begin;
+        while (next - begin < duration) {
+            if (System.nanoTime() >= nextSample) {
+                samples.add(sample(System.nanoTime() - begin, heap));
+                System.out.println(samples.get(samples.size() - 1));
+                nextSample += sampleEvery;
+            }
+            for (LongConsumer input : round()) {
+                next += period;
+                LockSupport.parkNanos(next - System.nanoTime());
+                // Timed from the schedule, so a stalled injector or EDT shows up as latency
+                input.accept(next);
+            }
+        }
+
+        // Let the last inputs reach the screen; whatever does not is reported as lost
+        long deadline = System.nanoTime() + DRAIN_NANOS;
+        while ((guiLatency.lost() > 0 || historyLatency.lost() > 0) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        samples.add(sample(System.nanoTime() - begin, heap));
+
+        StringBuilder report = new StringBuilder(title).append('\n');
+        EventQueue.invokeAndWait(() -> report(report, heap));
+        report.append("\nSamples:\n");
+        for (String line : samples) {
+            report.append(line).append('\n');
+        }
+        return report.toString();
+    }
+
+    /**
+     * One round: clear, a number, an operator, a number and = on the GUI (each input a key or
+     * a button at random, sometimes followed by a unary button or a delete), then the same
+     * shape of expression on the CalculatorApp keypad. The App's divisors are never zero,
+     * since an evaluation error there opens a modal dialog.
+     */
+    private List<LongConsumer> round() {
+        List<LongConsumer> inputs = new ArrayList<>();
+        inputs.add(gui('\u001b'));
+        number(inputs, true);
+        inputs.add(gui("+-*/".charAt(random.nextInt(4))));
+        number(inputs, true);
+        inputs.add(gui('='));
+        if (random.nextInt(4) == 0) {
+            inputs.add(guiButton(new String[] {"√", "sin", "cos", "+/-"}[random.nextInt(4)]));
+        }
+        if (random.nextInt(8) == 0) {
+            inputs.add(gui('\b'));
+        }
+
+        inputs.add(app("C"));
+        number(inputs, false);
+        inputs.add(app(String.valueOf("+-*/".charAt(random.nextInt(4)))));
+        number(inputs, false);
+        inputs.add(scheduled -> {
+            historyLatency.injected(scheduled);
+            click(appButtons.get("="));
+        });
+        return inputs;
+    }
+
+    private void number(List<LongConsumer> inputs, boolean toGui) {
+        int digits = 1 + random.nextInt(3);
+        for (int i = 0; i < digits; i++) {
+            char digit = (char) ((i == 0 ? '1' + random.nextInt(9) : '0' + random.nextInt(10)));
+            inputs.add(toGui ? gui(digit) : app(String.valueOf(digit)));
+        }
+        if (toGui && random.nextInt(4) == 0) {
+            inputs.add(gui('.'));
+            inputs.add(gui((char) ('0' + random.nextInt(10))));
+        }
+    }
+
+    // A typed key or the matching keypad button, chosen at random
+    private LongConsumer gui(char key) {
+        if (random.nextBoolean()) {
+            String label = switch (key) {
+                case '*' -> "×";
+                case '/' -> "÷";
+                case '\b' -> "←";
+                case '\u001b' -> "C";
+                default -> String.valueOf(key);
+            };
+            return guiButton(label);
+        }
+        return scheduled -> {
+            guiLatency.injected(scheduled);
+            if (robot == null) {
+                EventQueue.invokeLater(() -> gui.submitKey(key));
+            } else {
+                int code = keyCode(key);
+                robot.keyPress(code);
+                robot.keyRelease(code);
+            }
+        };
+    }
+
+    private LongConsumer guiButton(String label) {
+        return scheduled -> {
+            guiLatency.injected(scheduled);
+            if (robot == null) {
+                click(guiButtons.get(label));
+            } else {
+                Point at = guiCenters.get(label);
+                robot.mouseMove(at.x, at.y);
+                robot.mousePress(InputEvent.BUTTON1_DOWN_MASK);
+                robot.mouseRelease(InputEvent.BUTTON1_DOWN_MASK);
+            }
+        };
+    }
+
+    private LongConsumer app(String label) {
+        return scheduled -> click(appButtons.get(label));
+    }
+
+    private static void click(JButton button) {
+        EventQueue.invokeLater(() -> button.doClick(0));
+    }
+
+    // Keypad keys for the operators, so no shift state is needed
+    private static int keyCode(char key) {
+        if (key >= '0' && key <= '9') {
+            return KeyEvent.VK_0 + (key - '0');
+        }
+        return switch (key) {
+            case '.' -> KeyEvent.VK_PERIOD;
+            case '+' -> KeyEvent.VK_ADD;
+            case '-' -> KeyEvent.VK_SUBTRACT;
+            case '*' -> KeyEvent.VK_MULTIPLY;
+            case '/' -> KeyEvent.VK_DIVIDE;
+            case '=' -> KeyEvent.VK_EQUALS;
+            case '\b' -> KeyEvent.VK_BACK_SPACE;
+            case '\u001b' -> KeyEvent.VK_ESCAPE;
+            default -> throw new IllegalArgumentException("No key for " + key);
+        };
+    }
+
+    // --- Sampling and report ---
+
+    private String sample(long elapsed, Heap heap) {
+        long bytes = heap.sample(elapsed);
+        long seconds = elapsed / 1_000_000_000L;
+        return String.format("%3d:%02d:%02d %10d %9d %10d %11.2f %9.1f %10d",
+                seconds / 3600, seconds / 60 % 60, seconds % 60,
+                guiLatency.injectedCount() + historyLatency.injectedCount(),
+                guiLatency.lost() + historyLatency.lost(),
+                gui.getInputBatcher().getRefreshCount(),
+                queue.intervalMax.getAndSet(0) / 1e6, bytes / 1048576.0, historyLength);
+    }
+
+    // Runs on the event dispatch thread, where the histograms are written
+    private void report(StringBuilder out, Heap heap) {
+        out.append("\nInput to display (CalculatorGUI keys and buttons): ")
+                .append(guiLatency.latency.describe()).append(", lost ").append(guiLatency.lost()).append('\n');
+        out.append("Expression to history (CalculatorApp =): ")
+                .append(historyLatency.latency.describe()).append(", lost ").append(historyLatency.lost()).append('\n');
+        out.append("EDT dispatch: ").append(queue.dispatch.describe()).append('\n');
+        out.append(String.format("  busy %.2f %% of the run, %d events over 16 ms, %d over 100 ms, longest %s%n",
+                100.0 * queue.busy / Math.max(1, heap.lastElapsed), queue.over16, queue.over100, queue.longest));
+
+        InputBatcher batcher = gui.getInputBatcher();
+        out.append(String.format("Input batcher: %d applied in %d refreshes (%.2f per refresh)%n",
+                batcher.getAppliedCount() - baseline, batcher.getRefreshCount(),
+                (double) (batcher.getAppliedCount() - baseline) / Math.max(1, batcher.getRefreshCount())));
+        out.append(String.format("Heap after full GC: %.1f MB at start, %.1f MB at end, %.1f MB peak, %+.2f MB/h;"
+                        + " history area %d chars%n", heap.first / 1048576.0, heap.last / 1048576.0,
+                heap.max / 1048576.0, heap.slopePerHour() / 1048576.0, historyLength));
+        long collections = 0, pause = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            collections += Math.max(0, collector.getCollectionCount());
+            pause += Math.max(0, collector.getCollectionTime());
+        }
+        out.append("GC: ").append(collections).append(" collections, ").append(pause)
+                .append(" ms (including one full collection per sample)\n");
+
+        AuditLog audit = AuditLog.getInstance();
+        if (audit.getCapacity() == 0) {
+            out.append("Audit log: disabled (set -Dcalc.audit.file to include it)\n");
+        } else {
+            out.append("Audit log: ").append(audit.getRecordedCount()).append(" recorded, ")
+                    .append(audit.getWrittenCount()).append(" written, ").append(audit.getDroppedCount())
+                    .append(" dropped, high water ").append(audit.getHighWaterMark()).append(" of ")
+                    .append(audit.getCapacity()).append('\n');
+        }
+    }
+
+    /**
+     * Log-linear histogram of nanosecond durations: 32 buckets per power of two (about 3 %
+     * resolution) in a fixed array, so a run of any length uses the same memory.
+     * Not thread-safe; each one is written and read on the event dispatch thread.
+     */
+    static final class Histogram {
+        private static final int SUB_BITS = 5;
+        private static final int SUB = 1 << SUB_BITS;
+
+        private final long[] counts = new long[(64 - SUB_BITS + 1) * SUB];
+        private long count, total, max;
+
+        void record(long nanos) {
+            long value = Math.max(0, nanos);
+            counts[index(value)]++;
+            count++;
+            total += value;
+            max = Math.max(max, value);
+        }
+
+        // Values below SUB are exact; above, the top SUB_BITS + 1 bits select the bucket
+        private static int index(long value) {
+            if (value < SUB) {
+                return (int) value;
+            }
+            int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+            return (shift + 1) * SUB + (int) (value >>> shift) - SUB;
+        }
+
+        private static long upperBound(int index) {
+            int row = index / SUB, sub = index % SUB;
+            return row == 0 ? sub : ((long) (SUB + sub + 1) << (row - 1)) - 1;
+        }
+
+        /**
+         * The smallest recorded bound with at least this percentage of values at or below it.
+         */
+        long percentile(double percent) {
+            long target = Math.max(1, (long) Math.ceil(percent / 100 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= target) {
+                    return Math.min(upperBound(i), max);
+                }
+            }
+            return max;
+        }
+
+        long count() {
+            return count;
+        }
+
+        String describe() {
+            if (count == 0) {
+                return "no samples";
+            }
+            return String.format("%d samples, mean %.2f ms, p50 %.2f, p90 %.2f, p99 %.2f, p99.9 %.2f, max %.2f ms",
+                    count, total / 1e6 / count, percentile(50) / 1e6, percentile(90) / 1e6,
+                    percentile(99) / 1e6, percentile(99.9) / 1e6, max / 1e6);
+        }
+    }
+
+    /**
+     * Injection times of one input stream, matched in order to the updates that show them:
+     * resolve(n, now) means the first n inputs are on screen. One thread injects and the
+     * event dispatch thread resolves; injection waits when the ring of pending times is full.
+     */
+    private static final class Tracker {
+        private static final int CAPACITY = 1 << 16;
+
+        private final long[] times = new long[CAPACITY];
+        private final AtomicLong injected = new AtomicLong();
+        private volatile long resolved;
+        final Histogram latency = new Histogram();
+
+        void injected(long nanos) {
+            long sequence = injected.get();
+            while (sequence - resolved >= CAPACITY) {
+                LockSupport.parkNanos(1_000_000);
+            }
+            times[(int) (sequence & (CAPACITY - 1))] = nanos;
+            injected.set(sequence + 1);
+        }
+
+        void resolve(long shown, long now) {
+            long upTo = Math.min(shown, injected.get());
+            for (long i = resolved; i < upTo; i++) {
+                latency.record(now - times[(int) (i & (CAPACITY - 1))]);
+            }
+            if (upTo > resolved) {
+                resolved = upTo;
+            }
+        }
+
+        long injectedCount() {
+            return injected.get();
+        }
+
+        long lost() {
+            return injected.get() - resolved;
+        }
+    }
+
+    /**
+     * Times every event the event dispatch thread handles; pushed in front of the system queue.
+     * A modal dialog counts as one long dispatch of the event that opened it.
+     */
+    private static final class TimedEventQueue extends EventQueue {
+        final Histogram dispatch = new Histogram();
+        final AtomicLong intervalMax = new AtomicLong();
+        long busy, over16, over100, longestNanos;
+        String longest = "none";
+
+        @Override
+        protected void dispatchEvent(AWTEvent event) {
+            long start = System.nanoTime();
+            try {
+                super.dispatchEvent(event);
+            } finally {
+                long nanos = System.nanoTime() - start;
+                dispatch.record(nanos);
+                busy += nanos;
+                if (nanos > 16_000_000) {
+                    over16++;
+                }
+                if (nanos > 100_000_000) {
+                    over100++;
+                }
+                if (nanos > longestNanos) {
+                    longestNanos = nanos;
+                    longest = String.format("%.2f ms (%s)", nanos / 1e6, event.getClass().getSimpleName());
+                }
+                intervalMax.accumulateAndGet(nanos, Math::max);
+            }
+        }
+    }
+
+    /**
+     * Used heap after a full collection, with a least-squares slope over all samples.
+     */
+    private static final class Heap {
+        long first = -1, last, max, lastElapsed;
+        private double n, sumX, sumY, sumXX, sumXY;
+
+        long sample(long elapsed) {
+            System.gc();
+            long used = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+            if (first < 0) {
+                first = used;
+            }
+            last = used;
+            max = Math.max(max, used);
+            lastElapsed = elapsed;
+
+            double hours = elapsed / 3600e9;
+            n++;
+            sumX += hours;
+            sumY += used;
+            sumXX += hours * hours;
+            sumXY += hours * used;
+            return used;
+        }
+
+        double slopePerHour() {
+            double spread = n * sumXX - sumX * sumX;
+            return spread <= 0 ? 0 : (n * sumXY - sumX * sumY) / spread;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package Calc;
+
+import java.util.List;
+
+/**
+ * Finds roots of f(x) = 0 for an expression in one variable, x.
+ * Both methods keep a sign-changing bracket, so they always converge once a root is bracketed:
+ * brent() combines inverse quadratic interpolation, secant and bisection steps;
+ * newton() takes Newton steps with the exact derivative from GradientEvaluator and falls
+ * back to bisection whenever a step would leave the bracket or stops shrinking it fast enough.
+ * Where f is undefined (NaN) inside the bracket, newton() steps back toward the last point
+ * where it was defined, and fails if that gap closes without finding one.
+ */
+public final class Solver {
+    public static final double DEFAULT_TOLERANCE = 1e-12;
+    private static final int MAX_ITERATIONS = 200;
+
+    private final CompiledExpression program;
+    private final GradientEvaluator gradient;
+    private int iterations;
+
+    public Solver(CompiledExpression program) {
+        if (program.variables.length != 1) {
+            throw new IllegalArgumentException("Expected a function of one variable but got "
+                    + program.getVariables());
+        }
+        this.program = program;
+        this.gradient = new GradientEvaluator(program);
+    }
+
+    /**
+     * Compiles f with x as its only variable; an expression without x is a constant function.
+     */
+    public static Solver of(String expression) {
+        Expression parsed = new ExpressionOptimizer().optimize(new ExpressionParser().parse(expression));
+        return new Solver(CompiledExpression.compile(parsed, List.of("x")));
+    }
+
+    /**
+     * Function evaluations (Brent) or Newton/bisection steps taken by the last solve.
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    // --- Brent's method ---
+
+    public double brent(double lo, double hi) {
+        return brent(lo, hi, DEFAULT_TOLERANCE);
+    }
+
+    public double brent(double lo, double hi, double tolerance) {
+        double a = lo, b = hi;
+        double fa = f(a), fb = f(b);
+        iterations = 2;
+        checkBracket(a, fa, b, fb);
+        if (fa == 0) {
+            return a;
+        }
+        if (fb == 0) {
+            return b;
+        }
+
+        double c = a, fc = fa, d = b - a, e = d;
+        while (iterations < MAX_ITERATIONS) {
+            if (Math.signum(fb) == Math.signum(fc)) {
+                c = a;
+                fc = fa;
+                d = e = b - a;
+            }
+            if (Math.abs(fc) < Math.abs(fb)) {
+                a = b;
+                b = c;
+                c = a;
+                fa = fb;
+                fb = fc;
+                fc = fa;
+            }
+            double tol = 2 * Math.ulp(b) + 0.5 * tolerance;
+            double m = 0.5 * (c - b);
+            if (Math.abs(m) <= tol || fb == 0) {
+                return b;
+            }
+
+            if (Math.abs(e) >= tol && Math.abs(fa) > Math.abs(fb)) {
+                // Secant (two points) or inverse quadratic interpolation (three points)
+                double s = fb / fa, p, q;
+                if (a == c) {
+                    p = 2 * m * s;
+                    q = 1 - s;
+                } else {
+                    double r = fb / fc, t = fa / fc;
+                    p = s * (2 * m * t * (t - r) - (b - a) * (r - 1));
+                    q = (t - 1) * (r - 1) * (s - 1);
+                }
+                if (p > 0) {
+                    q = -q;
+                } else {
+                    p = -p;
+                }
+                if (2 * p < Math.min(3 * m * q - Math.abs(tol * q), Math.abs(e * q))) {
+                    e = d;
+                    d = p / q;
+                } else {
+                    d = m;
+                    e = m;
+                }
+            } else {
+                d = m;
+                e = m;
+            }
+            a = b;
+            fa = fb;
+            b += Math.abs(d) > tol ? d : Math.copySign(tol, m);
+            fb = f(b);
+            iterations++;
+        }
+        throw new ArithmeticException("No convergence after " + MAX_ITERATIONS + " iterations");
+    }
+
+    // --- Safeguarded Newton ---
+
+    public double newton(double lo, double hi) {
+        return newton(lo, hi, DEFAULT_TOLERANCE);
+    }
+
+    public double newton(double lo, double hi, double tolerance) {
+        double flo = f(lo), fhi = f(hi);
+        checkBracket(lo, flo, hi, fhi);
+        iterations = 0;
+        if (flo == 0) {
+            return lo;
+        }
+        if (fhi == 0) {
+            return hi;
+        }
+        // Orient the bracket so that f(neg) < 0 < f(pos)
+        double neg = flo < 0 ? lo : hi, pos = flo < 0 ? hi : lo;
+        double x = 0.5 * (lo + hi), previousStep = Math.abs(hi - lo), step = previousStep;
+        double defined = neg; // last point where f was a number
+        double[] point = new double[1], slope = new double[1];
+
+        while (iterations++ < MAX_ITERATIONS) {
+            point[0] = x;
+            double fx = gradient.evaluate(point, slope), dfx = slope[0];
+            if (fx == 0) {
+                return x;
+            }
+            if (Double.isNaN(fx)) {
+                // The sign is unknown, so the bracket stays; halve the way back to defined ground
+                if (Math.abs(x - defined) <= tolerance + 2 * Math.ulp(x)) {
+                    throw new ArithmeticException("f is undefined near x = " + x);
+                }
+                x = 0.5 * (x + defined);
+                continue;
+            }
+            defined = x;
+            if (fx < 0) {
+                neg = x;
+            } else {
+                pos = x;
+            }
+
+            double newtonX = x - fx / dfx;
+            boolean outside = !(newtonX > Math.min(neg, pos) && newtonX < Math.max(neg, pos));
+            if (outside || Math.abs(2 * fx) > Math.abs(previousStep * dfx)) {
+                // Newton would leave the bracket or converges too slowly: bisect instead
+                previousStep = step;
+                step = 0.5 * (pos - neg);
+                x = neg + step;
+            } else {
+                previousStep = step;
+                step = x - newtonX;
+                x = newtonX;
+            }
+            if (Math.abs(step) <= tolerance + 2 * Math.ulp(x)) {
+                return x;
+            }
+        }
+        throw new ArithmeticException("No convergence after " + MAX_ITERATIONS + " iterations");
+    }
+
+    private double f(double x) {
+        return program.evaluate(x);
+    }
+
+    private static void checkBracket(double a, double fa, double b, double fb) {
+        if (Double.isNaN(fa) || Double.isNaN(fb)) {
+            throw new ArithmeticException("f is undefined at an end of [" + a + ", " + b + "]");
+        }
+        if (Math.signum(fa) * Math.signum(fb) > 0) {
+            throw new IllegalArgumentException("Root is not bracketed: f(" + a + ") and f(" + b
+                    + ") have the same sign");
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package Calc;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Evaluates an expression while it is being tokenized, without building an Expression tree.
+ * Uses the same OperatorTable-driven Pratt loop as ExpressionParser, but each binary operator
+ * is applied as soon as its right operand is known, so a left-associative chain such as a
+ * generated sum of a million terms is reduced into one running value. Memory is bounded by
+ * the nesting depth (parentheses, right-associative ^ and prefix operators), not the input
+ * length, and input can be streamed from a Reader: clipboard contents or a file of any size.
+ * evaluate() matches ExpressionParser followed by ExpressionEvaluator; evaluateExact()
+ * matches RationalEvaluator.evaluateOrFallback. Units are not supported: a unit name is
+ * reported as such, and UnitExpression handles input that fits in memory.
+ */
+public final class StreamingEvaluator {
+    // Stands for the operand in the tree a prefix builder makes; bound by ExactArithmetic.prefix
+    private static final VariableNode OPERAND = new VariableNode("operand");
+
+    private final OperatorTable table;
+    private final Map<String, BigDecimal> bindings;
+    private final ExpressionEvaluator prefixEvaluator;
+
+    public StreamingEvaluator() {
+        this(OperatorTable.standard(), Collections.emptyMap());
+    }
+
+    public StreamingEvaluator(OperatorTable table, Map<String, BigDecimal> bindings) {
+        this.table = table;
+        this.bindings = bindings;
+        this.prefixEvaluator = new ExpressionEvaluator(bindings);
+    }
+
+    public BigDecimal evaluate(String expression) {
+        return evaluate(new StringReader(expression));
+    }
+
+    /**
+     * Reads the expression to the end of the stream and returns its value. Syntax errors carry
+     * the character offset where they were detected; an I/O failure of the reader surfaces as
+     * an UncheckedIOException.
+     */
+    public BigDecimal evaluate(Reader expression) {
+        return evaluate(expression, new DecimalArithmetic());
+    }
+
+    public String evaluateExact(String expression) {
+        return evaluateExact(new StringReader(expression));
+    }
+
+    /**
+     * As evaluate, but exact where rational, with the same text as
+     * RationalEvaluator.evaluateOrFallback: 1/3*3 gives "1", and from the first irrational
+     * value (√2, π) on the result is the DECIMAL128 one. The decimal value is carried along
+     * from the start, since the input cannot be read a second time.
+     */
+    public String evaluateExact(Reader expression) {
+        ExactArithmetic arithmetic = new ExactArithmetic();
+        Value result = evaluate(expression, arithmetic);
+        return arithmetic.irrational ? result.decimal.toPlainString() : result.exact.toDisplayString();
+    }
+
+    private <V> V evaluate(Reader expression, Arithmetic<V> arithmetic) {
+        ExpressionTokenizer tokens = new ExpressionTokenizer(expression);
+        try {
+            if (tokens.type == ExpressionTokenizer.Type.END) {
+                throw new IllegalArgumentException("Invalid expression");
+            }
+            V result = evaluateExpression(tokens, arithmetic, 0, 0);
+            if (tokens.type != ExpressionTokenizer.Type.END) {
+                throw new IllegalArgumentException("Unexpected " + tokens.text);
+            }
+            return result;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(e.getMessage() + " at offset " + tokens.offset(), e);
+        }
+    }
+
+    // --- Pratt loop ---
+
+    private <V> V evaluateExpression(ExpressionTokenizer tokens, Arithmetic<V> arithmetic, int minPrecedence,
+            int depth) {
+        if (depth > ExpressionParser.MAX_DEPTH) {
+            throw new IllegalArgumentException("Expression nested too deeply");
+        }
+        V left = evaluatePrefix(tokens, arithmetic, depth);
+
+        while (tokens.type == ExpressionTokenizer.Type.SYMBOL) {
+            OperatorTable.InfixOperator operator = table.infix(tokens.symbol);
+            if (operator == null || operator.precedence < minPrecedence) {
+                break;
+            }
+            tokens.advance();
+            int next = operator.associativity == OperatorTable.Associativity.LEFT
+                    ? operator.precedence + 1
+                    : operator.precedence;
+            // Running reduction: the chain so far collapses into one value before reading on
+            left = arithmetic.binary(operator.operator, left, evaluateExpression(tokens, arithmetic, next, depth + 1));
+        }
+        rejectUnit(tokens);
+        return left;
+    }
+
+    private <V> V evaluatePrefix(ExpressionTokenizer tokens, Arithmetic<V> arithmetic, int depth) {
+        String text = tokens.text;
+        switch (tokens.type) {
+            case NUMBER:
+                tokens.advance();
+                return arithmetic.number(new BigDecimal(text));
+            case NAME:
+                if (table.prefix(text) == null) {
+                    if (!bindings.containsKey(text)) {
+                        rejectUnit(tokens);
+                    }
+                    tokens.advance();
+                    return text.equals("e") ? arithmetic.constant(NumberNode.E) : arithmetic.variable(text);
+                }
+                break;
+            case SYMBOL:
+                if (tokens.symbol == 'π') {
+                    tokens.advance();
+                    return arithmetic.constant(NumberNode.PI);
+                }
+                if (tokens.symbol == '(') {
+                    tokens.advance();
+                    V inner = evaluateExpression(tokens, arithmetic, 0, depth + 1);
+                    if (!tokens.isSymbol(')')) {
+                        throw new IllegalArgumentException("Missing )");
+                    }
+                    tokens.advance();
+                    return inner;
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unexpected end of expression");
+        }
+
+        OperatorTable.PrefixOperator operator = table.prefix(text);
+        if (operator == null) {
+            rejectUnit(tokens);
+            throw new IllegalArgumentException("Unexpected " + text);
+        }
+        tokens.advance();
+        int precedence = tokens.type == ExpressionTokenizer.Type.SYMBOL && tokens.symbol == '('
+                && Character.isLetter(text.charAt(0)) ? Integer.MAX_VALUE : operator.precedence;
+        return arithmetic.prefix(operator, evaluateExpression(tokens, arithmetic, precedence, depth + 1));
+    }
+
+    // A unit name or "in" where the unit grammar would accept one gets an error that says so
+    private static void rejectUnit(ExpressionTokenizer tokens) {
+        if (tokens.type != ExpressionTokenizer.Type.END
+                && (Unit.named(tokens.text) != null || tokens.text.equals("in"))) {
+            throw new IllegalArgumentException("Units are not supported in streamed input: " + tokens.text);
+        }
+    }
+
+    // --- Arithmetic (Strategy Pattern: what a value is and how values combine) ---
+
+    private interface Arithmetic<V> {
+        V number(BigDecimal value);
+
+        V constant(NumberNode constant);
+
+        V variable(String name);
+
+        V binary(char operator, V left, V right);
+
+        V prefix(OperatorTable.PrefixOperator operator, V operand);
+    }
+
+    private final class DecimalArithmetic implements Arithmetic<BigDecimal> {
+        @Override
+        public BigDecimal number(BigDecimal value) {
+            return value;
+        }
+
+        @Override
+        public BigDecimal constant(NumberNode constant) {
+            return constant.value;
+        }
+
+        @Override
+        public BigDecimal variable(String name) {
+            return prefixEvaluator.evaluate(new VariableNode(name));
+        }
+
+        @Override
+        public BigDecimal binary(char operator, BigDecimal left, BigDecimal right) {
+            return BinaryNode.apply(operator, left, right);
+        }
+
+        // Prefix operators are tree builders; apply one to the operand's value and evaluate it
+        @Override
+        public BigDecimal prefix(OperatorTable.PrefixOperator operator, BigDecimal operand) {
+            return prefixEvaluator.evaluate(operator.builder.apply(new NumberNode(operand)));
+        }
+    }
+
+    // The exact value (null once the evaluation has turned irrational) and the decimal one
+    private static final class Value {
+        final Rational exact;
+        final BigDecimal decimal;
+
+        Value(Rational exact, BigDecimal decimal) {
+            this.exact = exact;
+            this.decimal = decimal;
+        }
+    }
+
+    private final class ExactArithmetic implements Arithmetic<Value> {
+        private final DecimalArithmetic decimal = new DecimalArithmetic();
+        // Set at the first IrrationalException; from then on only decimals are computed, like
+        // the ExpressionEvaluator pass of evaluateOrFallback
+        boolean irrational;
+
+        @Override
+        public Value number(BigDecimal value) {
+            return new Value(irrational ? null : Rational.of(value), value);
+        }
+
+        @Override
+        public Value constant(NumberNode constant) {
+            irrational = true;
+            return new Value(null, constant.value);
+        }
+
+        @Override
+        public Value variable(String name) {
+            return number(decimal.variable(name));
+        }
+
+        @Override
+        public Value binary(char operator, Value left, Value right) {
+            Rational exact = null;
+            if (!irrational) {
+                try {
+                    exact = BinaryNode.apply(operator, left.exact, right.exact);
+                } catch (IrrationalException e) {
+                    irrational = true;
+                }
+            }
+            return new Value(exact, decimal.binary(operator, left.decimal, right.decimal));
+        }
+
+        @Override
+        public Value prefix(OperatorTable.PrefixOperator operator, Value operand) {
+            Rational exact = null;
+            if (!irrational) {
+                try {
+                    exact = operator.builder.apply(OPERAND).accept(new RationalEvaluator() {
+                        @Override
+                        public Rational visitVariable(VariableNode node) {
+                            return operand.exact;
+                        }
+                    });
+                } catch (IrrationalException e) {
+                    irrational = true;
+                }
+            }
+            return new Value(exact, decimal.prefix(operator, operand.decimal));
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package Calc;
+
+/**
+ * Two-tier evaluator for hot expressions. Calls are interpreted by the CompiledExpression
+ * until they cross a call-count threshold; the expression is then translated to bytecode by
+ * ExpressionJit and later calls run the generated class. If generation fails for any reason
+ * the interpreter simply keeps serving calls, so callers never see the difference.
+ *
+ * The default threshold can be changed with -Dcalc.jit.threshold=N.
+ */
+public final class TieredExpression implements DoubleEvaluator {
+    public static final int DEFAULT_THRESHOLD = Integer.getInteger("calc.jit.threshold", 10_000);
+
+    private final CompiledExpression program;
+    private final int threshold;
+
+    // Racy on purpose: an approximate count is enough to decide when to compile
+    private int calls;
+    private volatile DoubleEvaluator compiled;
+    private volatile boolean failed;
+
+    public TieredExpression(CompiledExpression program) {
+        this(program, DEFAULT_THRESHOLD);
+    }
+
+    public TieredExpression(CompiledExpression program, int threshold) {
+        this.program = program;
+        this.threshold = threshold;
+    }
+
+    @Override
+    public double eval(double[] vars) {
+        DoubleEvaluator target = compiled;
+        if (target != null) {
+            program.checkArity(vars.length);
+            return target.eval(vars);
+        }
+        if (++calls >= threshold && !failed) {
+            promote();
+        }
+        return program.evaluate(vars);
+    }
+
+    public boolean isCompiled() {
+        return compiled != null;
+    }
+
+    public CompiledExpression getProgram() {
+        return program;
+    }
+
+    private synchronized void promote() {
+        if (compiled != null || failed) {
+            return;
+        }
+        try {
+            compiled = ExpressionJit.generate(program);
+        } catch (ReflectiveOperationException | RuntimeException | LinkageError e) {
+            failed = true;
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package Calc;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A unit of measure: an exact (Rational) scale to SI base units times a dimension, the exponents of
+ * m, kg, s, A, K, mol and rad. Degrees are the one unit whose scale (π/180) is not a decimal;
+ * they convert with toRadians, so the parser's degree-based sin/cos/tan and the Calculator's
+ * toRadians adapter are both just the ° unit.
+ * Units combine with multiply, divide and pow; named() looks up the built-in units.
+ */
+public final class Unit {
+    private static final String[] BASE = {"m", "kg", "s", "A", "K", "mol", "rad"};
+    private static final int ANGLE = 6;
+
+    public static final Unit NONE = new Unit("", Rational.ONE, 0, new int[BASE.length]);
+    public static final Unit RADIAN = base("rad", ANGLE);
+    public static final Unit DEGREE = new Unit("°", Rational.ONE, 1, RADIAN.exponents);
+
+    private static final Map<String, Unit> NAMED = new LinkedHashMap<>();
+
+    static {
+        Unit m = base("m", 0), kg = base("kg", 1), s = base("s", 2);
+        for (Unit unit : new Unit[] {m, kg, s, base("A", 3), base("K", 4), base("mol", 5), RADIAN}) {
+            register(unit);
+        }
+        // Derived SI units first, so a result in kg*m/s^2 prints as N
+        Unit n = register("N", kg.multiply(m).divide(s.pow(2)));
+        Unit j = register("J", n.multiply(m));
+        register("W", j.divide(s));
+        register("Pa", n.divide(m.pow(2)));
+        register("Hz", NONE.divide(s));
+        register("km", m.scale("1000"));
+        register("cm", m.scale("0.01"));
+        register("mm", m.scale("0.001"));
+        register("inch", m.scale("0.0254")); // "in" is the conversion keyword
+        register("ft", m.scale("0.3048"));
+        register("mi", m.scale("1609.344"));
+        register("g", kg.scale("0.001"));
+        register("lb", kg.scale("0.45359237"));
+        register("ms", s.scale("0.001"));
+        register("min", s.scale("60"));
+        register("h", s.scale("3600"));
+        register("deg", DEGREE);
+        register(DEGREE);
+    }
+
+    private final String name;
+    private final Rational scale;
+    private final int degrees; // power of the π/180 factor not held in scale
+    private final int[] exponents;
+
+    private Unit(String name, Rational scale, int degrees, int[] exponents) {
+        this.name = name;
+        this.scale = scale;
+        this.degrees = degrees;
+        this.exponents = exponents;
+    }
+
+    private static Unit base(String name, int index) {
+        int[] exponents = new int[BASE.length];
+        exponents[index] = 1;
+        return new Unit(name, Rational.ONE, 0, exponents);
+    }
+
+    private static Unit register(Unit unit) {
+        NAMED.put(unit.name, unit);
+        return unit;
+    }
+
+    private static Unit register(String name, Unit unit) {
+        return register(new Unit(name, unit.scale, unit.degrees, unit.exponents));
+    }
+
+    private Unit scale(String factor) {
+        return new Unit(name, scale.multiply(Rational.valueOf(factor)), degrees, exponents);
+    }
+
+    /**
+     * A built-in unit by symbol, or null.
+     */
+    public static Unit named(String name) {
+        return NAMED.get(name);
+    }
+
+    // --- Algebra ---
+
+    public Unit multiply(Unit other) {
+        int[] result = new int[BASE.length];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = exponents[i] + other.exponents[i];
+        }
+        return new Unit(join(name, "*", other.name), scale.multiply(other.scale), degrees + other.degrees, result);
+    }
+
+    public Unit divide(Unit other) {
+        int[] result = new int[BASE.length];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = exponents[i] - other.exponents[i];
+        }
+        return new Unit(join(name, "/", other.name), scale.divide(other.scale), degrees - other.degrees, result);
+    }
+
+    public Unit pow(int n) {
+        int[] result = new int[BASE.length];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = exponents[i] * n;
+        }
+        return new Unit(name.isEmpty() ? "" : name + "^" + n, scale.pow(n), degrees * n, result);
+    }
+
+    /**
+     * The square root of the dimension, or null when an exponent is odd.
+     */
+    Unit sqrt() {
+        int[] result = new int[BASE.length];
+        for (int i = 0; i < result.length; i++) {
+            if (exponents[i] % 2 != 0) {
+                return null;
+            }
+            result[i] = exponents[i] / 2;
+        }
+        return new Unit("", Rational.ONE, 0, result);
+    }
+
+    private static String join(String left, String operator, String right) {
+        if (right.isEmpty()) {
+            return left;
+        }
+        return (left.isEmpty() ? "1" : left) + operator + right;
+    }
+
+    // --- Dimension ---
+
+    /**
+     * The dimension alone: scale 1, no degrees, named after the matching SI unit if any.
+     */
+    public Unit dimension() {
+        for (Unit unit : NAMED.values()) {
+            if (unit.scale.equals(Rational.ONE) && unit.degrees == 0
+                    && Arrays.equals(unit.exponents, exponents)) {
+                return unit;
+            }
+        }
+        StringBuilder numerator = new StringBuilder(), denominator = new StringBuilder();
+        for (int i = 0; i < BASE.length; i++) {
+            int e = exponents[i];
+            if (e != 0) {
+                StringBuilder side = e > 0 ? numerator : denominator;
+                side.append(side.length() > 0 ? "*" : "").append(BASE[i]).append(Math.abs(e) > 1 ? "^" + Math.abs(e) : "");
+            }
+        }
+        String text = numerator.length() == 0 && denominator.length() > 0 ? "1" : numerator.toString();
+        return new Unit(denominator.length() == 0 ? text : text + "/" + denominator, Rational.ONE, 0, exponents);
+    }
+
+    public boolean isDimensionless() {
+        return Arrays.equals(exponents, NONE.exponents);
+    }
+
+    public boolean isAngle() {
+        return Arrays.equals(exponents, RADIAN.exponents);
+    }
+
+    public boolean sameDimension(Unit other) {
+        return Arrays.equals(exponents, other.exponents);
+    }
+
+    // --- Conversion to base units ---
+
+    /**
+     * A tree converting a quantity in this unit to base units: the scale becomes one
+     * multiplication (nothing when it is 1; a multiplication and a division when it has no
+     * finite decimal form, as for km/h) and each degree factor a toRadians.
+     */
+    public Expression toBase(Expression quantity) {
+        Expression result = quantity;
+        if (scale.isTerminating()) {
+            if (!scale.equals(Rational.ONE)) {
+                result = new BinaryNode('*', result, new NumberNode(scale.toBigDecimal()));
+            }
+        } else {
+            result = new BinaryNode('/', new BinaryNode('*', result, new NumberNode(new BigDecimal(scale.numerator()))),
+                    new NumberNode(new BigDecimal(scale.denominator())));
+        }
+        for (int i = 0; i < degrees; i++) {
+            result = new FunctionNode("toRadians", result);
+        }
+        for (int i = 0; i > degrees; i--) {
+            result = new BinaryNode('/', result, new FunctionNode("toRadians", new NumberNode(BigDecimal.ONE)));
+        }
+        return result;
+    }
+
+    /**
+     * What ExpressionEvaluator gives for toBase(Expression), step for step, without building
+     * the tree: CalculatorApp.toRadians calls this for every trig key press.
+     */
+    public BigDecimal toBase(BigDecimal quantity) {
+        BigDecimal result = quantity;
+        if (!scale.equals(Rational.ONE)) {
+            result = scale.isTerminating()
+                    ? BinaryNode.apply('*', result, scale.toBigDecimal())
+                    : BinaryNode.apply('/', BinaryNode.apply('*', result, new BigDecimal(scale.numerator())),
+                            new BigDecimal(scale.denominator()));
+        }
+        for (int i = 0; i < degrees; i++) {
+            result = FunctionNode.apply("toRadians", result);
+        }
+        for (int i = 0; i > degrees; i--) {
+            result = BinaryNode.apply('/', result, FunctionNode.apply("toRadians", BigDecimal.ONE));
+        }
+        return result;
+    }
+
+    public double toBase(double quantity) {
+        double result = scale.equals(Rational.ONE) ? quantity : quantity * scale.doubleValue();
+        for (int i = 0; i < degrees; i++) {
+            result = Math.toRadians(result);
+        }
+        for (int i = 0; i > degrees; i--) {
+            result = result / Math.toRadians(1);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof Unit)) {
+            return false;
+        }
+        Unit other = (Unit) o;
+        return scale.equals(other.scale) && degrees == other.degrees && Arrays.equals(exponents, other.exponents);
+    }
+
+    @Override
+    public int hashCode() {
+        return (scale.hashCode() * 31 + degrees) * 31 + Arrays.hashCode(exponents);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
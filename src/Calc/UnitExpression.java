@@ -0,0 +1,254 @@
+package Calc;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An expression with units, checked and resolved once when it is compiled.
+ *
+ * The text is parsed with OperatorTable.withUnits() (3 km, 9.81 m/s^2, 30°, km/h) and an
+ * optional trailing "in unit" conversion. A Visitor then works out the dimension of every
+ * subexpression, reporting mismatches such as m + s as IllegalArgumentException, and
+ * rewrites the tree into plain numbers in SI base units: each unit becomes its scale factor
+ * (° becomes toRadians) and the target unit one final division. What is left is an ordinary
+ * Expression, so every evaluator, the optimizer and CompiledExpression run it at the cost of
+ * a unit-free formula. An expression without units comes out unchanged.
+ */
+public final class UnitExpression {
+    private final Expression expression;
+    private final String unit;
+
+    private UnitExpression(Expression expression, String unit) {
+        this.expression = expression;
+        this.unit = unit;
+    }
+
+    public static UnitExpression compile(String text) {
+        return compile(text, Collections.emptyMap());
+    }
+
+    /**
+     * Compiles with variables given in the stated units; their values are passed in those
+     * units at evaluation time and converted by the compiled tree.
+     */
+    public static UnitExpression compile(String text, Map<String, Unit> variables) {
+        ExpressionParser parser = new ExpressionParser(OperatorTable.withUnits());
+        ExpressionTokenizer tokens = new ExpressionTokenizer(text);
+        Quantity result = parser.parse(tokens).accept(new Resolver(variables));
+        if (tokens.type == ExpressionTokenizer.Type.END) {
+            return new UnitExpression(result.expression,
+                    result.unit.isDimensionless() ? "" : result.unit.dimension().toString());
+        }
+        if (tokens.type != ExpressionTokenizer.Type.NAME || !tokens.text.equals("in")) {
+            throw new IllegalArgumentException("Unexpected " + tokens.text);
+        }
+
+        // "in km/h": the target is resolved as the quantity 1 km/h and divided out
+        String target = text.substring((int) tokens.offset()).trim();
+        if (target.isEmpty()) {
+            throw new IllegalArgumentException("Missing unit after in");
+        }
+        Quantity one = parser.parse("1 " + target).accept(new Resolver(Collections.emptyMap(), true));
+        if (!one.unit.sameDimension(result.unit)) {
+            throw new IllegalArgumentException("Cannot convert " + describe(result.unit) + " to " + target);
+        }
+        // Degrees to degrees divides the degree values, so 30° in deg is exactly 30
+        if (isDegrees(result.expression) && isDegrees(one.expression)) {
+            return new UnitExpression(new BinaryNode('/', ((FunctionNode) result.expression).argument,
+                    ((FunctionNode) one.expression).argument), target);
+        }
+        return new UnitExpression(new BinaryNode('/', result.expression, one.expression), target);
+    }
+
+    private static boolean isDegrees(Expression expression) {
+        return expression instanceof FunctionNode && ((FunctionNode) expression).name.equals("toRadians");
+    }
+
+    private static String describe(Unit unit) {
+        return unit.isDimensionless() ? "a plain number" : unit.dimension().toString();
+    }
+
+    // --- Accessors ---
+
+    /**
+     * The unit-free tree: base units, divided by the target unit.
+     */
+    public Expression getExpression() {
+        return expression;
+    }
+
+    /**
+     * The unit of the result: the "in" target, else the SI unit of its dimension ("" if none).
+     */
+    public String getUnit() {
+        return unit;
+    }
+
+    // --- Evaluation ---
+
+    public BigDecimal evaluate() {
+        return evaluate(Collections.emptyMap());
+    }
+
+    public BigDecimal evaluate(Map<String, BigDecimal> values) {
+        return new ExpressionEvaluator(values).evaluate(expression);
+    }
+
+    /**
+     * Optimized register program; scale factors of constants fold away, so a formula in
+     * units evaluates like the same formula written in base-unit numbers.
+     */
+    public CompiledExpression toProgram(List<String> variables) {
+        return CompiledExpression.compile(new ExpressionOptimizer().optimize(expression), variables);
+    }
+
+    /**
+     * Exact where rational (RationalEvaluator), followed by the unit: "12.5 m/s", "1/3 h".
+     */
+    public String evaluateExact() {
+        String value = new RationalEvaluator().evaluateOrFallback(expression);
+        return unit.isEmpty() ? value : value + " " + unit;
+    }
+
+    @Override
+    public String toString() {
+        return unit.isEmpty() ? expression.toString() : expression + " " + unit;
+    }
+
+    // --- Dimension checking and resolution (Visitor) ---
+
+    private static final class Quantity {
+        final Expression expression; // in base units
+        final Unit unit;             // only the dimension matters
+
+        Quantity(Expression expression, Unit unit) {
+            this.expression = expression;
+            this.unit = unit;
+        }
+    }
+
+    private static final class Resolver implements ExpressionVisitor<Quantity> {
+        private final Map<String, Unit> variables;
+        private final boolean unitsOnly;
+
+        Resolver(Map<String, Unit> variables) {
+            this(variables, false);
+        }
+
+        Resolver(Map<String, Unit> variables, boolean unitsOnly) {
+            this.variables = variables;
+            this.unitsOnly = unitsOnly;
+        }
+
+        @Override
+        public Quantity visitNumber(NumberNode node) {
+            return new Quantity(node, Unit.NONE);
+        }
+
+        @Override
+        public Quantity visitVariable(VariableNode node) {
+            Unit declared = variables.get(node.name);
+            if (declared != null) {
+                return new Quantity(declared.toBase(node), declared);
+            }
+            Unit unit = Unit.named(node.name);
+            if (unit != null) {
+                // A unit on its own is one of it: km/h is 1 km / 1 h
+                return new Quantity(unit.toBase(new NumberNode(BigDecimal.ONE)), unit);
+            }
+            if (unitsOnly) {
+                throw new IllegalArgumentException("Unknown unit: " + node.name);
+            }
+            // A plain variable: dimensionless, evaluated (or reported unknown) as before
+            return new Quantity(node, Unit.NONE);
+        }
+
+        @Override
+        public Quantity visitBinary(BinaryNode node) {
+            return BinaryNode.foldLeft(node, this, this::resolveBinary);
+        }
+
+        private Quantity resolveBinary(BinaryNode node, Quantity left) {
+            Quantity right = node.right.accept(this);
+            Expression tree = new BinaryNode(node.operator, left.expression, right.expression);
+            return switch (node.operator) {
+                case '+', '-' -> {
+                    if (!left.unit.sameDimension(right.unit)) {
+                        throw new IllegalArgumentException("Dimension mismatch: " + describe(left.unit) + " "
+                                + node.operator + " " + describe(right.unit));
+                    }
+                    yield new Quantity(tree, left.unit);
+                }
+                case '*' -> new Quantity(tree, left.unit.multiply(right.unit));
+                case '/' -> new Quantity(tree, left.unit.divide(right.unit));
+                case '^' -> new Quantity(tree, power(left.unit, right));
+                default -> throw new IllegalArgumentException("Unknown operator: " + node.operator);
+            };
+        }
+
+        // Powers of a quantity with units need a constant whole exponent to have a dimension
+        private static Unit power(Unit base, Quantity exponent) {
+            if (!exponent.unit.isDimensionless()) {
+                throw new IllegalArgumentException("Exponent must be a plain number, not " + describe(exponent.unit));
+            }
+            if (base.isDimensionless()) {
+                return Unit.NONE;
+            }
+            BigDecimal value;
+            try {
+                value = new ExpressionEvaluator().evaluate(exponent.expression);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Exponent of " + describe(base) + " must be a constant");
+            }
+            if (value.stripTrailingZeros().scale() > 0) {
+                throw new IllegalArgumentException("Exponent of " + describe(base) + " must be a whole number");
+            }
+            return base.pow(value.intValueExact());
+        }
+
+        @Override
+        public Quantity visitFunction(FunctionNode node) {
+            Quantity argument = node.argument.accept(this);
+            Unit unit = argument.unit;
+            switch (node.name) {
+                case "neg":
+                    return new Quantity(new FunctionNode("neg", argument.expression), unit);
+                case "√": {
+                    Unit root = unit.sqrt();
+                    if (root == null) {
+                        throw new IllegalArgumentException("√ of " + describe(unit) + " has no unit");
+                    }
+                    return new Quantity(new FunctionNode("√", argument.expression), root);
+                }
+                case "toRadians":
+                    // The ° conversion: plain numbers are degrees, angles are already radians
+                    if (unit.isAngle()) {
+                        return new Quantity(argument.expression, Unit.RADIAN);
+                    }
+                    requirePlain(node.name, unit);
+                    return new Quantity(new FunctionNode("toRadians", argument.expression), Unit.RADIAN);
+                case "sin", "cos", "tan":
+                    if (!unit.isAngle()) {
+                        requirePlain(node.name, unit);
+                    }
+                    return new Quantity(new FunctionNode(node.name, argument.expression), Unit.NONE);
+                case "sind", "cosd", "tand":
+                    if (unit.isAngle()) {
+                        return new Quantity(new FunctionNode(node.name.substring(0, 3), argument.expression), Unit.NONE);
+                    }
+                    requirePlain(node.name, unit);
+                    return new Quantity(new FunctionNode(node.name, argument.expression), Unit.NONE);
+                default:
+                    return new Quantity(new FunctionNode(node.name, argument.expression), unit);
+            }
+        }
+
+        private static void requirePlain(String function, Unit unit) {
+            if (!unit.isDimensionless()) {
+                throw new IllegalArgumentException(function + " needs an angle, not " + describe(unit));
+            }
+        }
+    }
+}